@@ -0,0 +1,245 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.aries.cdi.container.internal.loader.BundleClassLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.wiring.BundleWiring;
+
+/**
+ * The CDI implementations load every bean class, and probe for many absent
+ * ones, through the aggregate {@link BundleClassLoader} of the container.
+ * {@code hit} and {@code miss} measure a warm loader. {@code boot} measures
+ * the cold path of a container start against a new loader, and
+ * {@code bootWithoutMisses} the same start against the former loader, which
+ * tried every bundle for every probe. Each absent name is probed
+ * {@code probes} times.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class BundleClassLoaderBenchmark {
+
+	@Param({"10"})
+	public int bundles;
+
+	@Param({"200"})
+	public int classes;
+
+	@Param({"100"})
+	public int missing;
+
+	@Param({"1", "4"})
+	public int probes;
+
+	@Setup
+	public void setup() throws Exception {
+		bundleList = new ArrayList<>();
+
+		for (int i = 0; i < bundles; i++) {
+			Set<String> names = new HashSet<>();
+
+			for (int j = i; j < classes; j += bundles) {
+				String name = "com.acme.b" + i + ".Bean" + j;
+
+				names.add(name);
+				classNames.add(name);
+			}
+
+			bundleList.add(bundle(names));
+		}
+
+		for (int i = 0; i < missing; i++) {
+			missingNames.add("com.acme.optional.Missing" + i);
+		}
+
+		loader = loader();
+
+		loader.loadClass(classNames.get(0));
+	}
+
+	@Benchmark
+	public Class<?> hit() throws Exception {
+		return loader.loadClass(classNames.get(0));
+	}
+
+	@Benchmark
+	public void miss(Blackhole blackhole) {
+		try {
+			blackhole.consume(loader.loadClass("com.acme.Missing"));
+		}
+		catch (ClassNotFoundException cnfe) {
+			blackhole.consume(cnfe);
+		}
+	}
+
+	@Benchmark
+	public void boot(Blackhole blackhole) throws Exception {
+		BundleClassLoader loader = loader();
+
+		for (String name : classNames) {
+			blackhole.consume(loader.loadClass(name));
+		}
+
+		for (int i = 0; i < probes; i++) {
+			for (String name : missingNames) {
+				try {
+					blackhole.consume(loader.loadClass(name));
+				}
+				catch (ClassNotFoundException cnfe) {
+					blackhole.consume(cnfe);
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public void bootWithoutMisses(Blackhole blackhole) throws Exception {
+		ClassLoader loader = new SequentialLoader(bundleList);
+
+		for (String name : classNames) {
+			blackhole.consume(loader.loadClass(name));
+		}
+
+		for (int i = 0; i < probes; i++) {
+			for (String name : missingNames) {
+				try {
+					blackhole.consume(loader.loadClass(name));
+				}
+				catch (ClassNotFoundException cnfe) {
+					blackhole.consume(cnfe);
+				}
+			}
+		}
+	}
+
+	private BundleClassLoader loader() {
+		BundleClassLoader loader = new BundleClassLoader(bundleList.get(0), bundleList.get(1));
+
+		loader.getBundles().addAll(bundleList.subList(2, bundleList.size()));
+
+		return loader;
+	}
+
+	private Bundle bundle(Set<String> names) {
+		// mockito records a location for every call, which would dwarf the lookups
+		BundleWiring wiring = (BundleWiring)Proxy.newProxyInstance(
+			getClass().getClassLoader(), new Class<?>[] {BundleWiring.class},
+			(proxy, method, args) -> null);
+
+		return (Bundle)Proxy.newProxyInstance(
+			getClass().getClassLoader(), new Class<?>[] {Bundle.class},
+			(proxy, method, args) -> {
+				switch (method.getName()) {
+					case "adapt":
+						return (args[0] == BundleWiring.class) ? wiring : null;
+					case "getState":
+						return Bundle.ACTIVE;
+					case "loadClass":
+						if (names.contains(args[0])) {
+							return Object.class;
+						}
+
+						// a real bundle fills in a new exception for every miss
+						throw new ClassNotFoundException((String)args[0]);
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "equals":
+						return proxy == args[0];
+					default:
+						return null;
+				}
+			}
+		);
+	}
+
+	private List<Bundle> bundleList;
+	private final List<String> classNames = new ArrayList<>();
+	private BundleClassLoader loader;
+	private final List<String> missingNames = new ArrayList<>();
+
+	/**
+	 * The lookup of {@link BundleClassLoader} before misses were remembered.
+	 */
+	private static class SequentialLoader extends ClassLoader {
+
+		SequentialLoader(List<Bundle> bundles) {
+			this.bundles = bundles;
+		}
+
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			for (Bundle bundle : bundles) {
+				if ((bundle.getState() & Bundle.UNINSTALLED) == Bundle.UNINSTALLED) {
+					continue;
+				}
+				try {
+					return bundle.loadClass(name);
+				}
+				catch (ClassNotFoundException cnfe) {
+					continue;
+				}
+			}
+
+			throw new ClassNotFoundException(name);
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve)
+			throws ClassNotFoundException {
+
+			synchronized (getClassLoadingLock(name)) {
+				Class<?> clazz = cache.get(name);
+
+				if (clazz == null) {
+					clazz = findClass(name);
+
+					cache.put(name, clazz);
+				}
+
+				return clazz;
+			}
+		}
+
+		private final List<Bundle> bundles;
+		private final Map<String, Class<?>> cache = new ConcurrentHashMap<>();
+
+	}
+
+}
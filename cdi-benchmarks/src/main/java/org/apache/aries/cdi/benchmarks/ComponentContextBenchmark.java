@@ -0,0 +1,167 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.benchmarks;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.spi.CreationalContext;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.InjectionPoint;
+
+import org.apache.aries.cdi.container.internal.container.ComponentContext;
+import org.apache.aries.cdi.container.internal.container.ComponentContext.With;
+import org.apache.aries.cdi.container.internal.model.ExtendedActivationDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.service.cdi.annotations.ComponentScoped;
+
+/**
+ * Every call on the client proxy of a {@code @ComponentScoped} bean goes
+ * through {@link ComponentContext#get(javax.enterprise.context.spi.Contextual, CreationalContext)}.
+ * Run {@code getAndDestroy} with {@code -prof gc} to check that activations
+ * leave nothing behind: the normalized allocation rate must stay flat.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+public class ComponentContextBenchmark {
+
+	@Setup
+	public void setup() {
+		with = new With(activationDTO);
+
+		context.get(bean, creationalContext);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.destroy();
+
+		with.close();
+	}
+
+	@Benchmark
+	public Object get() {
+		return context.get(bean, creationalContext);
+	}
+
+	@Benchmark
+	public Object getExisting() {
+		return context.get(bean);
+	}
+
+	@Benchmark
+	public Object getAndDestroy() {
+		// like a prototype scoped service being got and ungot
+		try (With with = new With(new ExtendedActivationDTO())) {
+			Object instance = context.get(bean, creationalContext);
+
+			context.destroy();
+
+			return instance;
+		}
+	}
+
+	private final ExtendedActivationDTO activationDTO = new ExtendedActivationDTO();
+	private final Bean<Object> bean = new ComponentScopedBean();
+	private final ComponentContext context = new ComponentContext();
+	private final CreationalContext<Object> creationalContext = new CreationalContext<Object>() {
+
+		@Override
+		public void push(Object incompleteInstance) {
+		}
+
+		@Override
+		public void release() {
+		}
+
+	};
+	private With with;
+
+	private static class ComponentScopedBean implements Bean<Object> {
+
+		@Override
+		public Object create(CreationalContext<Object> creationalContext) {
+			return new Object();
+		}
+
+		@Override
+		public void destroy(Object instance, CreationalContext<Object> creationalContext) {
+		}
+
+		@Override
+		public Set<Type> getTypes() {
+			return Collections.singleton(Object.class);
+		}
+
+		@Override
+		public Set<Annotation> getQualifiers() {
+			return Collections.emptySet();
+		}
+
+		@Override
+		public Class<? extends Annotation> getScope() {
+			return ComponentScoped.class;
+		}
+
+		@Override
+		public String getName() {
+			return null;
+		}
+
+		@Override
+		public Set<Class<? extends Annotation>> getStereotypes() {
+			return Collections.emptySet();
+		}
+
+		@Override
+		public boolean isAlternative() {
+			return false;
+		}
+
+		@Override
+		public Class<?> getBeanClass() {
+			return ComponentScopedBean.class;
+		}
+
+		@Override
+		public Set<InjectionPoint> getInjectionPoints() {
+			return Collections.emptySet();
+		}
+
+		@Override
+		public boolean isNullable() {
+			return false;
+		}
+
+	}
+
+}
@@ -0,0 +1,201 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.aries.cdi.container.internal.util.DTOs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.framework.dto.ServiceReferenceDTO;
+import org.osgi.service.cdi.ComponentType;
+import org.osgi.service.cdi.ConfigurationPolicy;
+import org.osgi.service.cdi.MaximumCardinality;
+import org.osgi.service.cdi.ReferencePolicy;
+import org.osgi.service.cdi.ReferencePolicyOption;
+import org.osgi.service.cdi.ServiceScope;
+import org.osgi.service.cdi.runtime.dto.ActivationDTO;
+import org.osgi.service.cdi.runtime.dto.ComponentDTO;
+import org.osgi.service.cdi.runtime.dto.ComponentInstanceDTO;
+import org.osgi.service.cdi.runtime.dto.ConfigurationDTO;
+import org.osgi.service.cdi.runtime.dto.ContainerDTO;
+import org.osgi.service.cdi.runtime.dto.ReferenceDTO;
+import org.osgi.service.cdi.runtime.dto.template.ActivationTemplateDTO;
+import org.osgi.service.cdi.runtime.dto.template.ComponentTemplateDTO;
+import org.osgi.service.cdi.runtime.dto.template.ConfigurationTemplateDTO;
+import org.osgi.service.cdi.runtime.dto.template.ContainerTemplateDTO;
+import org.osgi.service.cdi.runtime.dto.template.ReferenceTemplateDTO;
+
+/**
+ * {@link DTOs#copy(ContainerDTO, boolean)} runs for every call to the
+ * {@code CDIComponentRuntime} service after the container changed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class DTOsBenchmark {
+
+	@Param({"10", "100"})
+	public int components;
+
+	@Param({"1", "10"})
+	public int instances;
+
+	@Setup
+	public void setup() {
+		containerDTO = new ContainerDTO();
+		containerDTO.changeCount = 1;
+		containerDTO.components = new ArrayList<>();
+		containerDTO.errors = new ArrayList<>();
+		containerDTO.extensions = new ArrayList<>();
+		containerDTO.template = new ContainerTemplateDTO();
+		containerDTO.template.components = new ArrayList<>();
+		containerDTO.template.extensions = new ArrayList<>();
+		containerDTO.template.id = "benchmark";
+
+		for (int i = 0; i < components; i++) {
+			ComponentTemplateDTO template = template("component." + i);
+
+			containerDTO.template.components.add(template);
+
+			ComponentDTO componentDTO = new ComponentDTO();
+			componentDTO.enabled = true;
+			componentDTO.instances = new ArrayList<>();
+			componentDTO.template = template;
+
+			for (int j = 0; j < instances; j++) {
+				componentDTO.instances.add(instance(template, j));
+			}
+
+			containerDTO.components.add(componentDTO);
+		}
+	}
+
+	@Benchmark
+	public ContainerDTO copy() {
+		return DTOs.copy(containerDTO, true);
+	}
+
+	private ComponentInstanceDTO instance(ComponentTemplateDTO template, int index) {
+		ComponentInstanceDTO instanceDTO = new ComponentInstanceDTO();
+		instanceDTO.activations = new ArrayList<>();
+		instanceDTO.configurations = new ArrayList<>();
+		instanceDTO.properties = properties(template.name + "." + index);
+		instanceDTO.references = new ArrayList<>();
+
+		for (ActivationTemplateDTO activationTemplate : template.activations) {
+			ActivationDTO activationDTO = new ActivationDTO();
+			activationDTO.errors = new ArrayList<>();
+			activationDTO.template = activationTemplate;
+			instanceDTO.activations.add(activationDTO);
+		}
+
+		for (ConfigurationTemplateDTO configurationTemplate : template.configurations) {
+			ConfigurationDTO configurationDTO = new ConfigurationDTO();
+			configurationDTO.properties = instanceDTO.properties;
+			configurationDTO.template = configurationTemplate;
+			instanceDTO.configurations.add(configurationDTO);
+		}
+
+		for (ReferenceTemplateDTO referenceTemplate : template.references) {
+			ReferenceDTO referenceDTO = new ReferenceDTO();
+			referenceDTO.matches = new ArrayList<>();
+			referenceDTO.minimumCardinality = referenceTemplate.minimumCardinality;
+			referenceDTO.targetFilter = referenceTemplate.targetFilter;
+			referenceDTO.template = referenceTemplate;
+
+			for (int i = 0; i < 5; i++) {
+				ServiceReferenceDTO match = new ServiceReferenceDTO();
+				match.id = i;
+				match.properties = properties("service." + i);
+				match.usingBundles = new long[0];
+				referenceDTO.matches.add(match);
+			}
+
+			instanceDTO.references.add(referenceDTO);
+		}
+
+		return instanceDTO;
+	}
+
+	private Map<String, Object> properties(String name) {
+		Map<String, Object> properties = new HashMap<>();
+
+		for (int i = 0; i < 10; i++) {
+			properties.put(name + ".key." + i, "value." + i);
+		}
+
+		return properties;
+	}
+
+	private ComponentTemplateDTO template(String name) {
+		ComponentTemplateDTO template = new ComponentTemplateDTO();
+		template.activations = new ArrayList<>();
+		template.beans = new ArrayList<>();
+		template.configurations = new ArrayList<>();
+		template.name = name;
+		template.properties = properties(name);
+		template.references = new ArrayList<>();
+		template.type = ComponentType.FACTORY;
+
+		ActivationTemplateDTO activationTemplate = new ActivationTemplateDTO();
+		activationTemplate.properties = Collections.emptyMap();
+		activationTemplate.scope = ServiceScope.SINGLETON;
+		activationTemplate.serviceClasses = Collections.singletonList("com.acme.Service");
+		template.activations.add(activationTemplate);
+
+		ConfigurationTemplateDTO configurationTemplate = new ConfigurationTemplateDTO();
+		configurationTemplate.maximumCardinality = MaximumCardinality.MANY;
+		configurationTemplate.pid = name;
+		configurationTemplate.policy = ConfigurationPolicy.REQUIRED;
+		template.configurations.add(configurationTemplate);
+
+		for (int i = 0; i < 3; i++) {
+			template.beans.add("com.acme.Bean" + i);
+
+			ReferenceTemplateDTO referenceTemplate = new ReferenceTemplateDTO();
+			referenceTemplate.maximumCardinality = MaximumCardinality.MANY;
+			referenceTemplate.minimumCardinality = 0;
+			referenceTemplate.name = name + ".reference." + i;
+			referenceTemplate.policy = ReferencePolicy.DYNAMIC;
+			referenceTemplate.policyOption = ReferencePolicyOption.GREEDY;
+			referenceTemplate.serviceType = "com.acme.Service";
+			referenceTemplate.targetFilter = "";
+			template.references.add(referenceTemplate);
+		}
+
+		return template;
+	}
+
+	private ContainerDTO containerDTO;
+
+}
@@ -0,0 +1,138 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.benchmarks;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.aries.cdi.container.internal.container.ContainerState;
+import org.apache.aries.cdi.container.internal.container.Discovery;
+import org.apache.aries.cdi.container.internal.model.BeansModel;
+import org.apache.aries.cdi.container.internal.model.OSGiBean;
+import org.apache.aries.cdi.container.internal.util.Logs;
+import org.apache.aries.cdi.container.test.TestUtil;
+import org.apache.aries.cdi.container.test.beans.BarAnnotated;
+import org.apache.aries.cdi.container.test.beans.BarProducer;
+import org.apache.aries.cdi.container.test.beans.BarService;
+import org.apache.aries.cdi.container.test.beans.BarWithConfig;
+import org.apache.aries.cdi.container.test.beans.BarWithReference;
+import org.apache.aries.cdi.container.test.beans.FieldFoo;
+import org.apache.aries.cdi.container.test.beans.FieldListFoo;
+import org.apache.aries.cdi.container.test.beans.FooAnnotated;
+import org.apache.aries.cdi.container.test.beans.FooProducer;
+import org.apache.aries.cdi.container.test.beans.FooWithReferenceAndConfig;
+import org.apache.aries.cdi.container.test.beans.MethodBindFoo;
+import org.apache.aries.cdi.container.test.beans.ObserverFoo;
+import org.apache.aries.cdi.container.test.beans.Reference_D_R_M_U_Service;
+import org.apache.aries.cdi.container.test.beans.Reference_S_R_M_U_Service;
+import org.apache.aries.cdi.container.test.beans.ctordynamicgreedy.CtorFooBar;
+import org.apache.aries.cdi.container.test.beans.ctorstaticreluctant.CtorListFoo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.service.cdi.runtime.dto.template.ComponentTemplateDTO;
+
+/**
+ * {@link Discovery#discover()} over a synthetic bean set made of copies of
+ * the beans used by the unit tests of the extender: plain beans, components,
+ * producers, observers and every kind of reference injection point.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class DiscoveryBenchmark {
+
+	@Param({"1", "10"})
+	public int copies;
+
+	@Setup
+	public void setup() throws Exception {
+		containerState = TestUtil.getContainerState(new BeansModel(beans, Collections.emptyList()));
+
+		ComponentTemplateDTO containerTemplate = containerState.containerDTO().template.components.get(0);
+
+		configurations = containerTemplate.configurations.size();
+	}
+
+	@Setup(Level.Invocation)
+	public void reset() {
+		List<ComponentTemplateDTO> components = containerState.containerDTO().template.components;
+
+		components.subList(1, components.size()).clear();
+
+		ComponentTemplateDTO containerTemplate = components.get(0);
+
+		containerTemplate.activations.clear();
+		containerTemplate.beans.clear();
+		containerTemplate.configurations.subList(configurations, containerTemplate.configurations.size()).clear();
+		containerTemplate.references.clear();
+		containerState.containerDTO().errors.clear();
+
+		// discovery marks and completes the beans
+		beans.clear();
+
+		for (int i = 0; i < copies; i++) {
+			for (Class<?> beanClass : BEAN_CLASSES) {
+				beans.put(beanClass.getName() + "#" + i, new OSGiBean.Builder(logs, beanClass).build());
+			}
+		}
+
+		discovery = new Discovery(containerState);
+	}
+
+	@TearDown
+	public void tearDown() {
+		((ExecutorService)containerState.promiseFactory().executor()).shutdownNow();
+	}
+
+	@Benchmark
+	public ContainerState discover() {
+		discovery.discover();
+
+		return containerState;
+	}
+
+	private static final Class<?>[] BEAN_CLASSES = {
+		BarAnnotated.class, BarProducer.class, BarService.class, BarWithConfig.class,
+		BarWithReference.class, CtorFooBar.class, CtorListFoo.class, FieldFoo.class,
+		FieldListFoo.class, FooAnnotated.class, FooProducer.class, FooWithReferenceAndConfig.class,
+		MethodBindFoo.class, ObserverFoo.class, Reference_D_R_M_U_Service.class,
+		Reference_S_R_M_U_Service.class
+	};
+
+	private final Map<String, OSGiBean> beans = new LinkedHashMap<>();
+	private int configurations;
+	private ContainerState containerState;
+	private Discovery discovery;
+	private final Logs logs = new Logs.Builder(null).build();
+
+}
@@ -0,0 +1,147 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.benchmarks;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.aries.cdi.container.internal.util.Maps;
+import org.apache.aries.cdi.container.internal.util.ServiceReferenceMap;
+import org.apache.aries.cdi.container.test.MockServiceReference;
+import org.apache.aries.cdi.container.test.TestUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.framework.dto.BundleDTO;
+import org.osgi.service.cdi.annotations.BeanPropertyType;
+import org.osgi.service.cdi.annotations.Service;
+
+/**
+ * A {@link ServiceReferenceMap} is created for every service tracked by a
+ * {@code Map<String, Object>} reference, where {@link Maps#of(Dictionary)}
+ * used to copy the properties. It only takes the keys and reads the values
+ * from the reference, {@code ofServiceReference} measures a map which is never
+ * read and {@code ofServiceReferenceRead} one which is. {@link Maps#merge(Collection)} runs for every
+ * bean property type found during discovery.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class MapsBenchmark {
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@BeanPropertyType
+	public @interface Colors {
+		String[] colors();
+		int[] sizes();
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@BeanPropertyType
+	public @interface Color {
+		String colors();
+		int[] sizes();
+		boolean enabled();
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@BeanPropertyType
+	public @interface Marker {
+	}
+
+	@Colors(colors = {"red", "green"}, sizes = {1, 2, 3})
+	@Color(colors = "blue", sizes = {4, 5}, enabled = true)
+	@Marker
+	@Service(Integer.class)
+	public Integer annotated;
+
+	@Param({"10", "100"})
+	public int properties;
+
+	@Setup
+	public void setup() throws Exception {
+		dictionary = new Hashtable<>();
+		entries = new ArrayList<>();
+		reference = new MockServiceReference<>(
+			TestUtil.mockBundle(new BundleDTO(), b -> {}), new Object(), new String[] {"test.Foo"});
+
+		for (int i = 0; i < properties; i++) {
+			dictionary.put("key." + i, "value." + i);
+			reference.setProperty("key." + i, "value." + i);
+			entries.add(new SimpleEntry<>("key." + i, "value." + i));
+			// every tenth key collides so that the values are merged
+			entries.add(new SimpleEntry<>("key." + (i - (i % 10)), "other." + i));
+		}
+
+		annotations = Arrays.asList(getClass().getField("annotated").getAnnotations());
+	}
+
+	@Benchmark
+	public Map<String, Object> ofDictionary() {
+		return Maps.of(dictionary);
+	}
+
+	@Benchmark
+	public Map<String, Object> ofServiceReference() {
+		return new ServiceReferenceMap(reference);
+	}
+
+	@Benchmark
+	public Object ofServiceReferenceRead() {
+		return new ServiceReferenceMap(reference).get("key.0");
+	}
+
+	@Benchmark
+	public Object ofServiceReferenceCopy() {
+		return Maps.of(reference.getProperties()).get("key.0");
+	}
+
+	@Benchmark
+	public Map<String, Object> mergeAnnotations() {
+		return Maps.merge(annotations);
+	}
+
+	@Benchmark
+	public Map<String, Object> mergeEntries() {
+		return Maps.merge(entries.stream());
+	}
+
+	private Collection<Annotation> annotations;
+	private Dictionary<String, Object> dictionary;
+	private List<Map.Entry<String, Object>> entries;
+	private MockServiceReference<Object> reference;
+
+}
@@ -0,0 +1,159 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.benchmarks;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.aries.cdi.container.internal.container.ContainerState;
+import org.apache.aries.cdi.container.internal.container.ReferenceSync;
+import org.apache.aries.cdi.container.internal.model.Binder;
+import org.apache.aries.cdi.container.internal.model.CollectionType;
+import org.apache.aries.cdi.container.internal.model.ExtendedComponentInstanceDTO;
+import org.apache.aries.cdi.container.internal.model.ExtendedReferenceDTO;
+import org.apache.aries.cdi.container.internal.model.ExtendedReferenceTemplateDTO;
+import org.apache.aries.cdi.container.internal.model.ReferenceMatches;
+import org.apache.aries.cdi.container.test.MockServiceReference;
+import org.apache.aries.cdi.container.test.TestUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.cdi.MaximumCardinality;
+import org.osgi.service.cdi.ReferencePolicy;
+import org.osgi.service.cdi.ReferencePolicyOption;
+
+/**
+ * A {@link ReferenceSync} keeps the {@code matches} of its reference sorted
+ * as services come and go. The reference is a binder so that no rebind of
+ * the component is involved.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class ReferenceSyncBenchmark {
+
+	@Param({"100", "1000", "10000"})
+	public int services;
+
+	@Setup
+	public void setup() throws Exception {
+		containerState = TestUtil.getContainerState(null);
+
+		ExtendedReferenceTemplateDTO templateDTO = new ExtendedReferenceTemplateDTO();
+		templateDTO.collectionType = CollectionType.BINDER_SERVICE;
+		templateDTO.maximumCardinality = MaximumCardinality.MANY;
+		templateDTO.minimumCardinality = 0;
+		templateDTO.name = "benchmark";
+		templateDTO.policy = ReferencePolicy.DYNAMIC;
+		templateDTO.policyOption = ReferencePolicyOption.GREEDY;
+		templateDTO.serviceType = "com.acme.Service";
+
+		ExtendedReferenceDTO referenceDTO = new ExtendedReferenceDTO();
+		referenceDTO.binder = new NoopBinder();
+		referenceDTO.matches = new ReferenceMatches();
+		referenceDTO.minimumCardinality = 0;
+		referenceDTO.template = templateDTO;
+
+		ExtendedComponentInstanceDTO instanceDTO = new ExtendedComponentInstanceDTO(containerState, null);
+		instanceDTO.active = true;
+
+		referenceSync = new ReferenceSync(containerState, referenceDTO, instanceDTO, null);
+
+		// the references are read on every change, the mock doesn't need to record invocations
+		Bundle bundle = mock(Bundle.class, withSettings().stubOnly());
+		when(bundle.getBundleId()).thenReturn(2L);
+
+		Random random = new Random(7);
+		List<ServiceReference<Object>> references = new ArrayList<>();
+
+		for (int i = 0; i <= services; i++) {
+			MockServiceReference<Object> reference = new MockServiceReference<>(
+				bundle, new Object(), new String[] {templateDTO.serviceType});
+			reference.setProperty(Constants.SERVICE_RANKING, random.nextInt(10) - 5);
+			references.add(reference);
+		}
+
+		// the last one comes and goes
+		reference = references.remove(services);
+
+		for (ServiceReference<Object> tracked : references) {
+			referenceSync.addingService(tracked);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		((ExecutorService)containerState.promiseFactory().executor()).shutdownNow();
+	}
+
+	@Benchmark
+	public Object addAndRemove() {
+		Object service = referenceSync.addingService(reference);
+
+		referenceSync.removedService(reference, service);
+
+		return service;
+	}
+
+	private static class NoopBinder implements Binder<Object> {
+
+		@Override
+		public Binder<Object> addingService(ServiceReference<Object> reference) {
+			return this;
+		}
+
+		@Override
+		public Binder<Object> modifiedService(ServiceReference<Object> reference) {
+			return this;
+		}
+
+		@Override
+		public Binder<Object> removedService(ServiceReference<Object> reference) {
+			return this;
+		}
+
+		@Override
+		public void close() {
+		}
+
+	}
+
+	private ContainerState containerState;
+	private ServiceReference<Object> reference;
+	private ReferenceSync referenceSync;
+
+}
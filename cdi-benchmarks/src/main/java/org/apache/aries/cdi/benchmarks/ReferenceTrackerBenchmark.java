@@ -0,0 +1,146 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.aries.cdi.container.internal.container.ReferenceIndex;
+import org.apache.aries.cdi.container.test.TestUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.dto.BundleDTO;
+import org.osgi.util.tracker.ServiceTrackerCustomizer;
+
+/**
+ * Dynamic references read the services of their {@link ReferenceIndex.Tracker}
+ * on every {@code Provider.get()}. {@code trackedCopy} is the copy the
+ * providers used to make before the tracker kept a snapshot.
+ * {@code openAndClose} tracks all the services one by one, which keeps that
+ * snapshot up to date {@code services} times.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 3, time = 1)
+public class ReferenceTrackerBenchmark {
+
+	@Param({"1", "10", "100"})
+	public int services;
+
+	@Setup
+	public void setup() throws Exception {
+		TestUtil.serviceListeners.clear();
+		TestUtil.serviceRegistrations.clear();
+
+		BundleDTO bundleDTO = new BundleDTO();
+		bundleDTO.id = 1;
+		bundleDTO.symbolicName = "benchmark";
+
+		BundleContext bundleContext = TestUtil.mockBundle(bundleDTO, b -> {}).getBundleContext();
+
+		index = new ReferenceIndex(bundleContext);
+
+		tracker = index.tracker(
+			"com.acme.Service", "(objectClass=com.acme.Service)", new Customizer());
+
+		tracker.open();
+
+		for (int i = 0; i < services; i++) {
+			Hashtable<String, Object> properties = new Hashtable<>();
+			properties.put(Constants.SERVICE_RANKING, i % 7);
+
+			bundleContext.registerService(new String[] {"com.acme.Service"}, new Object(), properties);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		tracker.close();
+
+		TestUtil.serviceListeners.clear();
+		TestUtil.serviceRegistrations.clear();
+	}
+
+	@Benchmark
+	public Object service() {
+		return tracker.getService();
+	}
+
+	@Benchmark
+	public List<Object> services() {
+		return tracker.services();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public int openAndClose() {
+		ReferenceIndex.Tracker other = index.tracker(
+			"com.acme.Service", "(objectClass=com.acme.Service)", new Customizer());
+
+		other.open();
+
+		int size = other.size();
+
+		other.close();
+
+		return size;
+	}
+
+	@Benchmark
+	public List<Object> trackedCopy() {
+		return new ArrayList<>(tracker.getTracked().values());
+	}
+
+	private static class Customizer implements ServiceTrackerCustomizer<Object, Object> {
+
+		@Override
+		public Object addingService(ServiceReference<Object> reference) {
+			return new Object();
+		}
+
+		@Override
+		public void modifiedService(ServiceReference<Object> reference, Object service) {
+		}
+
+		@Override
+		public void removedService(ServiceReference<Object> reference, Object service) {
+		}
+
+	}
+
+	private ReferenceIndex index;
+	private ReferenceIndex.Tracker tracker;
+
+}
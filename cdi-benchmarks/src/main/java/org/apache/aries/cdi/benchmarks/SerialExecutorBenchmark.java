@@ -0,0 +1,105 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.aries.cdi.container.internal.util.SerialExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
+
+/**
+ * Simulates the start of several containers, each made of a chain of
+ * dependent operations, on their own {@link SerialExecutor} lanes sharing a
+ * pool of {@code threads} threads. {@code threads=1} is the former single
+ * extender thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 1)
+public class SerialExecutorBenchmark {
+
+	@Param({"8"})
+	public int containers;
+
+	@Param({"5"})
+	public int ops;
+
+	@Param({"1", "8"})
+	public int threads;
+
+	@Setup
+	public void setup() {
+		pool = Executors.newFixedThreadPool(threads);
+	}
+
+	@TearDown
+	public void tearDown() {
+		pool.shutdownNow();
+	}
+
+	@Benchmark
+	public int startup() throws Exception {
+		List<Promise<Integer>> promises = new ArrayList<>();
+
+		for (int i = 0; i < containers; i++) {
+			PromiseFactory promiseFactory = new PromiseFactory(new SerialExecutor(pool));
+
+			Promise<Integer> promise = promiseFactory.resolved(0);
+
+			for (int j = 0; j < ops; j++) {
+				promise = promise.flatMap(v -> promiseFactory.submit(() -> {
+					// an operation blocked on I/O, e.g. reading the bundle's classes
+					Thread.sleep(OP_MILLIS);
+					return v + 1;
+				}));
+			}
+
+			promises.add(promise);
+		}
+
+		int total = 0;
+
+		for (Promise<Integer> promise : promises) {
+			total += promise.getValue();
+		}
+
+		return total;
+	}
+
+	private static final long OP_MILLIS = 10;
+
+	private ExecutorService pool;
+
+}
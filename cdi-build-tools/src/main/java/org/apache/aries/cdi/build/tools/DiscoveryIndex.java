@@ -0,0 +1,223 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.build.tools;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import org.osgi.service.cdi.annotations.ComponentProperties;
+import org.osgi.service.cdi.annotations.ComponentScoped;
+import org.osgi.service.cdi.annotations.FactoryComponent;
+import org.osgi.service.cdi.annotations.Reference;
+import org.osgi.service.cdi.annotations.Service;
+import org.osgi.service.cdi.annotations.SingleComponent;
+import org.osgi.service.cdi.reference.BindBeanServiceObjects;
+import org.osgi.service.cdi.reference.BindService;
+import org.osgi.service.cdi.reference.BindServiceReference;
+
+import net.bytebuddy.build.BuildLogger;
+import net.bytebuddy.build.Plugin;
+import net.bytebuddy.description.annotation.AnnotationList;
+import net.bytebuddy.description.field.FieldDescription;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.method.ParameterDescription;
+import net.bytebuddy.description.type.TypeDefinition;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.DynamicType.Builder;
+
+/**
+ * Writes the discovery index ({@code META-INF/aries-cdi/index}) read by the
+ * CCR during bean discovery. Classes marked {@code plain} have no OSGi CDI
+ * injection points, producers, services or component annotations so the CCR
+ * does not reflect on their members. Each entry records the CRC-32 of the
+ * class file it was computed from, the CCR ignores the index when a bean
+ * class is missing from it or a class file no longer matches. The plugin does
+ * not transform any type.
+ * <p>
+ * Example:
+ * <pre>
+ * &lt;transformation&gt;
+ *   &lt;plugin&gt;org.apache.aries.cdi.build.tools.DiscoveryIndex&lt;/plugin&gt;
+ *   &lt;arguments&gt;
+ *     &lt;argument&gt;
+ *       &lt;index&gt;1&lt;/index&gt;
+ *       &lt;value&gt;${project.build.outputDirectory}&lt;/value&gt;
+ *     &lt;/argument&gt;
+ *   &lt;/arguments&gt;
+ * &lt;/transformation&gt;
+ * </pre>
+ */
+public class DiscoveryIndex implements Plugin {
+
+	public static final String PATH = "META-INF/aries-cdi/index";
+
+	public static final String VERSION = "2";
+
+	private final BuildLogger buildLogger;
+	private final Path outputDirectory;
+	private final Map<String, String> entries = new TreeMap<>();
+
+	private static final Set<String> COMPONENT_ANNOTATIONS = names(
+		ComponentScoped.class.getName(), FactoryComponent.class.getName(),
+		Service.class.getName(), SingleComponent.class.getName());
+
+	private static final Set<String> MEMBER_ANNOTATIONS = names(
+		ComponentProperties.class.getName(), "javax.enterprise.inject.Produces",
+		Reference.class.getName(), Service.class.getName());
+
+	private static final Set<String> BIND_TYPES = names(
+		BindBeanServiceObjects.class.getName(), BindService.class.getName(),
+		BindServiceReference.class.getName());
+
+	public DiscoveryIndex(BuildLogger buildLogger, String outputDirectory) {
+		this.buildLogger = buildLogger;
+		this.outputDirectory = Paths.get(outputDirectory);
+	}
+
+	@Override
+	public boolean matches(TypeDescription typeDescription) {
+		if (typeDescription.isPackageType() || typeDescription.isInterface() ||
+			typeDescription.isAnnotation()) {
+
+			return false;
+		}
+
+		entries.put(typeDescription.getName(), isPlain(typeDescription) ? "plain" : "osgi");
+
+		// nothing is transformed, the index is written on close
+		return false;
+	}
+
+	@Override
+	public Builder<?> apply(Builder<?> builder, TypeDescription typeDescription, ClassFileLocator cfl) {
+		return builder;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (entries.isEmpty()) {
+			return;
+		}
+
+		Path index = outputDirectory.resolve(PATH);
+
+		Files.createDirectories(index.getParent());
+
+		int written = 0;
+
+		try (Writer writer = Files.newBufferedWriter(index, UTF_8)) {
+			writer.write("# Aries CDI discovery index\n");
+			writer.write("version=" + VERSION + "\n");
+
+			for (Map.Entry<String, String> entry : entries.entrySet()) {
+				Path classFile = outputDirectory.resolve(entry.getKey().replace('.', '/') + ".class");
+
+				if (!Files.isRegularFile(classFile)) {
+					// without its class file the entry could never be checked
+					buildLogger.info(format("Could not index %s: no class file %s", entry.getKey(), classFile));
+
+					continue;
+				}
+
+				writer.write(entry.getKey() + "=" + entry.getValue() + "," + crc(classFile) + "\n");
+
+				written++;
+			}
+		}
+
+		buildLogger.info(format("Wrote discovery index of %d types to %s", written, index));
+	}
+
+	static String crc(Path classFile) throws IOException {
+		CRC32 crc = new CRC32();
+
+		crc.update(Files.readAllBytes(classFile));
+
+		return Long.toHexString(crc.getValue());
+	}
+
+	private boolean isPlain(TypeDescription typeDescription) {
+		try {
+			if (has(typeDescription.getDeclaredAnnotations(), COMPONENT_ANNOTATIONS)) {
+				return false;
+			}
+
+			// inherited members are part of the bean too
+			for (TypeDefinition type = typeDescription; type != null && !type.represents(Object.class);
+					type = type.getSuperClass()) {
+
+				if (!isPlainMembers(type.asErasure())) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+		catch (RuntimeException re) {
+			// a type could not be resolved, let the runtime reflect on it
+			buildLogger.info(format("Could not index %s: %s", typeDescription.getName(), re));
+
+			return false;
+		}
+	}
+
+	private boolean isPlainMembers(TypeDescription type) {
+		for (FieldDescription.InDefinedShape field : type.getDeclaredFields()) {
+			if (has(field.getDeclaredAnnotations(), MEMBER_ANNOTATIONS) ||
+				BIND_TYPES.contains(field.getType().asErasure().getName())) {
+
+				return false;
+			}
+		}
+
+		for (MethodDescription.InDefinedShape method : type.getDeclaredMethods()) {
+			if (has(method.getDeclaredAnnotations(), MEMBER_ANNOTATIONS)) {
+				return false;
+			}
+
+			for (ParameterDescription parameter : method.getParameters()) {
+				if (has(parameter.getDeclaredAnnotations(), MEMBER_ANNOTATIONS) ||
+					BIND_TYPES.contains(parameter.getType().asErasure().getName())) {
+
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean has(AnnotationList annotations, Set<String> names) {
+		return annotations.asTypeList().stream().anyMatch(type -> names.contains(type.getName()));
+	}
+
+	private static Set<String> names(String... names) {
+		return new HashSet<>(Arrays.asList(names));
+	}
+
+}
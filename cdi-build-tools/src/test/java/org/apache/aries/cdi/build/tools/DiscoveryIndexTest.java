@@ -0,0 +1,177 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.build.tools;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.osgi.service.cdi.annotations.Reference;
+import org.osgi.service.cdi.annotations.SingleComponent;
+import org.osgi.service.cdi.reference.BindService;
+
+import net.bytebuddy.build.BuildLogger;
+import net.bytebuddy.description.type.TypeDescription;
+
+public class DiscoveryIndexTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Before
+	public void before() throws Exception {
+		outputDirectory = temporaryFolder.getRoot().toPath();
+	}
+
+	@Test
+	public void classesAreMarkedPlainOrOsgi() throws Exception {
+		Map<String, String> index = index(
+			Plain.class, WithReference.class, InheritsReference.class, WithBindService.class,
+			Single.class);
+
+		assertEquals("plain", index.get(Plain.class.getName()));
+		assertEquals("osgi", index.get(WithReference.class.getName()));
+		assertEquals("osgi", index.get(InheritsReference.class.getName()));
+		assertEquals("osgi", index.get(WithBindService.class.getName()));
+		assertEquals("osgi", index.get(Single.class.getName()));
+		assertEquals(5, index.size());
+	}
+
+	@Test
+	public void entriesRecordTheCrcOfTheClassFile() throws Exception {
+		List<String> lines = Files.readAllLines(write(Plain.class), UTF_8);
+
+		Path classFile = outputDirectory.resolve(Plain.class.getName().replace('.', '/') + ".class");
+
+		assertEquals("version=" + DiscoveryIndex.VERSION, lines.get(1));
+		assertEquals(Plain.class.getName() + "=plain," + DiscoveryIndex.crc(classFile), lines.get(2));
+	}
+
+	@Test
+	public void interfacesAndClassesWithoutClassFileAreNotListed() throws Exception {
+		DiscoveryIndex plugin = new DiscoveryIndex(BuildLogger.NoOp.INSTANCE, outputDirectory.toString());
+
+		copyClassFile(Plain.class);
+
+		assertFalse(plugin.matches(TypeDescription.ForLoadedType.of(Plain.class)));
+		assertFalse(plugin.matches(TypeDescription.ForLoadedType.of(Service.class)));
+		assertFalse(plugin.matches(TypeDescription.ForLoadedType.of(WithReference.class)));
+
+		plugin.close();
+
+		Map<String, String> index = read();
+
+		assertEquals(1, index.size());
+		assertTrue(index.containsKey(Plain.class.getName()));
+	}
+
+	@Test
+	public void nothingToIndex() throws Exception {
+		new DiscoveryIndex(BuildLogger.NoOp.INSTANCE, outputDirectory.toString()).close();
+
+		assertFalse(Files.exists(outputDirectory.resolve(DiscoveryIndex.PATH)));
+	}
+
+	private void copyClassFile(Class<?> clazz) throws Exception {
+		String path = clazz.getName().replace('.', '/') + ".class";
+		Path classFile = outputDirectory.resolve(path);
+
+		Files.createDirectories(classFile.getParent());
+
+		try (InputStream is = clazz.getClassLoader().getResourceAsStream(path)) {
+			Files.copy(is, classFile);
+		}
+	}
+
+	private Map<String, String> index(Class<?>... classes) throws Exception {
+		write(classes);
+
+		return read();
+	}
+
+	private Map<String, String> read() throws Exception {
+		Map<String, String> index = new LinkedHashMap<>();
+
+		for (String line : Files.readAllLines(outputDirectory.resolve(DiscoveryIndex.PATH), UTF_8)) {
+			if (line.startsWith("#") || line.startsWith("version=")) {
+				continue;
+			}
+
+			int eq = line.indexOf('=');
+
+			index.put(line.substring(0, eq), line.substring(eq + 1, line.indexOf(',', eq)));
+		}
+
+		return index;
+	}
+
+	private Path write(Class<?>... classes) throws Exception {
+		DiscoveryIndex plugin = new DiscoveryIndex(BuildLogger.NoOp.INSTANCE, outputDirectory.toString());
+
+		for (Class<?> clazz : classes) {
+			copyClassFile(clazz);
+
+			// the plugin never transforms a type
+			assertFalse(plugin.matches(TypeDescription.ForLoadedType.of(clazz)));
+		}
+
+		plugin.close();
+
+		return outputDirectory.resolve(DiscoveryIndex.PATH);
+	}
+
+	private Path outputDirectory;
+
+	public interface Service {
+	}
+
+	public static class Plain implements Service {
+		String name;
+
+		public String name() {
+			return name;
+		}
+	}
+
+	public static class WithReference {
+		@Reference
+		Service service;
+	}
+
+	public static class InheritsReference extends WithReference {
+	}
+
+	public static class WithBindService {
+		void bind(BindService<Service> bindService) {
+		}
+	}
+
+	@SingleComponent
+	public static class Single {
+	}
+
+}
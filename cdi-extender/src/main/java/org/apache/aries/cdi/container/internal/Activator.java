@@ -22,13 +22,14 @@ import java.util.Dictionary;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
-import java.util.Observable;
-import java.util.Observer;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.enterprise.inject.spi.BeanManager;
 
@@ -46,7 +47,10 @@ import org.apache.aries.cdi.container.internal.model.SingleActivator;
 import org.apache.aries.cdi.container.internal.model.SingleComponent;
 import org.apache.aries.cdi.container.internal.spi.ContainerListener;
 import org.apache.aries.cdi.container.internal.util.Logs;
+import org.apache.aries.cdi.container.internal.util.SerialExecutor;
+import org.apache.aries.cdi.container.internal.util.Syncro;
 import org.apache.aries.cdi.spi.CDIContainerInitializer;
+import org.apache.aries.cdi.spi.runtime.LifecycleTimings;
 import org.apache.felix.utils.extender.AbstractExtender;
 import org.apache.felix.utils.extender.Extension;
 import org.osgi.annotation.bundle.Header;
@@ -76,7 +80,24 @@ import org.osgi.util.tracker.ServiceTrackerCustomizer;
 @RequireConfigurationAdmin
 public class Activator extends AbstractExtender {
 
+	/**
+	 * Framework property setting the number of threads shared by the CDI
+	 * containers. Each container keeps its operations in order on its own
+	 * serial lane, independent containers start in parallel. Defaults to 1.
+	 */
+	public static final String EXTENDER_THREADS = "aries.cdi.extender.threads";
+
+	/**
+	 * Framework property setting the minimum time in milliseconds between two
+	 * updates of the {@code service.changecount} property of the
+	 * {@link CDIComponentRuntime} service. Changes within the window are
+	 * published together with the latest count. Defaults to 100.
+	 */
+	public static final String CHANGECOUNT_WINDOW = "aries.cdi.extender.changecount.window";
+
 	private volatile CCR _ccr;
+	private volatile ScheduledExecutorService _changeCountExecutor;
+	private volatile ExecutorService _binderExecutorService;
 	private volatile ExecutorService _executorService;
 	private volatile Logger _log;
 	private volatile Logs _logs;
@@ -119,12 +140,25 @@ public class Activator extends AbstractExtender {
 		_containerListeners = new ServiceTracker<>(bundleContext, ContainerListener.class, null);
 		_containerListeners.open();
 
-		_executorService = Executors.newSingleThreadExecutor(worker -> {
-			Thread t = new Thread(new ThreadGroup("Apache Aries CCR - CDI"), worker, "Aries CCR Thread (" + hashCode() + ")");
+		ThreadGroup threadGroup = new ThreadGroup("Apache Aries CCR - CDI");
+		AtomicInteger threadCount = new AtomicInteger();
+
+		// containers each run on their own serial lane so only the pool size bounds parallel startup
+		_executorService = Executors.newFixedThreadPool(threads(bundleContext), worker -> {
+			Thread t = new Thread(threadGroup, worker, "Aries CCR Thread (" + hashCode() + "-" + threadCount.incrementAndGet() + ")");
 			t.setDaemon(false);
 			return t;
 		});
 		_promiseFactory = new PromiseFactory(_executorService);
+		// @Async binder callbacks may block for long, so they don't share the container threads
+		_binderExecutorService = binderExecutorService(threadGroup);
+		// publishing runs on its own thread since service listeners may block on the containers
+		_changeCountExecutor = Executors.newSingleThreadScheduledExecutor(worker -> {
+			Thread t = new Thread(threadGroup, worker, "Aries CCR ChangeCount (" + hashCode() + ")");
+			t.setDaemon(true);
+			return t;
+		});
+		_changeCountWindow = changeCountWindow(bundleContext);
 		_ccr = new CCR(_promiseFactory, _logs);
 		_command = new CDICommand(_ccr);
 
@@ -135,6 +169,7 @@ public class Activator extends AbstractExtender {
 		_bundleContext = bundleContext;
 
 		registerCCR();
+		registerTimings();
 		registerCDICommand();
 
 		super.start(bundleContext);
@@ -150,18 +185,29 @@ public class Activator extends AbstractExtender {
 		properties.put(Constants.SERVICE_DESCRIPTION, "Aries CDI - CDI Component Runtime");
 		properties.put(Constants.SERVICE_VENDOR, "Apache Software Foundation");
 
-		ChangeObserverFactory changeObserverFactory = new ChangeObserverFactory();
-
-		_ccrChangeCount.addObserver(changeObserverFactory);
+		_changeObserverFactory = new ChangeObserverFactory(_ccrChangeCount.get());
 
 		_ccrRegistration = _bundleContext.registerService(
-			CDIComponentRuntime.class, changeObserverFactory, properties);
+			CDIComponentRuntime.class, _changeObserverFactory, properties);
+
+		_ccrChangeCount.addListener(_changeObserverFactory);
+
+		// catch up with changes made while registering
+		_changeObserverFactory.run();
+	}
+
+	private void registerTimings() {
+		Dictionary<String, Object> properties = new Hashtable<>();
+		properties.put(Constants.SERVICE_DESCRIPTION, "Aries CDI - Lifecycle Timings");
+		properties.put(Constants.SERVICE_VENDOR, "Apache Software Foundation");
+
+		_timingsRegistration = _bundleContext.registerService(LifecycleTimings.class, _ccr, properties);
 	}
 
 	private void registerCDICommand() {
 		Dictionary<String, Object> properties = new Hashtable<>();
 		properties.put("osgi.command.scope", "cdi");
-		properties.put("osgi.command.function", new String[] {"list", "info"});
+		properties.put("osgi.command.function", new String[] {"list", "info", "timings"});
 		properties.put(Constants.SERVICE_DESCRIPTION, "Aries CDI - Gogo Commands");
 		properties.put(Constants.SERVICE_VENDOR, "Apache Software Foundation");
 
@@ -177,13 +223,17 @@ public class Activator extends AbstractExtender {
 		super.stop(bundleContext);
 
 		_commandRegistration.unregister();
+		_timingsRegistration.unregister();
+		_ccrChangeCount.removeListener(_changeObserverFactory);
 		_ccrRegistration.unregister();
+		_changeCountExecutor.shutdownNow();
 
 		if (_log.isDebugEnabled()) {
 			_log.debug("CCR stoped {}", bundleContext.getBundle());
 		}
 		_executorService.shutdownNow();
 		_executorService.awaitTermination(2, TimeUnit.SECONDS); // not important but just to avoid to quit too fast
+		_binderExecutorService.shutdownNow();
 
 		_containerTracker.close();
 		_containerListeners.close();
@@ -206,7 +256,9 @@ public class Activator extends AbstractExtender {
 		loggerTracker.open();
 
 		ContainerState containerState = new ContainerState(
-			bundle, _bundleContext.getBundle(), _ccrChangeCount, _promiseFactory, caTracker, _logs);
+			bundle, _bundleContext.getBundle(), _ccrChangeCount,
+			new PromiseFactory(new SerialExecutor(_executorService)), caTracker, _logs,
+			_binderExecutorService);
 
 		// the CDI bundle
 		return new CDIBundle(_ccr, containerState,
@@ -258,6 +310,56 @@ public class Activator extends AbstractExtender {
 		}
 	}
 
+	private int threads(BundleContext bundleContext) {
+		String threads = bundleContext.getProperty(EXTENDER_THREADS);
+
+		if (threads == null) {
+			return 1;
+		}
+
+		try {
+			return Math.max(1, Integer.parseInt(threads.trim()));
+		}
+		catch (NumberFormatException nfe) {
+			_log.warn(l -> l.warn("CCR invalid value {} for {}, using 1", threads, EXTENDER_THREADS));
+
+			return 1;
+		}
+	}
+
+	private ExecutorService binderExecutorService(ThreadGroup threadGroup) {
+		try {
+			// virtual threads, when the JVM has them
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException | RuntimeException e) {
+			AtomicInteger threadCount = new AtomicInteger();
+
+			return Executors.newCachedThreadPool(worker -> {
+				Thread t = new Thread(threadGroup, worker, "Aries CCR Binder (" + hashCode() + "-" + threadCount.incrementAndGet() + ")");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+	private long changeCountWindow(BundleContext bundleContext) {
+		String window = bundleContext.getProperty(CHANGECOUNT_WINDOW);
+
+		if (window == null) {
+			return 100;
+		}
+
+		try {
+			return Math.max(0, Long.parseLong(window.trim()));
+		}
+		catch (NumberFormatException nfe) {
+			_log.warn(l -> l.warn("CCR invalid value {} for {}, using 100", window, CHANGECOUNT_WINDOW));
+
+			return 100;
+		}
+	}
+
 	private boolean requiresCDIExtender(Bundle bundle) {
 		BundleWiring bundleWiring = bundle.adapt(BundleWiring.class);
 		List<BundleWire> requiredBundleWires = bundleWiring.getRequiredWires(EXTENDER_NAMESPACE);
@@ -303,19 +405,24 @@ public class Activator extends AbstractExtender {
 
 	private BundleContext _bundleContext;
 	private final ChangeCount _ccrChangeCount = new ChangeCount();
-	private ServiceRegistration<CDIComponentRuntime> _ccrRegistration;
+	private volatile ServiceRegistration<CDIComponentRuntime> _ccrRegistration;
+	private volatile long _changeCountWindow;
+	private ChangeObserverFactory _changeObserverFactory;
 	private volatile CDICommand _command;
 	private ServiceRegistration<?> _commandRegistration;
+	private ServiceRegistration<LifecycleTimings> _timingsRegistration;
 
-	private class ChangeObserverFactory implements Observer, ServiceFactory<CDIComponentRuntime> {
+	private class ChangeObserverFactory implements Runnable, ServiceFactory<CDIComponentRuntime> {
+
+		ChangeObserverFactory(long published) {
+			_published = published;
+		}
 
 		@Override
 		public CDIComponentRuntime getService(
 			Bundle bundle,
 			ServiceRegistration<CDIComponentRuntime> registration) {
 
-			_registrations.add(registration);
-
 			return _ccr;
 		}
 
@@ -323,27 +430,51 @@ public class Activator extends AbstractExtender {
 		public void ungetService(
 			Bundle bundle, ServiceRegistration<CDIComponentRuntime> registration,
 			CDIComponentRuntime service) {
-
-			_registrations.remove(registration);
 		}
 
 		@Override
-		public void update(Observable o, Object arg) {
-			if (!(o instanceof ChangeCount)) {
+		public void run() {
+			// every setProperties fires a MODIFIED event to all the service listeners of the framework,
+			// so a burst of changes is published once with the latest count
+			if (!_scheduled.compareAndSet(false, true)) {
 				return;
 			}
 
-			ChangeCount changeCount = (ChangeCount)o;
+			try {
+				_changeCountExecutor.schedule(this::publish, _changeCountWindow, TimeUnit.MILLISECONDS);
+			}
+			catch (RejectedExecutionException ree) {
+				// the extender is stopping
+			}
+		}
+
+		private void publish() {
+			// reset first so that a change made from here on schedules another update
+			_scheduled.set(false);
+
+			try (Syncro open = _syncro.open()) {
+				long changeCount = _ccrChangeCount.get();
+				ServiceRegistration<CDIComponentRuntime> registration = _ccrRegistration;
+
+				if ((registration == null) || (changeCount == _published)) {
+					return;
+				}
 
-			for (ServiceRegistration<CDIComponentRuntime> registration : _registrations) {
 				Dictionary<String, Object> properties = registration.getReference().getProperties();
-				properties.put(Constants.SERVICE_CHANGECOUNT, changeCount.get());
+				properties.put(Constants.SERVICE_CHANGECOUNT, changeCount);
 				registration.setProperties(properties);
+
+				_published = changeCount;
+			}
+			catch (IllegalStateException ise) {
+				// the runtime was unregistered in the meantime
 			}
 		}
 
-		private final List<ServiceRegistration<CDIComponentRuntime>> _registrations = new CopyOnWriteArrayList<>();
+		private long _published;
+		private final AtomicBoolean _scheduled = new AtomicBoolean();
+		private final Syncro _syncro = new Syncro(true);
 
 	}
 
-}
\ No newline at end of file
+}
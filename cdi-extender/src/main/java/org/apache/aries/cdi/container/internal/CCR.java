@@ -24,16 +24,17 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.aries.cdi.container.internal.container.ContainerState;
-import org.apache.aries.cdi.container.internal.util.DTOs;
 import org.apache.aries.cdi.container.internal.util.Logs;
 import org.apache.aries.cdi.container.internal.util.Throw;
+import org.apache.aries.cdi.spi.runtime.ContainerTimingsDTO;
+import org.apache.aries.cdi.spi.runtime.LifecycleTimings;
 import org.osgi.framework.Bundle;
 import org.osgi.service.cdi.runtime.CDIComponentRuntime;
 import org.osgi.service.cdi.runtime.dto.ContainerDTO;
 import org.osgi.service.cdi.runtime.dto.template.ContainerTemplateDTO;
 import org.osgi.util.promise.PromiseFactory;
 
-public class CCR implements CDIComponentRuntime {
+public class CCR implements CDIComponentRuntime, LifecycleTimings {
 
 	public CCR(PromiseFactory promiseFactory, Logs logs) {
 		_promiseFactory = promiseFactory;
@@ -46,31 +47,44 @@ public class CCR implements CDIComponentRuntime {
 	@Override
 	public Collection<ContainerDTO> getContainerDTOs(Bundle... bundles) {
 		if ((bundles != null) && (bundles.length > 0)) {
-			return call(
-				() -> Stream.of(bundles).filter(
-					b -> Objects.nonNull(_states.get(b))
-				).map(
-					b -> _states.get(b)
-				).map(
-					cs -> DTOs.copy(cs.containerDTO(), true)
-				).collect(Collectors.toList())
-			);
+			return Stream.of(bundles).map(
+				_states::get
+			).filter(
+				Objects::nonNull
+			).map(
+				ContainerState::containerDTOSnapshot
+			).collect(Collectors.toList());
 		}
 
-		return call(
-			() -> _states.values().stream().map(
-				cs -> DTOs.copy(cs.containerDTO(), true)
-			).collect(Collectors.toList())
-		);
+		return _states.values().stream().map(
+			ContainerState::containerDTOSnapshot
+		).collect(Collectors.toList());
+	}
+
+	@Override
+	public Collection<ContainerTimingsDTO> getContainerTimingsDTOs(Bundle... bundles) {
+		Stream<ContainerState> states = ((bundles != null) && (bundles.length > 0)) ?
+			Stream.of(bundles).map(_states::get).filter(Objects::nonNull) :
+			_states.values().stream();
+
+		return states.map(
+			cs -> {
+				ContainerTimingsDTO dto = new ContainerTimingsDTO();
+				dto.avoidedRestarts = cs.avoidedRestarts();
+				dto.bundle = cs.bundle().getBundleId();
+				dto.coalescedRebinds = cs.coalescedRebinds();
+				dto.recent = cs.timings().recent();
+				dto.types = cs.timings().types();
+				return dto;
+			}
+		).collect(Collectors.toList());
 	}
 
 	@Override
 	public ContainerTemplateDTO getContainerTemplateDTO(Bundle bundle) {
-		return call(
-			() -> Optional.ofNullable(_states.get(bundle)).map(
-				cs -> DTOs.copy(cs.containerDTO().template, true)
-			).orElse(null)
-		);
+		return Optional.ofNullable(_states.get(bundle)).map(
+			cs -> cs.containerDTOSnapshot().template
+		).orElse(null);
 	}
 
 	public ContainerState getContainerState(Bundle bundle) {
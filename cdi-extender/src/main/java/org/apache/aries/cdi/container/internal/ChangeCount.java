@@ -14,77 +14,75 @@
 
 package org.apache.aries.cdi.container.internal;
 
-import java.util.Observable;
-import java.util.Observer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
 
-import org.apache.aries.cdi.container.internal.util.Syncro;
+/**
+ * A lock-free change counter. Increments propagate to the parent counter, if
+ * any, and are reported to the listeners on the incrementing thread.
+ */
+public class ChangeCount {
 
-public class ChangeCount extends Observable implements Observer {
+	public ChangeCount() {
+		this(null);
+	}
 
-	@Override
-	public int hashCode() {
-		try (Syncro syncro = _syncro.open()) {
-			return _changeCount.hashCode();
-		}
+	public ChangeCount(ChangeCount parent) {
+		_parent = parent;
 	}
 
-	public final long get() {
-		try (Syncro syncro = _syncro.open()) {
-			return _changeCount.get();
-		}
+	public void addListener(Runnable listener) {
+		_listeners.add(listener);
 	}
 
-	@Override
-	public boolean equals(Object obj) {
-		try (Syncro syncro = _syncro.open()) {
-			return _changeCount.equals(obj);
-		}
+	public void removeListener(Runnable listener) {
+		_listeners.remove(listener);
+	}
+
+	public final long get() {
+		return _changeCount.get();
 	}
 
 	public final long getAndIncrement() {
-		try (Syncro syncro = _syncro.open()) {
+		try {
 			return _changeCount.getAndIncrement();
 		}
 		finally {
-			setChanged();
-			notifyObservers();
+			changed();
 		}
 	}
 
 	public final long incrementAndGet() {
-		try (Syncro syncro = _syncro.open()) {
+		try {
 			return _changeCount.incrementAndGet();
 		}
 		finally {
-			setChanged();
-			notifyObservers();
+			changed();
 		}
 	}
 
 	@Override
 	public String toString() {
-		try (Syncro syncro = _syncro.open()) {
-			return _changeCount.toString();
-		}
+		return _changeCount.toString();
 	}
 
 	public long longValue() {
-		try (Syncro syncro = _syncro.open()) {
-			return _changeCount.longValue();
-		}
+		return _changeCount.longValue();
 	}
 
-	@Override
-	public void update(Observable o, Object arg) {
-		if (!(o instanceof ChangeCount)) {
-			return;
+	private void changed() {
+		if (_parent != null) {
+			_parent.incrementAndGet();
 		}
 
-		incrementAndGet();
+		for (Runnable listener : _listeners) {
+			listener.run();
+		}
 	}
 
 	private final AtomicLong _changeCount = new AtomicLong(1);
-	private final Syncro _syncro = new Syncro(true);
+	private final List<Runnable> _listeners = new CopyOnWriteArrayList<>();
+	private final ChangeCount _parent;
 
-}
\ No newline at end of file
+}
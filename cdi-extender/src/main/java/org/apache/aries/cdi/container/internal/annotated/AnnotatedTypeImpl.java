@@ -28,19 +28,14 @@ import javax.enterprise.inject.spi.AnnotatedType;
 public class AnnotatedTypeImpl<X> extends AnnotatedImpl<X> implements AnnotatedType<X> {
 
 	private final Class<X> _declaringClass;
-	private final Set<AnnotatedConstructor<X>> _constructors;
-	private final Set<AnnotatedField<? super X>> _fields;
-	private final Set<AnnotatedMethod<? super X>> _methods;
+	private volatile Set<AnnotatedConstructor<X>> _constructors;
+	private volatile Set<AnnotatedField<? super X>> _fields;
+	private volatile Set<AnnotatedMethod<? super X>> _methods;
 
-	@SuppressWarnings("unchecked")
 	public AnnotatedTypeImpl(final Class<X> declaringClass) {
 		super(declaringClass, declaringClass);
 
 		_declaringClass = declaringClass;
-
-		_constructors = allConstructors(_declaringClass).map(c -> new AnnotatedConstructorImpl<>(this, (Constructor<X>)c)).collect(toSet());
-		_fields = allFields(_declaringClass).map(f -> new AnnotatedFieldImpl<>(this, f)).collect(toSet());
-		_methods = allMethods(_declaringClass).map(m -> new AnnotatedMethodImpl<>(this, m)).collect(toSet());
 	}
 
 	@Override
@@ -48,18 +43,30 @@ public class AnnotatedTypeImpl<X> extends AnnotatedImpl<X> implements AnnotatedT
 		return _declaringClass;
 	}
 
+	// members are only reflected when asked for, type level checks don't pay for them
+
 	@Override
+	@SuppressWarnings("unchecked")
 	public Set<AnnotatedConstructor<X>> getConstructors() {
+		if (_constructors == null) {
+			_constructors = allConstructors(_declaringClass).map(c -> new AnnotatedConstructorImpl<>(this, (Constructor<X>)c)).collect(toSet());
+		}
 		return _constructors;
 	}
 
 	@Override
 	public Set<AnnotatedMethod<? super X>> getMethods() {
+		if (_methods == null) {
+			_methods = allMethods(_declaringClass).map(m -> new AnnotatedMethodImpl<>(this, m)).collect(toSet());
+		}
 		return _methods;
 	}
 
 	@Override
 	public Set<AnnotatedField<? super X>> getFields() {
+		if (_fields == null) {
+			_fields = allFields(_declaringClass).map(f -> new AnnotatedFieldImpl<>(this, f)).collect(toSet());
+		}
 		return _fields;
 	}
 
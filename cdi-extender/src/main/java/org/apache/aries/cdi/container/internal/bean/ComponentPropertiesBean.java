@@ -17,8 +17,6 @@ package org.apache.aries.cdi.container.internal.bean;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.util.Collections;
-import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 
 import javax.enterprise.context.Dependent;
@@ -31,8 +29,8 @@ import org.apache.aries.cdi.container.internal.container.ComponentContext;
 import org.apache.aries.cdi.container.internal.container.ContainerState;
 import org.apache.aries.cdi.container.internal.container.Mark;
 import org.apache.aries.cdi.container.internal.model.ExtendedActivationDTO;
+import org.apache.aries.cdi.container.internal.model.ExtendedComponentInstanceDTO;
 import org.apache.aries.cdi.container.internal.model.ExtendedConfigurationTemplateDTO;
-import org.apache.aries.cdi.container.internal.util.Conversions;
 import org.apache.aries.cdi.container.internal.util.Sets;
 import org.osgi.service.cdi.annotations.ComponentProperties;
 import org.osgi.service.cdi.annotations.ComponentScoped;
@@ -60,23 +58,21 @@ public class ComponentPropertiesBean implements Bean<Object> {
 
 	@Override
 	public Object create(CreationalContext<Object> creationalContext) {
-		Map<String, Object> properties;
+		ExtendedComponentInstanceDTO instance;
 		ExtendedActivationDTO current = ComponentContext.With.current();
 
 		if (current == null) {
-			properties = _containerState.containerDTO().components.get(0).instances.get(0).properties;
+			instance = (ExtendedComponentInstanceDTO)_containerState.containerDTO().components.get(0).instances.get(0);
 		}
 		else {
-			properties = current.instance.properties;
+			instance = current.instance;
 		}
 
-		Objects.requireNonNull(properties);
-
 		if (_injectionPoint != null) {
-			return Conversions.convert(properties).to(_injectionPoint.getType());
+			return instance.componentPropertiesAs(_injectionPoint.getType());
 		}
 
-		return Conversions.convert(properties).to(_template.injectionPointType);
+		return instance.componentPropertiesAs(_template.injectionPointType);
 	}
 
 	@Override
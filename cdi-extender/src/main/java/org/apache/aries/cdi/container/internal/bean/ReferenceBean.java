@@ -17,12 +17,10 @@ package org.apache.aries.cdi.container.internal.bean;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.stream.Collectors;
 
 import javax.enterprise.context.Dependent;
@@ -34,12 +32,12 @@ import javax.enterprise.inject.spi.InjectionPoint;
 import javax.inject.Provider;
 
 import org.apache.aries.cdi.container.internal.container.Mark;
+import org.apache.aries.cdi.container.internal.container.ReferenceIndex;
 import org.apache.aries.cdi.container.internal.model.CollectionType;
 import org.apache.aries.cdi.container.internal.model.ExtendedReferenceDTO;
 import org.apache.aries.cdi.container.internal.model.ExtendedReferenceTemplateDTO;
 import org.apache.aries.cdi.container.internal.util.Logs;
 import org.apache.aries.cdi.container.internal.util.Sets;
-import org.osgi.framework.ServiceReference;
 import org.osgi.service.cdi.ComponentType;
 import org.osgi.service.cdi.MaximumCardinality;
 import org.osgi.service.cdi.ReferencePolicy;
@@ -77,7 +75,7 @@ public class ReferenceBean implements Bean<Object> {
 
 		_log.debug(l -> l.debug("Creating {}", this));
 
-		final SortedMap<ServiceReference<Object>, Object> tracked = _snapshot.serviceTracker.getTracked();
+		final ReferenceIndex.Tracker tracker = _snapshot.serviceTracker;
 
 		if (_template.collectionType == CollectionType.BINDER_SERVICE ||
 			_template.collectionType == CollectionType.BINDER_REFERENCE ||
@@ -86,13 +84,13 @@ public class ReferenceBean implements Bean<Object> {
 			return _snapshot.binder;
 		}
 		else if (_template.policy == ReferencePolicy.DYNAMIC) {
+			// read the current services on every call, the snapshot is immutable
 			if (_template.maximumCardinality == MaximumCardinality.MANY) {
 				return new Provider<List<Object>>() {
 					@Override
 					public List<Object> get() {
-						return tracked.values().stream().map(
-							s -> decorate(c, s)
-						).collect(Collectors.toList());
+						// services aren't decorated, see decorate(), so the snapshot is returned as is
+						return tracker.services();
 					}
 				};
 			}
@@ -100,9 +98,9 @@ public class ReferenceBean implements Bean<Object> {
 				return new Provider<Optional<Object>>() {
 					@Override
 					public Optional<Object> get() {
-						Iterator<Object> iterator = tracked.values().iterator();
-						if (iterator.hasNext()) {
-							return Optional.of(decorate(c, iterator.next()));
+						List<Object> services = tracker.services();
+						if (!services.isEmpty()) {
+							return Optional.of(decorate(c, services.get(0)));
 						}
 						return Optional.empty();
 					}
@@ -112,9 +110,9 @@ public class ReferenceBean implements Bean<Object> {
 				return new Provider<Object>() {
 					@Override
 					public Object get() {
-						Iterator<Object> iterator = tracked.values().iterator();
-						if (iterator.hasNext()) {
-							return decorate(c, iterator.next());
+						List<Object> services = tracker.services();
+						if (!services.isEmpty()) {
+							return decorate(c, services.get(0));
 						}
 						return null;
 					}
@@ -122,22 +120,22 @@ public class ReferenceBean implements Bean<Object> {
 			}
 		}
 		else {
+			List<Object> services = tracker.services();
+
 			if (_template.maximumCardinality == MaximumCardinality.MANY) {
-				return tracked.values().stream().map(
+				return services.stream().map(
 					s -> decorate(c, s)
 				).collect(Collectors.toList());
 			}
 			else if (_template.minimumCardinality == 0) {
-				Iterator<Object> iterator = tracked.values().iterator();
-				if (iterator.hasNext()) {
-					return Optional.of(decorate(c, iterator.next()));
+				if (!services.isEmpty()) {
+					return Optional.of(decorate(c, services.get(0)));
 				}
 				return Optional.empty();
 			}
 			else {
-				Iterator<Object> iterator = tracked.values().iterator();
-				if (iterator.hasNext()) {
-					return decorate(c, iterator.next());
+				if (!services.isEmpty()) {
+					return decorate(c, services.get(0));
 				}
 				return null;
 			}
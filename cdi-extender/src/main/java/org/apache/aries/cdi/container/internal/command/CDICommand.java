@@ -16,8 +16,12 @@ package org.apache.aries.cdi.container.internal.command;
 
 import static java.util.stream.Collectors.partitioningBy;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.Formatter;
 import java.util.Iterator;
 import java.util.List;
@@ -25,6 +29,9 @@ import java.util.Map;
 import java.util.Objects;
 
 import org.apache.aries.cdi.container.internal.CCR;
+import org.apache.aries.cdi.spi.runtime.ContainerTimingsDTO;
+import org.apache.aries.cdi.spi.runtime.OpTimingDTO;
+import org.apache.aries.cdi.spi.runtime.OpTypeTimingsDTO;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.Constants;
 import org.osgi.service.cdi.ComponentType;
@@ -86,6 +93,103 @@ public class CDICommand {
 		}
 	}
 
+	public String timings(Bundle... bundles) {
+		try (Formatter f = new Formatter()) {
+			Collection<ContainerTimingsDTO> timingsDTOs = _ccr.getContainerTimingsDTOs(bundles);
+
+			if (timingsDTOs.isEmpty()) {
+				f.format(NO_BUNDLES);
+				return f.toString();
+			}
+
+			Map<Long, String> names = _ccr.getContainerDTOs(bundles).stream().collect(
+				toMap(c -> c.bundle.id, c -> c.bundle.symbolicName, (a, b) -> a)
+			);
+
+			List<ContainerTimingsDTO> timingsDTOList = timingsDTOs.stream().sorted(
+				(a, b) -> Long.compare(a.bundle, b.bundle)
+			).collect(toList());
+
+			for (Iterator<ContainerTimingsDTO> itr = timingsDTOList.iterator(); itr.hasNext();) {
+				ContainerTimingsDTO timingsDTO = itr.next();
+
+				timings0(f, timingsDTO, names.getOrDefault(timingsDTO.bundle, BLANK), itr.hasNext());
+			}
+
+			return f.toString();
+		}
+	}
+
+	private void timings0(Formatter f, ContainerTimingsDTO timingsDTO, String name, boolean hasNext) {
+		String prefix = hasNext ? PSSS : SSSS;
+
+		f.format(
+			"%s%s[%s] (coalesced rebinds: %s, avoided restarts: %s)%n",
+			(hasNext ? TLLS : CLLS),
+			name,
+			timingsDTO.bundle,
+			timingsDTO.coalescedRebinds,
+			timingsDTO.avoidedRestarts);
+
+		f.format(
+			"%s%sTYPES (wait and run times in ms, histograms by %s)%n",
+			prefix,
+			TLLS,
+			BUCKETS);
+
+		// the most expensive first
+		List<OpTypeTimingsDTO> types = timingsDTO.types.stream().sorted(
+			Comparator.comparingLong((OpTypeTimingsDTO t) -> t.totalRunNanos + t.totalWaitNanos).reversed()
+		).collect(toList());
+
+		for (Iterator<OpTypeTimingsDTO> itr = types.iterator(); itr.hasNext();) {
+			OpTypeTimingsDTO typeDTO = itr.next();
+
+			f.format(
+				"%s%s%s%s: count=%s failures=%s wait(avg/max/total)=%.3f/%.3f/%.3f %s run(avg/max/total)=%.3f/%.3f/%.3f %s%n",
+				prefix,
+				PSSS,
+				(itr.hasNext() ? TLLS : CLLS),
+				typeDTO.type,
+				typeDTO.count,
+				typeDTO.failures,
+				millis(typeDTO.totalWaitNanos / typeDTO.count),
+				millis(typeDTO.maxWaitNanos),
+				millis(typeDTO.totalWaitNanos),
+				Arrays.toString(typeDTO.waitHistogram),
+				millis(typeDTO.totalRunNanos / typeDTO.count),
+				millis(typeDTO.maxRunNanos),
+				millis(typeDTO.totalRunNanos),
+				Arrays.toString(typeDTO.runHistogram));
+		}
+
+		f.format(
+			"%s%sRECENT%n",
+			prefix,
+			CLLS);
+
+		for (Iterator<OpTimingDTO> itr = timingsDTO.recent.iterator(); itr.hasNext();) {
+			OpTimingDTO opDTO = itr.next();
+
+			f.format(
+				"%s%s%s%tT.%<tL %s %s %s wait=%.3f run=%.3f%s%n",
+				prefix,
+				SSSS,
+				(itr.hasNext() ? TLLS : CLLS),
+				new Date(opDTO.submitted),
+				opDTO.mode,
+				opDTO.type,
+				opDTO.name,
+				millis(opDTO.waitNanos),
+				millis(opDTO.runNanos),
+				(opDTO.failed ? " FAILED" : BLANK));
+		}
+	}
+
+	private double millis(long nanos) {
+		return nanos / 1_000_000d;
+	}
+
 	private void list0(Formatter f, ContainerDTO containerDTO, boolean hasNext, boolean verbose) {
 		String curb = hasNext ? TLLS : CLLS;
 		String prefix = hasNext ? PSSSSSSS : SSSSSSSS;
@@ -509,6 +613,7 @@ public class CDICommand {
 	}
 
 	private static final String BLANK = "";
+	private static final String BUCKETS = "[<1, <10, <100, <1000, <10000, >=10000]";
 	private static final String ACTIVE = "active";
 	private static final String DISABLED = "disabled";
 	private static final String EQUAL = "=";
@@ -0,0 +1,161 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.container;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.apache.aries.cdi.container.internal.container.Op.Mode;
+import org.apache.aries.cdi.container.internal.container.Op.Type;
+import org.apache.aries.cdi.container.internal.util.SerialExecutor;
+import org.osgi.service.log.Logger;
+
+/**
+ * Calls the callbacks of an {@code @Async} binder off the service event
+ * thread. Callbacks run one at a time in submission order on the binder
+ * executor of the container. At most {@code capacity} callbacks wait, further
+ * submissions block in {@link #reserve()} until one of them ran. Callers
+ * holding a lock reserve before taking it and {@link #execute(Runnable,
+ * boolean) execute} under it, which never blocks. The time a callback waited
+ * is recorded as the wait time of a {@link Type#BINDER} operation.
+ * <p>
+ * Once closed the waiting callbacks and those submitted later are dropped.
+ */
+public class BinderDelivery {
+
+	/**
+	 * Framework property holding the maximum number of callbacks waiting to
+	 * be delivered to an {@code @Async} binder.
+	 */
+	public static final String CAPACITY = "aries.cdi.extender.binder.async.capacity";
+
+	public static final int DEFAULT_CAPACITY = 1000;
+
+	public BinderDelivery(ContainerState containerState, String name) {
+		_containerState = containerState;
+		_op = Op.of(Mode.OPEN, Type.BINDER, name);
+		_lane = new SerialExecutor(containerState.binderExecutor());
+		_permits = new Semaphore(containerState.binderAsyncCapacity());
+		_log = containerState.containerLogs().getLogger(getClass());
+	}
+
+	public void close() {
+		_closed = true;
+	}
+
+	public void execute(Runnable callback) {
+		execute(callback, reserve());
+	}
+
+	/**
+	 * Submits the callback without blocking.
+	 *
+	 * @param reserved the result of {@link #reserve()} for this callback
+	 */
+	public void execute(Runnable callback, boolean reserved) {
+		if (_closed) {
+			release(reserved);
+
+			return;
+		}
+
+		long submitted = System.currentTimeMillis();
+		long queued = System.nanoTime();
+
+		Runnable task = (
+			() -> {
+				if (_closed) {
+					release(reserved);
+
+					return;
+				}
+
+				long start = System.nanoTime();
+				boolean failed = true;
+
+				_thread = Thread.currentThread();
+
+				try {
+					callback.run();
+					failed = false;
+				}
+				catch (Throwable t) {
+					_log.error(l -> l.error("CCR error in {}", _op, t));
+				}
+				finally {
+					_thread = null;
+
+					release(reserved);
+
+					_containerState.timings().record(_op, submitted, start - queued, System.nanoTime() - start, failed);
+				}
+			}
+		);
+
+		try {
+			_lane.execute(task);
+		}
+		catch (RejectedExecutionException ree) {
+			release(reserved);
+
+			throw ree;
+		}
+	}
+
+	/**
+	 * @return the number of callbacks waiting to be delivered
+	 */
+	public int pending() {
+		return _lane.pending();
+	}
+
+	/**
+	 * Gives back a reservation which was not used.
+	 *
+	 * @param reserved the result of {@link #reserve()}
+	 */
+	public void release(boolean reserved) {
+		if (reserved) {
+			_permits.release();
+		}
+	}
+
+	/**
+	 * Waits until a callback may be submitted, must not be called while holding
+	 * a lock which the callbacks may take.
+	 *
+	 * @return true when a permit was taken, which is handed to
+	 *         {@link #execute(Runnable, boolean)}
+	 */
+	public boolean reserve() {
+		// a callback causing another event of the same binder must not wait for itself
+		if (_closed || (_thread == Thread.currentThread())) {
+			return false;
+		}
+
+		_permits.acquireUninterruptibly();
+
+		return true;
+	}
+
+	private volatile boolean _closed;
+	private final ContainerState _containerState;
+	private final SerialExecutor _lane;
+	private final Logger _log;
+	private final Op _op;
+	private final Semaphore _permits;
+	private volatile Thread _thread;
+
+}
@@ -25,64 +25,49 @@ import javax.enterprise.inject.spi.Bean;
 
 import org.apache.aries.cdi.container.internal.model.ExtendedActivationDTO;
 import org.osgi.service.cdi.annotations.ComponentScoped;
-import org.osgi.service.cdi.runtime.dto.ActivationDTO;
 
 public class ComponentContext implements Context {
 
-	@SuppressWarnings("unchecked")
 	public void destroy() {
-		if (!isActive()) return;
-
-		Map<Class<?>, BeanInstance<?>> map = _beans.computeIfAbsent(
-			_componentModel.get(), k -> new ConcurrentHashMap<>());
+		ExtendedActivationDTO current = _componentModel.get();
 
-		if (map == null) {
-			return;
-		}
+		if (current == null) return;
 
-		for (BeanInstance<?> beanInstance : map.values()) {
-			beanInstance.getBean().destroy(beanInstance.getInstance(), beanInstance.getCreationalContext());
-		}
+		current.instances.destroy();
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T> T get(Contextual<T> contextual) {
-		if (!isActive()) return null;
-
-		@SuppressWarnings("rawtypes")
-		Bean bean = (Bean)contextual;
-		Class<?> beanClass = bean.getBeanClass();
+		ExtendedActivationDTO current = _componentModel.get();
 
-		Map<Class<?>, BeanInstance<?>> map = _beans.computeIfAbsent(
-			_componentModel.get(), k -> new ConcurrentHashMap<>());
+		if (current == null) return null;
 
-		if (map.containsKey(beanClass)) {
-			return (T)map.get(beanClass).getInstance();
-		}
+		BeanInstance<?> beanInstance = current.instances._beans.get(((Bean<T>)contextual).getBeanClass());
 
-		return null;
+		return (beanInstance == null) ? null : (T)beanInstance.getInstance();
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T> T get(Contextual<T> contextual, CreationalContext<T> creationalContext) {
-		if (!isActive()) return null;
+		ExtendedActivationDTO current = _componentModel.get();
+
+		if (current == null) return null;
 
-		@SuppressWarnings("rawtypes")
-		Bean bean = (Bean)contextual;
+		Bean<T> bean = (Bean<T>)contextual;
 		Class<?> beanClass = bean.getBeanClass();
+		Map<Class<?>, BeanInstance<?>> beans = current.instances._beans;
 
-		Map<Class<?>, BeanInstance<?>> map = _beans.computeIfAbsent(
-			_componentModel.get(), k -> new ConcurrentHashMap<>());
+		BeanInstance<?> beanInstance = beans.get(beanClass);
 
-		if (map.containsKey(beanClass)) {
-			return (T)map.get(beanClass).getInstance();
+		if (beanInstance != null) {
+			return (T)beanInstance.getInstance();
 		}
 
-		T instance = (T) bean.create(creationalContext);
+		T instance = bean.create(creationalContext);
 
-		map.put(beanClass, new BeanInstance<>(bean, creationalContext, instance));
+		beans.put(beanClass, new BeanInstance<>(bean, creationalContext, instance));
 
 		return instance;
 	}
@@ -97,9 +82,30 @@ public class ComponentContext implements Context {
 		return _componentModel.get() != null;
 	}
 
-	private static final Map<ActivationDTO, Map<Class<?>, BeanInstance<?>>> _beans = new ConcurrentHashMap<>();
 	private static final ThreadLocal<ExtendedActivationDTO> _componentModel = new ThreadLocal<>();
 
+	/**
+	 * The component scoped instances of one activation. They are owned by the
+	 * activation and go away with it.
+	 */
+	public static class Instances {
+
+		public int size() {
+			return _beans.size();
+		}
+
+		void destroy() {
+			for (BeanInstance<?> beanInstance : _beans.values()) {
+				beanInstance.destroy();
+			}
+
+			_beans.clear();
+		}
+
+		private final Map<Class<?>, BeanInstance<?>> _beans = new ConcurrentHashMap<>();
+
+	}
+
 	public static class With implements AutoCloseable {
 
 		public With(ExtendedActivationDTO activationDTO) {
@@ -117,8 +123,7 @@ public class ComponentContext implements Context {
 
 	}
 
-	@SuppressWarnings("rawtypes")
-	private class BeanInstance<T> {
+	private static class BeanInstance<T> {
 
 		public BeanInstance(Bean<T> bean, CreationalContext<T> creationalContext, T instance) {
 			_bean = bean;
@@ -126,12 +131,8 @@ public class ComponentContext implements Context {
 			_instance = instance;
 		}
 
-		public Bean getBean() {
-			return _bean;
-		}
-
-		public CreationalContext<T> getCreationalContext() {
-			return _creationalContext;
+		public void destroy() {
+			_bean.destroy(_instance, _creationalContext);
 		}
 
 		public T getInstance() {
@@ -144,4 +145,4 @@ public class ComponentContext implements Context {
 
 	}
 
-}
\ No newline at end of file
+}
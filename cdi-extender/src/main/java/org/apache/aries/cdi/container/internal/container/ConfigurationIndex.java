@@ -0,0 +1,448 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.container;
+
+import static java.util.Optional.empty;
+import static java.util.Optional.ofNullable;
+
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.aries.cdi.container.internal.util.Syncro;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.cdi.MaximumCardinality;
+import org.osgi.service.cdi.runtime.dto.template.ComponentTemplateDTO;
+import org.osgi.service.cdi.runtime.dto.template.ConfigurationTemplateDTO;
+import org.osgi.service.cm.Configuration;
+import org.osgi.service.cm.ConfigurationAdmin;
+import org.osgi.service.cm.ConfigurationEvent;
+import org.osgi.service.cm.SynchronousConfigurationListener;
+import org.osgi.service.log.Logger;
+
+/**
+ * Receives the configuration events of a container through a single
+ * {@link org.osgi.service.cm.ConfigurationListener} service and hands each
+ * event only to the {@link ConfigurationListener}s of the components having
+ * a configuration template for its {@code pid} (single configurations) or
+ * {@code factoryPid} (factory configurations).
+ * <p>
+ * The index also keeps a snapshot of the configurations matching any of the
+ * container's configuration templates. The snapshot is fetched with a single
+ * {@link ConfigurationAdmin#listConfigurations(String)} query the first time
+ * a configuration is looked up and is then kept up to date from the events,
+ * so that opening the components doesn't query the configuration store once
+ * per template. Events only mark the configurations to fetch again, the
+ * queries are made by the next lookup instead of on the thread delivering the
+ * event.
+ */
+public class ConfigurationIndex implements SynchronousConfigurationListener {
+
+	public ConfigurationIndex(ContainerState containerState) {
+		_containerState = containerState;
+		_log = containerState.ccrLogs().getLogger(getClass());
+	}
+
+	public void add(ConfigurationListener listener) {
+		try (Syncro open = _syncro.open()) {
+			for (ConfigurationTemplateDTO template : listener.configurationTemplates()) {
+				if (template.pid == null) {
+					continue;
+				}
+
+				Map<String, Set<ConfigurationListener>> map =
+					(template.maximumCardinality == MaximumCardinality.MANY) ? _byFactoryPid : _byPid;
+
+				map.computeIfAbsent(template.pid, k -> new CopyOnWriteArraySet<>()).add(listener);
+			}
+
+			_listeners.add(listener);
+
+			if (_registration != null) {
+				return;
+			}
+
+			BundleContext bundleContext = _containerState.bundleContext();
+
+			if (bundleContext == null) {
+				// this bundle was already removed
+				return;
+			}
+
+			Dictionary<String, Object> properties = new Hashtable<>();
+			properties.put("name", toString());
+			properties.put(Constants.SERVICE_DESCRIPTION, "Aries CDI - Configuration Listener for " + _containerState.bundle());
+			properties.put(Constants.SERVICE_VENDOR, "Apache Software Foundation");
+
+			_registration = bundleContext.registerService(
+				org.osgi.service.cm.ConfigurationListener.class, this, properties);
+		}
+	}
+
+	public void remove(ConfigurationListener listener) {
+		try (Syncro open = _syncro.open()) {
+			if (!_listeners.remove(listener)) {
+				return;
+			}
+
+			remove(_byPid, listener);
+			remove(_byFactoryPid, listener);
+
+			if (!_listeners.isEmpty() || (_registration == null)) {
+				return;
+			}
+
+			try {
+				_registration.unregister();
+			}
+			catch (IllegalStateException ise) {
+				// the bundle context is no longer valid
+			}
+
+			_registration = null;
+		}
+
+		try (Syncro open = _snapshotSyncro.open()) {
+			// the next open of the container fetches a fresh snapshot
+			_generation++;
+			_snapshot = null;
+		}
+	}
+
+	@Override
+	public void configurationEvent(ConfigurationEvent event) {
+		Snapshot snapshot;
+		Snapshot fetching;
+
+		try (Syncro open = _snapshotSyncro.open()) {
+			snapshot = _snapshot;
+			fetching = _fetching;
+		}
+
+		if (snapshot != null) {
+			snapshot.update(event);
+		}
+
+		if ((fetching != null) && (fetching != snapshot)) {
+			fetching.update(event);
+		}
+
+		Set<ConfigurationListener> byPid = _byPid.getOrDefault(event.getPid(), Collections.emptySet());
+		Set<ConfigurationListener> byFactoryPid = (event.getFactoryPid() == null) ? Collections.emptySet() :
+			_byFactoryPid.getOrDefault(event.getFactoryPid(), Collections.emptySet());
+
+		Set<ConfigurationListener> listeners = byPid;
+
+		if (!byFactoryPid.isEmpty()) {
+			if (byPid.isEmpty()) {
+				listeners = byFactoryPid;
+			}
+			else {
+				// a component may have templates for both
+				listeners = new LinkedHashSet<>(byPid);
+				listeners.addAll(byFactoryPid);
+			}
+		}
+
+		for (ConfigurationListener listener : listeners) {
+			listener.configurationEvent(event);
+		}
+	}
+
+	public Optional<Configuration> findConfig(String pid) {
+		return findConfigs(pid, false).map(arr -> arr[0]);
+	}
+
+	public Optional<Configuration[]> findConfigs(String pid, boolean factory) {
+		Snapshot snapshot = snapshot();
+
+		if (snapshot != null) {
+			if (factory && snapshot._factoryPids.contains(pid)) {
+				return snapshot.byFactoryPid(pid);
+			}
+			else if (!factory) {
+				Configuration configuration = snapshot._configurations.get(pid);
+
+				if (configuration != null) {
+					return Optional.of(new Configuration[] {configuration});
+				}
+				else if (snapshot._pids.contains(pid)) {
+					return empty();
+				}
+			}
+		}
+
+		// not covered by the templates of the container
+		return query(
+			factory ? filter(Collections.emptySet(), Collections.singleton(pid)) :
+				filter(Collections.singleton(pid), Collections.emptySet()));
+	}
+
+	/**
+	 * @return the number of component configuration listeners
+	 */
+	public int size() {
+		return _listeners.size();
+	}
+
+	@Override
+	public String toString() {
+		return "ConfigurationIndex[" + _containerState.bundle() + "]";
+	}
+
+	private String filter(Set<String> pids, Set<String> factoryPids) {
+		StringBuilder sb = new StringBuilder();
+
+		for (String pid : pids) {
+			sb.append("(service.pid=").append(pid).append(")");
+		}
+		for (String factoryPid : factoryPids) {
+			sb.append("(service.factoryPid=").append(factoryPid).append(")");
+		}
+
+		if ((pids.size() + factoryPids.size()) > 1) {
+			sb.insert(0, "(|").append(")");
+		}
+
+		return sb.toString();
+	}
+
+	private Optional<Configuration[]> query(String filter) {
+		try {
+			ConfigurationAdmin cm = _containerState.caTracker().getService();
+
+			if (cm == null) {
+				return empty();
+			}
+
+			return ofNullable(cm.listConfigurations(filter));
+		}
+		catch (Exception e) {
+			_log.warn(l -> l.warn("CCR unexpected error fetching configuration for {}", filter, e));
+
+			return empty();
+		}
+	}
+
+	private void remove(Map<String, Set<ConfigurationListener>> map, ConfigurationListener listener) {
+		map.values().removeIf(
+			listeners -> listeners.remove(listener) && listeners.isEmpty()
+		);
+	}
+
+	private Snapshot snapshot() {
+		ConfigurationAdmin cm = _containerState.caTracker().getService();
+
+		if (cm == null) {
+			return null;
+		}
+
+		Snapshot snapshot = _snapshot;
+
+		if ((snapshot != null) && (snapshot._cm == cm)) {
+			snapshot.refresh();
+
+			return snapshot;
+		}
+
+		snapshot = new Snapshot(cm);
+
+		if (snapshot._pids.isEmpty() && snapshot._factoryPids.isEmpty()) {
+			return snapshot;
+		}
+
+		long generation;
+
+		try (Syncro open = _snapshotSyncro.open()) {
+			// the events racing with the query are applied to its result
+			generation = _generation;
+			_fetching = snapshot;
+		}
+
+		boolean fetched = false;
+
+		try {
+			Configuration[] configurations = cm.listConfigurations(
+				filter(snapshot._pids, snapshot._factoryPids));
+
+			if (configurations != null) {
+				for (Configuration configuration : configurations) {
+					snapshot._configurations.put(configuration.getPid(), configuration);
+				}
+			}
+
+			snapshot._fetched = true;
+			fetched = true;
+		}
+		catch (Exception e) {
+			_log.warn(l -> l.warn("CCR unexpected error fetching configurations for {}", _containerState.bundle(), e));
+		}
+		finally {
+			try (Syncro open = _snapshotSyncro.open()) {
+				if (_fetching == snapshot) {
+					_fetching = null;
+				}
+
+				if (fetched && (generation == _generation)) {
+					_snapshot = snapshot;
+				}
+			}
+		}
+
+		if (!fetched) {
+			return null;
+		}
+
+		snapshot.refresh();
+
+		return snapshot;
+	}
+
+	private class Snapshot {
+
+		Snapshot(ConfigurationAdmin cm) {
+			_cm = cm;
+
+			for (ComponentTemplateDTO component : _containerState.containerDTO().template.components) {
+				for (ConfigurationTemplateDTO template : component.configurations) {
+					if (template.pid == null) {
+						continue;
+					}
+
+					if (template.maximumCardinality == MaximumCardinality.MANY) {
+						_factoryPids.add(template.pid);
+					}
+					else {
+						_pids.add(template.pid);
+					}
+				}
+			}
+		}
+
+		Optional<Configuration[]> byFactoryPid(String factoryPid) {
+			Configuration[] configurations = _configurations.values().stream().filter(
+				c -> {
+					try {
+						return factoryPid.equals(c.getFactoryPid());
+					}
+					catch (IllegalStateException ise) {
+						// deleted
+						return false;
+					}
+				}
+			).toArray(Configuration[]::new);
+
+			return (configurations.length == 0) ? empty() : Optional.of(configurations);
+		}
+
+		/**
+		 * Fetches the configurations the events marked as stale.
+		 */
+		void refresh() {
+			for (Iterator<String> iterator = _stale.iterator(); iterator.hasNext();) {
+				String pid = iterator.next();
+
+				iterator.remove();
+
+				long removals = _removals.get();
+
+				Optional<Configuration[]> configurations = query(
+					filter(Collections.singleton(pid), Collections.emptySet()));
+
+				if (configurations.isPresent()) {
+					_configurations.put(pid, configurations.get()[0]);
+				}
+				else {
+					_configurations.remove(pid);
+				}
+
+				if (removals != _removals.get()) {
+					// it may have been deleted since the query
+					_stale.add(pid);
+				}
+			}
+		}
+
+		void update(ConfigurationEvent event) {
+			String pid = event.getPid();
+
+			if (!_pids.contains(pid) &&
+				((event.getFactoryPid() == null) || !_factoryPids.contains(event.getFactoryPid()))) {
+
+				return;
+			}
+
+			if (!_fetched) {
+				// the query may or may not have seen the change
+				_stale.add(pid);
+
+				return;
+			}
+
+			switch (event.getType()) {
+				case ConfigurationEvent.CM_DELETED:
+					_removals.incrementAndGet();
+					_stale.remove(pid);
+					_configurations.remove(pid);
+					break;
+				case ConfigurationEvent.CM_LOCATION_CHANGED:
+					// the configuration may no longer be visible
+					_removals.incrementAndGet();
+					_configurations.remove(pid);
+					_stale.add(pid);
+					break;
+				default:
+					// configuration objects are handles to the current properties
+					// so only new configurations need to be fetched
+					if (!_configurations.containsKey(pid)) {
+						_stale.add(pid);
+					}
+			}
+		}
+
+		private final ConfigurationAdmin _cm;
+		private final Map<String, Configuration> _configurations = new ConcurrentHashMap<>();
+		private final Set<String> _factoryPids = new HashSet<>();
+		private volatile boolean _fetched;
+		private final Set<String> _pids = new HashSet<>();
+		private final AtomicLong _removals = new AtomicLong();
+		private final Set<String> _stale = ConcurrentHashMap.newKeySet();
+
+	}
+
+	private final Map<String, Set<ConfigurationListener>> _byFactoryPid = new ConcurrentHashMap<>();
+	private final Map<String, Set<ConfigurationListener>> _byPid = new ConcurrentHashMap<>();
+	private final ContainerState _containerState;
+	private Snapshot _fetching;
+	private long _generation;
+	private final Set<ConfigurationListener> _listeners = new CopyOnWriteArraySet<>();
+	private final Logger _log;
+	private volatile ServiceRegistration<org.osgi.service.cm.ConfigurationListener> _registration;
+	private volatile Snapshot _snapshot;
+	private final Syncro _snapshotSyncro = new Syncro(true);
+	private final Syncro _syncro = new Syncro(true);
+
+}
@@ -14,14 +14,21 @@
 
 package org.apache.aries.cdi.container.internal.container;
 
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Arrays;
-import java.util.Dictionary;
-import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 import org.apache.aries.cdi.container.internal.container.Op.Mode;
 import org.apache.aries.cdi.container.internal.container.Op.Type;
+import org.apache.aries.cdi.container.internal.jfr.Events;
+import org.apache.aries.cdi.container.internal.jfr.Probe;
 import org.apache.aries.cdi.container.internal.model.Component;
 import org.apache.aries.cdi.container.internal.model.ExtendedComponentInstanceDTO;
 import org.apache.aries.cdi.container.internal.model.ExtendedConfigurationDTO;
@@ -29,8 +36,6 @@ import org.apache.aries.cdi.container.internal.util.Maps;
 import org.apache.aries.cdi.container.internal.util.Predicates;
 import org.apache.aries.cdi.container.internal.util.Syncro;
 import org.apache.aries.cdi.container.internal.util.Throw;
-import org.osgi.framework.Constants;
-import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.cdi.ConfigurationPolicy;
 import org.osgi.service.cdi.MaximumCardinality;
 import org.osgi.service.cdi.runtime.dto.template.ConfigurationTemplateDTO;
@@ -40,6 +45,15 @@ import org.osgi.util.promise.Promise;
 
 public class ConfigurationListener extends Phase implements org.osgi.service.cm.SynchronousConfigurationListener {
 
+	/**
+	 * Framework property which, when {@code true}, makes configuration events
+	 * return to Configuration Admin right away instead of waiting for the
+	 * component instances to be reconfigured. Events are then processed in
+	 * order per PID and an event still waiting is replaced by a newer one for
+	 * the same PID. Defaults to false.
+	 */
+	public static final String ASYNC = "aries.cdi.extender.configuration.async";
+
 	public static class Builder {
 
 		public Builder(ContainerState containerState) {
@@ -68,17 +82,20 @@ public class ConfigurationListener extends Phase implements org.osgi.service.cm.
 		super(containerState, component);
 		_component = component;
 		_log = containerState.containerLogs().getLogger(getClass());
+		_async = (containerState.bundleContext() != null) &&
+			Boolean.parseBoolean(containerState.bundleContext().getProperty(ASYNC));
 	}
 
 	@Override
 	public boolean close() {
 		try (Syncro open = syncro.open()) {
-			if (_listenerService == null) {
+			if (!_registered) {
 				return true;
 			}
 			else {
-				_listenerService.unregister();
-				_listenerService = null;
+				containerState.configurationIndex().remove(this);
+				_registered = false;
+				_pending.clear();
 			}
 
 			return next.map(
@@ -102,6 +119,18 @@ public class ConfigurationListener extends Phase implements org.osgi.service.cm.
 		return Op.of(Mode.CLOSE, Type.CONFIGURATION_LISTENER, _component.template().name);
 	}
 
+	public List<ConfigurationTemplateDTO> configurationTemplates() {
+		return _component.configurationTemplates();
+	}
+
+	/**
+	 * @return the number of events replaced by a newer event for the same PID
+	 *         before being processed
+	 */
+	public long collapsedEvents() {
+		return _collapsedEvents.get();
+	}
+
 	@Override
 	public void configurationEvent(ConfigurationEvent event) {
 		_log.debug(l -> l.debug("ConfigurationEvent for {}:{}", event.getPid(), type(event)));
@@ -115,6 +144,12 @@ public class ConfigurationListener extends Phase implements org.osgi.service.cm.
 
 					_log.debug(l -> l.debug("CCR Event {} matches {} because of {}", eventString, _component.template().name, _component.template().configurations));
 
+					if (_async) {
+						enqueue(next, t, event);
+
+						return;
+					}
+
 					Promise<Boolean> result = containerState.submit(
 						Op.of(Mode.OPEN, Type.CONFIGURATION_EVENT, eventString),
 						() -> {
@@ -138,7 +173,7 @@ public class ConfigurationListener extends Phase implements org.osgi.service.cm.
 	@Override
 	public boolean open() {
 		try (Syncro open = syncro.open()) {
-			if (_listenerService != null) {
+			if (_registered) {
 				return true;
 			}
 
@@ -147,13 +182,9 @@ public class ConfigurationListener extends Phase implements org.osgi.service.cm.
 				return false;
 			}
 
-			Dictionary<String, Object> properties = new Hashtable<>();
-			properties.put("name", toString());
-			properties.put(Constants.SERVICE_DESCRIPTION, "Aries CDI - Configuration Listener for " + containerState.bundle());
-			properties.put(Constants.SERVICE_VENDOR, "Apache Software Foundation");
-
-			_listenerService = containerState.bundleContext().registerService(
-				org.osgi.service.cm.ConfigurationListener.class, this, properties);
+			// events reach this listener through the single listener service of the container
+			containerState.configurationIndex().add(this);
+			_registered = true;
 
 			return next.map(next -> (Component)next).map(
 				component -> {
@@ -217,17 +248,56 @@ public class ConfigurationListener extends Phase implements org.osgi.service.cm.
 		return Arrays.asList(getClass().getSimpleName(), _component).toString();
 	}
 
+	private void enqueue(Component component, ConfigurationTemplateDTO t, ConfigurationEvent event) {
+		String pid = event.getPid();
+
+		// processing reads the current configuration so only the latest event of a pid matters
+		if (_pending.put(pid, new SimpleImmutableEntry<>(t, event)) != null) {
+			_collapsedEvents.incrementAndGet();
+
+			return;
+		}
+
+		containerState.submit(
+			Op.of(Mode.OPEN, Type.CONFIGURATION_EVENT, pid),
+			() -> {
+				Entry<ConfigurationTemplateDTO, ConfigurationEvent> pending = _pending.remove(pid);
+
+				if (pending == null) {
+					// the listener was closed in the meantime
+					return false;
+				}
+
+				_log.debug(l -> l.debug("CCR Event {}:{} matched {}", pid, type(pending.getValue()), _component.template().name));
+
+				processEvent(component, pending.getKey(), pending.getValue());
+
+				return true;
+			}
+		).onFailure(
+			f -> {
+				_log.error(l -> l.error("CCR Failure processing configuration event for {} on {}", pid, component, f));
+
+				error(f);
+			}
+		);
+	}
+
 	private void processEvent(Component component, ConfigurationTemplateDTO t, ConfigurationEvent event) {
+		try (Probe probe = Events.configuration(
+				containerState.id(), component.template().name, event.getPid(), event.getFactoryPid(), type(event))) {
+
+			handleEvent(component, t, event);
+		}
+	}
+
+	private void handleEvent(Component component, ConfigurationTemplateDTO t, ConfigurationEvent event) {
 		boolean required = t.policy == ConfigurationPolicy.REQUIRED;
 		boolean single = t.maximumCardinality == MaximumCardinality.ONE;
 
 		switch (event.getType()) {
 			case ConfigurationEvent.CM_DELETED:
-				component.instances().stream().map(
-					ExtendedComponentInstanceDTO.class::cast
-				).filter(
-					instance -> (!single && event.getPid().equals(instance.pid)) || single
-				).forEach(
+				instances(component, single, event.getPid()).forEach(
 					instance -> {
 						submit(instance.closeOp(), instance::close).then(
 							s -> {
@@ -251,12 +321,7 @@ public class ConfigurationListener extends Phase implements org.osgi.service.cm.
 			case ConfigurationEvent.CM_LOCATION_CHANGED:
 				break;
 			case ConfigurationEvent.CM_UPDATED:
-				if (!single &&
-					!component.instances().stream().map(
-						ExtendedComponentInstanceDTO.class::cast
-					).filter(
-						instance -> event.getPid().equals(instance.pid)
-					).findFirst().isPresent()) {
+				if (!single && !component.instance(event.getPid()).isPresent()) {
 
 					ExtendedComponentInstanceDTO instance = new ExtendedComponentInstanceDTO(
 						containerState, _component.activatorBuilder());
@@ -278,11 +343,7 @@ public class ConfigurationListener extends Phase implements org.osgi.service.cm.
 						configurationDTO.properties = Maps.of(configuration.getProcessedProperties(event.getReference()));
 						configurationDTO.template = t;
 
-						component.instances().stream().map(
-							ExtendedComponentInstanceDTO.class::cast
-						).filter(
-							instance -> (!single && event.getPid().equals(instance.pid)) || single
-						).forEach(
+						instances(component, single, event.getPid()).forEach(
 							instance -> {
 								submit(instance.closeOp(), instance::close).then(
 									s -> {
@@ -302,6 +363,14 @@ public class ConfigurationListener extends Phase implements org.osgi.service.cm.
 		}
 	}
 
+	private Stream<ExtendedComponentInstanceDTO> instances(Component component, boolean single, String pid) {
+		if (!single) {
+			return component.instance(pid).map(Stream::of).orElseGet(Stream::empty);
+		}
+
+		return component.instances().stream().map(ExtendedComponentInstanceDTO.class::cast);
+	}
+
 	private String type(ConfigurationEvent event) {
 		if (event.getType() == ConfigurationEvent.CM_DELETED)
 			return "DELETED";
@@ -312,9 +381,11 @@ public class ConfigurationListener extends Phase implements org.osgi.service.cm.
 		throw new IllegalArgumentException("CM Event type " + event.getType());
 	}
 
-	private volatile ServiceRegistration<org.osgi.service.cm.ConfigurationListener> _listenerService;
-
+	private final boolean _async;
+	private final AtomicLong _collapsedEvents = new AtomicLong();
 	private final Component _component;
 	private final Logger _log;
+	private final Map<String, Entry<ConfigurationTemplateDTO, ConfigurationEvent>> _pending = new ConcurrentHashMap<>();
+	private volatile boolean _registered;
 
 }
\ No newline at end of file
@@ -17,9 +17,11 @@ package org.apache.aries.cdi.container.internal.container;
 import static aQute.bnd.exceptions.FunctionWithException.asFunction;
 import static java.util.Objects.requireNonNull;
 import static java.util.Optional.ofNullable;
+import static java.util.stream.Collectors.toCollection;
 import static org.osgi.service.cdi.CDIConstants.CDI_EXTENSION_PROPERTY;
 
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Dictionary;
@@ -27,6 +29,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -35,6 +38,8 @@ import javax.enterprise.inject.spi.Extension;
 
 import org.apache.aries.cdi.container.internal.container.Op.Mode;
 import org.apache.aries.cdi.container.internal.container.Op.Type;
+import org.apache.aries.cdi.container.internal.jfr.Events;
+import org.apache.aries.cdi.container.internal.jfr.Probe;
 import org.apache.aries.cdi.container.internal.loader.BundleClassLoader;
 import org.apache.aries.cdi.container.internal.model.ExtendedExtensionDTO;
 import org.apache.aries.cdi.container.internal.model.FactoryComponent;
@@ -58,6 +63,15 @@ import org.osgi.util.tracker.ServiceTracker;
 
 public class ContainerBootstrap extends Phase {
 
+	/**
+	 * Framework property enabling the reuse of the class loader, and so of
+	 * the proxy classes defined in it, when a container restarts while its
+	 * bundle wiring, bean classes, extensions and container initializer are
+	 * unchanged. Proxies are reused only when the CDI implementation gives
+	 * them stable names, as Weld does. Defaults to false.
+	 */
+	public static final String PROXY_CACHE = "aries.cdi.extender.proxy.cache";
+
 	public ContainerBootstrap(
 			ContainerState containerState,
 			ServiceTracker<CDIContainerInitializer, ServiceObjects<CDIContainerInitializer>> containerTracker,
@@ -74,6 +88,7 @@ public class ContainerBootstrap extends Phase {
 		_singleBuilder = singleBuilder;
 		_factoryBuilder = factoryBuilder;
 		_log = containerState.containerLogs().getLogger(getClass());
+		_proxyCache = Boolean.parseBoolean(containerState.bundleContext().getProperty(PROXY_CACHE));
 	}
 
 	@Override
@@ -81,7 +96,7 @@ public class ContainerBootstrap extends Phase {
 		try (Syncro syncro = _lock.open()) {
 			if (_containerInstance != null) {
 				_log.debug(l -> l.debug("CCR container shutdown for {}", bundle()));
-				try {
+				try (Probe probe = probe(Mode.CLOSE)) {
 					_containerInstance.close();
 					withListeners(ContainerListener::onStopSuccess);
 				} catch (final RuntimeException re) {
@@ -131,9 +146,8 @@ public class ContainerBootstrap extends Phase {
 
 			_log.debug(log -> log.debug("CCR container startup for {}", bundle()));
 
-			try {
-				// always use a new class loader
-				BundleClassLoader loader = new BundleClassLoader(containerState.bundle(), containerState.extenderBundle());
+			try (Probe probe = probe(Mode.OPEN)) {
+				BundleClassLoader loader = classLoader();
 
 				_initializer = getServiceObjects().getService();
 
@@ -222,6 +236,58 @@ public class ContainerBootstrap extends Phase {
 		});
 	}
 
+	BundleClassLoader classLoader() {
+		if (!_proxyCache) {
+			// always use a new class loader
+			return new BundleClassLoader(containerState.bundle(), containerState.extenderBundle());
+		}
+
+		List<Object> key = new ArrayList<>();
+
+		key.add(wiring(containerState.bundle()));
+		key.add(wiring(getServiceObjects().getServiceReference().getBundle()));
+
+		for (ExtensionDTO extensionDTO : containerState.containerDTO().extensions) {
+			key.add(wiring(((ExtendedExtensionDTO)extensionDTO).extension.getServiceReference().getBundle()));
+		}
+
+		key.add(containerState.beansModel().getOSGiBeans().stream().map(
+			bean -> bean.getBeanClass().getName()
+		).collect(toCollection(TreeSet::new)));
+
+		if ((_loader != null) && key.equals(_loaderKey) && isCurrent(key)) {
+			_log.debug(l -> l.debug("CCR reusing the class loader of the previous bootstrap of {}", bundle()));
+
+			_loader.reset();
+
+			return _loader;
+		}
+
+		_loaderKey = key;
+
+		return _loader = new BundleClassLoader(containerState.bundle(), containerState.extenderBundle());
+	}
+
+	private Probe probe(Mode mode) {
+		return Events.containerBootstrap(
+			containerState.id(), mode.name(), containerState.beansModel().getOSGiBeans().size(),
+			containerState.containerDTO().extensions.size());
+	}
+
+	/*
+	 * A refresh replaces the wirings of the bundles even when their revisions
+	 * are unchanged, the wirings which were replaced are no longer current.
+	 */
+	private boolean isCurrent(List<Object> key) {
+		return key.stream().filter(BundleWiring.class::isInstance).map(
+			BundleWiring.class::cast
+		).allMatch(BundleWiring::isCurrent);
+	}
+
+	private BundleWiring wiring(Bundle bundle) {
+		return (bundle == null) ? null : bundle.adapt(BundleWiring.class);
+	}
+
 	private void getClassesFromExtensionCapability(Dictionary<String,Object> properties, Bundle extensionBundle, CDIContainerInitializer initializer) {
 		List<BundleCapability> capabilities = extensionBundle.adapt(BundleWiring.class).getCapabilities(CDI_EXTENSION_PROPERTY);
 
@@ -283,6 +349,9 @@ public class ContainerBootstrap extends Phase {
 	private final ConfigurationListener.Builder _configurationBuilder;
 	private final FactoryComponent.Builder _factoryBuilder;
 	private CDIContainerInitializer _initializer;
+	private BundleClassLoader _loader;
+	private List<Object> _loaderKey;
+	private final boolean _proxyCache;
 	private volatile ServiceObjects<CDIContainerInitializer> _serviceObjects;
 	private final SingleComponent.Builder _singleBuilder;
 	private final Syncro _lock = new Syncro(true);
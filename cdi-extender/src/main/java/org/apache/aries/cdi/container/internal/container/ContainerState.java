@@ -16,7 +16,6 @@ package org.apache.aries.cdi.container.internal.container;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.unmodifiableMap;
-import static java.util.Optional.empty;
 import static java.util.Optional.ofNullable;
 import static org.apache.aries.cdi.container.internal.util.Filters.asFilter;
 import static org.apache.aries.cdi.container.internal.util.Throw.asString;
@@ -39,8 +38,11 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.enterprise.inject.spi.BeanManager;
 
@@ -48,8 +50,10 @@ import org.apache.aries.cdi.container.internal.ChangeCount;
 import org.apache.aries.cdi.container.internal.loader.BundleClassLoader;
 import org.apache.aries.cdi.container.internal.model.BeansModel;
 import org.apache.aries.cdi.container.internal.model.BeansModelBuilder;
+import org.apache.aries.cdi.container.internal.model.BinderBatch;
 import org.apache.aries.cdi.container.internal.model.ExtendedConfigurationTemplateDTO;
 import org.apache.aries.cdi.container.internal.model.ExtendedExtensionTemplateDTO;
+import org.apache.aries.cdi.container.internal.util.DTOs;
 import org.apache.aries.cdi.container.internal.util.Logs;
 import org.apache.aries.cdi.container.internal.util.Throw;
 import org.osgi.framework.Bundle;
@@ -72,6 +76,19 @@ import org.osgi.util.tracker.ServiceTracker;
 
 public class ContainerState {
 
+	/**
+	 * Framework property holding the time in milliseconds during which
+	 * successive rebinds of the same component instance are coalesced.
+	 */
+	public static final String REBIND_WINDOW = "aries.cdi.extender.rebind.window";
+
+	/**
+	 * Framework property holding the time in milliseconds during which
+	 * successive extension arrivals and departures result in a single
+	 * restart of the CDI container.
+	 */
+	public static final String EXTENSION_WINDOW = "aries.cdi.extender.extension.window";
+
 	public ContainerState(
 		Bundle bundle,
 		Bundle extenderBundle,
@@ -80,6 +97,18 @@ public class ContainerState {
 		ServiceTracker<ConfigurationAdmin, ConfigurationAdmin> caTracker,
 		Logs ccrLogs) {
 
+		this(bundle, extenderBundle, ccrChangeCount, promiseFactory, caTracker, ccrLogs, promiseFactory.executor());
+	}
+
+	public ContainerState(
+		Bundle bundle,
+		Bundle extenderBundle,
+		ChangeCount ccrChangeCount,
+		PromiseFactory promiseFactory,
+		ServiceTracker<ConfigurationAdmin, ConfigurationAdmin> caTracker,
+		Logs ccrLogs,
+		Executor binderExecutor) {
+
 		_bundle = bundle;
 		_extenderBundle = extenderBundle;
 		_ccrLogs = ccrLogs;
@@ -87,11 +116,23 @@ public class ContainerState {
 		_log = _ccrLogs.getLogger(getClass());
 		_containerLogs = new Logs.Builder(_bundleContext).build();
 
-		_changeCount = new ChangeCount();
-		_changeCount.addObserver(ccrChangeCount);
+		_changeCount = new ChangeCount(ccrChangeCount);
 
 		_promiseFactory = promiseFactory;
 		_caTracker = caTracker;
+		_referenceIndex = new ReferenceIndex(_bundleContext);
+		_configurationIndex = new ConfigurationIndex(this);
+		_rebindWindow = longProperty(REBIND_WINDOW, 0);
+		_extensionWindow = longProperty(EXTENSION_WINDOW, 0);
+		_timings = new OpTimings((int)Math.min(
+			longProperty(OpTimings.SIZE, OpTimings.DEFAULT_SIZE), Integer.MAX_VALUE));
+		_binderBatchSize = (int)Math.max(1, Math.min(
+			longProperty(BinderBatch.SIZE, BinderBatch.DEFAULT_SIZE), Integer.MAX_VALUE));
+		_binderBatchLatency = longProperty(BinderBatch.LATENCY, BinderBatch.DEFAULT_LATENCY);
+		_binderAsyncCapacity = (int)Math.max(1, Math.min(
+			longProperty(BinderDelivery.CAPACITY, BinderDelivery.DEFAULT_CAPACITY), Integer.MAX_VALUE));
+		_binderExecutor = binderExecutor;
+		_binderPromiseFactory = new PromiseFactory(binderExecutor);
 
 		BundleWiring bundleWiring = _bundle.adapt(BundleWiring.class);
 
@@ -184,6 +225,10 @@ public class ContainerState {
 		}
 
 		_beanManagerDeferred = _promiseFactory.deferred();
+
+		// nothing else sees the DTOs yet, so the first snapshot is taken here
+		_snapshot = DTOs.copy(containerDTO(), true);
+		_publishing.set(false);
 	}
 
 	public <T, R> Promise<R> addCallback(CheckedCallback<T, R> checkedCallback) {
@@ -211,6 +256,45 @@ public class ContainerState {
 		return _beansModel;
 	}
 
+	/**
+	 * @return the maximum number of callbacks waiting to be delivered to an
+	 *         {@code @Async} binder
+	 */
+	public int binderAsyncCapacity() {
+		return _binderAsyncCapacity;
+	}
+
+	/**
+	 * @return the executor calling the callbacks of {@code @Async} binders
+	 */
+	public Executor binderExecutor() {
+		return _binderExecutor;
+	}
+
+	/**
+	 * @return the promise factory whose callbacks run on the binder executor,
+	 *         off the lane of the container
+	 */
+	public PromiseFactory binderPromiseFactory() {
+		return _binderPromiseFactory;
+	}
+
+	/**
+	 * @return the default time in milliseconds binders collect changes for
+	 *         their batch callbacks
+	 */
+	public long binderBatchLatency() {
+		return _binderBatchLatency;
+	}
+
+	/**
+	 * @return the default maximum number of changes delivered at once to the
+	 *         batch callbacks of binders
+	 */
+	public int binderBatchSize() {
+		return _binderBatchSize;
+	}
+
 	public Bundle bundle() {
 		return _bundle;
 	}
@@ -219,6 +303,14 @@ public class ContainerState {
 		return _bundleContext;
 	}
 
+	public ConfigurationIndex configurationIndex() {
+		return _configurationIndex;
+	}
+
+	public ReferenceIndex referenceIndex() {
+		return _referenceIndex;
+	}
+
 	public ServiceTracker<ConfigurationAdmin, ConfigurationAdmin> caTracker() {
 		return _caTracker;
 	}
@@ -256,43 +348,64 @@ public class ContainerState {
 		return _containerDTO;
 	}
 
+	/**
+	 * @return a copy of the container DTO. The nested DTOs are taken from the
+	 *         last snapshot published by the container's lane and are shared
+	 *         by all callers, only the top level DTOs belong to the caller.
+	 *         Never waits for the lane.
+	 */
+	public ContainerDTO containerDTOSnapshot() {
+		return DTOs.shallowCopy(_snapshot);
+	}
+
+	/**
+	 * Schedules a new DTO snapshot on the container's lane. Changes made
+	 * before the snapshot runs are coalesced into it. Unlike
+	 * {@link #incrementChangeCount()} it doesn't touch the change count of the
+	 * runtime service.
+	 */
+	public void dtoChanged() {
+		if (!_publishing.compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			_promiseFactory.executor().execute(this::publishSnapshot);
+		}
+		catch (RejectedExecutionException ree) {
+			// the lane no longer accepts tasks, e.g. the extender is stopping
+			_publishing.set(false);
+		}
+	}
+
 	public Logs containerLogs() {
 		return _containerLogs;
 	}
 
 	public void error(Throwable t) {
 		containerDTO().errors.add(Throw.asString(t));
+
+		dtoChanged();
 	}
 
 	public Bundle extenderBundle() {
 		return _extenderBundle;
 	}
 
+	/**
+	 * @return the time in milliseconds the container waits before restarting
+	 *         after one of its extensions arrived or departed
+	 */
+	public long extensionWindow() {
+		return _extensionWindow;
+	}
+
 	public Optional<Configuration> findConfig(String pid) {
-		return findConfigs(pid, false).map(arr -> arr[0]);
+		return _configurationIndex.findConfig(pid);
 	}
 
 	public Optional<Configuration[]> findConfigs(String pid, boolean factory) {
-		try {
-			String query = "(service.pid=".concat(pid).concat(")");
-
-			if (factory) {
-				query = "(service.factoryPid=".concat(pid).concat(")");
-			}
-
-			ConfigurationAdmin cm = _caTracker.getService();
-
-			if (cm == null) {
-				return empty();
-			}
-
-			return ofNullable(cm.listConfigurations(query));
-		}
-		catch (Exception e) {
-			_log.warn(l -> l.warn("CCR unexpected error fetching configuration for {}", pid, e));
-
-			return empty();
-		}
+		return _configurationIndex.findConfigs(pid, factory);
 	}
 
 	public String id() {
@@ -301,12 +414,63 @@ public class ContainerState {
 
 	public void incrementChangeCount() {
 		_changeCount.incrementAndGet();
+
+		dtoChanged();
 	}
 
 	public PromiseFactory promiseFactory() {
 		return _promiseFactory;
 	}
 
+	/**
+	 * @return the time spent waiting and running by the operations of this
+	 *         container
+	 */
+	public OpTimings timings() {
+		return _timings;
+	}
+
+	/**
+	 * @return the number of rebinds which were coalesced into an already
+	 *         pending one
+	 */
+	public long coalescedRebinds() {
+		return _coalescedRebinds.get();
+	}
+
+	/**
+	 * @return the number of container restarts which were avoided because an
+	 *         extension change was coalesced into an already pending restart
+	 */
+	public long avoidedRestarts() {
+		return _avoidedRestarts.get();
+	}
+
+	/**
+	 * Closes a component instance right away and re-opens it. An open which is
+	 * still waiting, for the settle window or in the queue, absorbs the opens
+	 * of the following rebinds of the same instance so that a burst of changes
+	 * results in a single activation.
+	 *
+	 * @return the promise of the open, or a promise resolved with false when
+	 *         the open was coalesced
+	 */
+	public Promise<Boolean> rebind(
+		Op closeOp, Callable<Boolean> close, Op openOp, Callable<Boolean> open) {
+
+		return coalesce(closeOp, close, openOp, open, _rebindWindow, _coalescedRebinds);
+	}
+
+	/**
+	 * Same as {@link #rebind} for the CDI container itself when extensions
+	 * come and go.
+	 */
+	public Promise<Boolean> restart(
+		Op closeOp, Callable<Boolean> close, Op openOp, Callable<Boolean> open) {
+
+		return coalesce(closeOp, close, openOp, open, _extensionWindow, _avoidedRestarts);
+	}
+
 	@SuppressWarnings("unchecked")
 	public <T, R> Promise<T> submit(Op op, Callable<T> task) {
 		try {
@@ -314,7 +478,18 @@ public class ContainerState {
 				case CLOSE: {
 					// always perform close synchronously
 					_log.debug(l -> l.debug("CCR submit {}", op));
-					return _promiseFactory.resolved(task.call());
+					long submitted = System.currentTimeMillis();
+					long start = System.nanoTime();
+					boolean failed = true;
+					try {
+						Promise<T> resolved = _promiseFactory.resolved(task.call());
+						failed = false;
+						return resolved;
+					}
+					finally {
+						_timings.record(op, submitted, 0, System.nanoTime() - start, failed);
+						dtoChanged();
+					}
 				}
 				case OPEN:
 					// when closing don't do perform any opens
@@ -330,7 +505,24 @@ public class ContainerState {
 
 		_log.debug(l -> l.debug("CCR submit {}", op));
 
-		Promise<T> promise = _promiseFactory.submit(task);
+		long submitted = System.currentTimeMillis();
+		long queued = System.nanoTime();
+
+		Promise<T> promise = _promiseFactory.submit(
+			() -> {
+				long start = System.nanoTime();
+				boolean failed = true;
+				try {
+					T result = task.call();
+					failed = false;
+					return result;
+				}
+				finally {
+					_timings.record(op, submitted, start - queued, System.nanoTime() - start, failed);
+					dtoChanged();
+				}
+			}
+		);
 
 		for (Entry<CheckedCallback<?, ?>, Deferred<?>> entry : _callbacks.entrySet()) {
 			CheckedCallback<T, R> cc = (CheckedCallback<T, R>)entry.getKey();
@@ -353,6 +545,67 @@ public class ContainerState {
 		return _bundle.toString();
 	}
 
+	private Promise<Boolean> coalesce(
+		Op closeOp, Callable<Boolean> close, Op openOp, Callable<Boolean> open,
+		long window, AtomicLong coalesced) {
+
+		Promise<Boolean> closed = submit(closeOp, close);
+
+		String key = openOp.type + ":" + openOp.name;
+		Object pending = new Object();
+
+		if (_pending.putIfAbsent(key, pending) != null) {
+			coalesced.incrementAndGet();
+
+			_log.debug(l -> l.debug("CCR coalesced {}", openOp));
+
+			return closed.map(c -> Boolean.FALSE);
+		}
+
+		Promise<Boolean> settled = closed;
+
+		if (window > 0) {
+			settled = settled.delay(window);
+		}
+
+		return settled.flatMap(
+			// from here on a new event needs a new open
+			s -> _promiseFactory.submit(() -> _pending.remove(key, pending))
+		).flatMap(
+			s -> submit(openOp, open)
+		).onResolve(
+			() -> _pending.remove(key, pending)
+		);
+	}
+
+	/*
+	 * Runs on the container's lane, where the DTOs are modified, so the graph
+	 * doesn't change while it is copied. The flag is cleared first so changes
+	 * made during the copy schedule another snapshot.
+	 */
+	private void publishSnapshot() {
+		_publishing.set(false);
+
+		_snapshot = DTOs.copy(containerDTO(), true);
+	}
+
+	private long longProperty(String property, long defaultValue) {
+		String value = _bundleContext.getProperty(property);
+
+		if (value == null) {
+			return defaultValue;
+		}
+
+		try {
+			return Math.max(0, Long.parseLong(value.trim()));
+		}
+		catch (NumberFormatException nfe) {
+			_log.warn(l -> l.warn("CCR invalid value {} for {}, using {}", value, property, defaultValue));
+
+			return defaultValue;
+		}
+	}
+
 	private void collectExtensionRequirements(BundleWiring bundleWiring, Set<String> extensionRequirements) {
 		for (BundleWire wire : bundleWiring.getRequiredWires(CDI_EXTENSION_PROPERTY)) {
 			String filter = wire.getRequirement().getDirectives().get(
@@ -377,8 +630,14 @@ public class ContainerState {
 	}
 
 	private final BundleClassLoader _aggregateClassLoader;
+	private final AtomicLong _avoidedRestarts = new AtomicLong();
 	private volatile Deferred<BeanManager> _beanManagerDeferred;
 	private final BeansModel _beansModel;
+	private final int _binderAsyncCapacity;
+	private final long _binderBatchLatency;
+	private final int _binderBatchSize;
+	private final Executor _binderExecutor;
+	private final PromiseFactory _binderPromiseFactory;
 	private final Bundle _bundle;
 	private final BundleContext _bundleContext;
 	private final Map<CheckedCallback<?, ?>, Deferred<?>> _callbacks = new ConcurrentHashMap<>();
@@ -388,11 +647,20 @@ public class ContainerState {
 	private final Map<String, Object> _cdiAttributes;
 	private final ChangeCount _changeCount;
 	private final AtomicBoolean _closing = new AtomicBoolean(false);
+	private final AtomicLong _coalescedRebinds = new AtomicLong();
 	private final ComponentContext _componentContext = new ComponentContext();
 	private final ContainerDTO _containerDTO;
 	private final Logs _containerLogs;
 	private final ComponentTemplateDTO _containerComponentTemplateDTO;
 	private final Bundle _extenderBundle;
 	private final PromiseFactory _promiseFactory;
+	private final ReferenceIndex _referenceIndex;
+	private final ConfigurationIndex _configurationIndex;
+	private final long _rebindWindow;
+	private final long _extensionWindow;
+	private final Map<String, Object> _pending = new ConcurrentHashMap<>();
+	private final AtomicBoolean _publishing = new AtomicBoolean(true);
+	private volatile ContainerDTO _snapshot;
+	private final OpTimings _timings;
 
 }
\ No newline at end of file
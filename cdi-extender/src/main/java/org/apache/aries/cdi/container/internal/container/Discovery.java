@@ -58,6 +58,8 @@ import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 import org.apache.aries.cdi.container.internal.annotated.AnnotatedTypeImpl;
+import org.apache.aries.cdi.container.internal.jfr.Events;
+import org.apache.aries.cdi.container.internal.jfr.Probe;
 import org.apache.aries.cdi.container.internal.model.BeansModel;
 import org.apache.aries.cdi.container.internal.model.ComponentPropertiesModel;
 import org.apache.aries.cdi.container.internal.model.ExtendedActivationTemplateDTO;
@@ -120,6 +122,11 @@ public class Discovery {
 		_log = _containerState.ccrLogs().getLogger(getClass());
 		_beansModel = _containerState.beansModel();
 		_containerTemplate = _containerState.containerDTO().template.components.get(0);
+		_index = DiscoveryIndex.read(
+			_containerState.bundle().getEntry(DiscoveryIndex.PATH), _containerState.bundle()::getEntry
+		).listing(
+			_beansModel.getOSGiBeans().stream().map(osgiBean -> osgiBean.getBeanClass().getName()).collect(toList())
+		);
 
 		AtomicBoolean trim = new AtomicBoolean();
 
@@ -134,6 +141,12 @@ public class Discovery {
 	}
 
 	public void discover() {
+		try (Probe probe = Events.discovery(_containerState.id(), _beansModel.getOSGiBeans().size())) {
+			discover0();
+		}
+	}
+
+	private void discover0() {
 		_beansModel.getOSGiBeans().forEach(osgiBean -> {
 			osgiBean.found(true);
 
@@ -170,6 +183,11 @@ public class Discovery {
 				return;
 			}
 
+			if (_index.isPlain(osgiBean.getBeanClass().getName())) {
+				// the build time index says there is nothing for us in the members
+				return;
+			}
+
 			annotatedType.getConstructors().stream().filter(this::isInject).flatMap(annotatedConstructor -> annotatedConstructor.getParameters().stream()).forEach(
 				annotatedParameter ->
 					processAnnotated(annotatedParameter, annotatedParameter.getBaseType(), Annotates.qualifiers(annotatedParameter), osgiBean)
@@ -532,6 +550,7 @@ public class Discovery {
 	private final Set<OSGiBean> _componentScoped = new HashSet<>();
 	private final ComponentTemplateDTO _containerTemplate;
 	private final ContainerState _containerState;
+	private final DiscoveryIndex _index;
 	private final Logger _log;
 	private final boolean _trim;
 	private final List<Exclude> _excludes;
@@ -0,0 +1,204 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.container;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Build time discovery index written by
+ * {@code org.apache.aries.cdi.build.tools.DiscoveryIndex}.
+ * <p>
+ * Each line maps a class name to either {@code plain}, meaning the class has
+ * no OSGi CDI injection points, producers, services or component
+ * annotations, or {@code osgi}, followed by the CRC-32 of the class file the
+ * entry was computed from. Classes that are not listed, or an index of an
+ * unknown version, are discovered through reflection. A stale index is
+ * ignored altogether: when a bean class is missing from it, or when the class
+ * file of a plain class no longer matches its entry.
+ */
+public class DiscoveryIndex {
+
+	public static final String PATH = "META-INF/aries-cdi/index";
+
+	public static final String VERSION = "2";
+
+	public static final DiscoveryIndex EMPTY = new DiscoveryIndex(Collections.emptyMap(), className -> null);
+
+	/**
+	 * @param url the index, may be null
+	 * @param classFiles finds the class files, e.g. {@code Bundle::getEntry}
+	 */
+	public static DiscoveryIndex read(URL url, Function<String, URL> classFiles) {
+		if (url == null) {
+			return EMPTY;
+		}
+
+		try (InputStream is = url.openStream()) {
+			return read(is, classFiles);
+		}
+		catch (IOException ioe) {
+			return EMPTY;
+		}
+	}
+
+	public static DiscoveryIndex read(InputStream is, Function<String, URL> classFiles) throws IOException {
+		Map<String, Entry> entries = new HashMap<>();
+		boolean versionMatches = false;
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(is, UTF_8));
+
+		String line;
+
+		while ((line = reader.readLine()) != null) {
+			line = line.trim();
+
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+
+			int eq = line.indexOf('=');
+
+			if (eq < 0) {
+				continue;
+			}
+
+			String key = line.substring(0, eq).trim();
+			String value = line.substring(eq + 1).trim();
+
+			if (key.equals("version")) {
+				versionMatches = VERSION.equals(value);
+
+				continue;
+			}
+
+			int comma = value.indexOf(',');
+
+			if (comma < 0) {
+				continue;
+			}
+
+			try {
+				entries.put(key, new Entry(
+					PLAIN.equals(value.substring(0, comma)), Long.parseLong(value.substring(comma + 1), 16)));
+			}
+			catch (NumberFormatException nfe) {
+				// not written by the plugin, let the class be reflected on
+			}
+		}
+
+		if (!versionMatches) {
+			return EMPTY;
+		}
+
+		return new DiscoveryIndex(entries, classFiles);
+	}
+
+	private DiscoveryIndex(Map<String, Entry> entries, Function<String, URL> classFiles) {
+		_entries = entries;
+		_classFiles = classFiles;
+	}
+
+	public boolean isEmpty() {
+		return _stale || _entries.isEmpty();
+	}
+
+	/**
+	 * @return true when the index says the members of the class don't need to
+	 *         be scanned and the class file is the one the index was built
+	 *         from, otherwise the whole index is no longer trusted
+	 */
+	public boolean isPlain(String className) {
+		if (_stale) {
+			return false;
+		}
+
+		Entry entry = _entries.get(className);
+
+		if ((entry == null) || !entry._plain) {
+			return false;
+		}
+
+		URL classFile = _classFiles.apply(className.replace('.', '/') + ".class");
+
+		if (classFile == null) {
+			// e.g. the class comes from an embedded jar
+			return false;
+		}
+
+		if (entry._crc != crc(classFile)) {
+			_stale = true;
+
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return this index when it lists all the classes, otherwise the index
+	 *         was built before some of them were added and is ignored
+	 */
+	public DiscoveryIndex listing(Collection<String> classNames) {
+		return _entries.keySet().containsAll(classNames) ? this : EMPTY;
+	}
+
+	private static long crc(URL url) {
+		CRC32 crc = new CRC32();
+
+		try (InputStream is = url.openStream()) {
+			byte[] buffer = new byte[8192];
+
+			for (int read; (read = is.read(buffer)) != -1;) {
+				crc.update(buffer, 0, read);
+			}
+		}
+		catch (IOException ioe) {
+			return -1;
+		}
+
+		return crc.getValue();
+	}
+
+	private static final String PLAIN = "plain";
+
+	private final Function<String, URL> _classFiles;
+	private final Map<String, Entry> _entries;
+	private volatile boolean _stale;
+
+	private static class Entry {
+
+		Entry(boolean plain, long crc) {
+			_plain = plain;
+			_crc = crc;
+		}
+
+		private final long _crc;
+		private final boolean _plain;
+
+	}
+
+}
@@ -16,6 +16,7 @@ package org.apache.aries.cdi.container.internal.container;
 
 import static org.apache.aries.cdi.container.internal.util.Filters.asFilter;
 
+import java.lang.reflect.InvocationTargetException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.SortedSet;
@@ -31,7 +32,6 @@ import org.apache.aries.cdi.container.internal.util.Conversions;
 import org.apache.aries.cdi.container.internal.util.Perms;
 import org.apache.aries.cdi.container.internal.util.SRs;
 import org.apache.aries.cdi.container.internal.util.Syncro;
-import org.apache.aries.cdi.container.internal.util.Throw;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 import org.osgi.framework.Filter;
@@ -148,6 +148,24 @@ public class ExtensionPhase extends Phase {
 		return containerState.containerDTO().extensions;
 	}
 
+	/*
+	 * Arrivals and departures of extensions which happen while a restart is
+	 * pending are folded into that restart.
+	 */
+	private Promise<Boolean> restart(Phase next) {
+		return containerState.restart(
+			next.closeOp(), next::close,
+			next.openOp(),
+			() -> {
+				if (extensionTemplates().stream().allMatch(tmpl -> snapshots().stream().anyMatch(ext -> ext.template == tmpl))) {
+					return next.open();
+				}
+
+				return false;
+			}
+		);
+	}
+
 
 	private ServiceTracker<Extension, ExtendedExtensionDTO> _extensionTracker;
 	private final Logger _log;
@@ -210,24 +228,11 @@ public class ExtensionPhase extends Phase {
 			containerState.incrementChangeCount();
 
 			next.ifPresent(
-				next -> submit(next.closeOp(), next::close).then(
-					s -> {
-						if (extensionTemplates().stream().allMatch(tmpl -> snapshots().stream().anyMatch(ext -> ext.template == tmpl))) {
-							return submit(next.openOp(), next::open).onFailure(
-								f -> {
-									_log.error(l -> l.error("CCR Error in extension open TRACKING {} on {}", reference, bundle(), f));
-
-									error(f);
-								}
-							);
-						}
-
-						return s;
-					},
+				next -> restart(next).onFailure(
 					f -> {
-						_log.error(l -> l.error("CCR Error extension close TRACKING {} on {}", reference, bundle(), f.getFailure()));
+						_log.error(l -> l.error("CCR Error in extension restart TRACKING {} on {}", reference, bundle(), f));
 
-						error(f.getFailure());
+						error(f);
 					}
 				)
 			);
@@ -266,32 +271,27 @@ public class ExtensionPhase extends Phase {
 
 			next.ifPresent(
 				next -> {
-					Promise<Boolean> result = submit(next.closeOp(), next::close).then(
-						s -> {
-							if (extensionTemplates().stream().allMatch(tmpl -> snapshots().stream().anyMatch(ext -> ext.template == tmpl))) {
-								return submit(next.openOp(), next::open).onFailure(
-									f -> {
-										_log.error(l -> l.error("CCR Error in extension open {} on {}", reference, bundle(), f));
-
-										error(f);
-									}
-								);
-							}
-
-							return s;
-						},
+					Promise<Boolean> result = restart(next).onFailure(
 						f -> {
-							_log.error(l -> l.error("CCR Error in extension close {} on {}", reference, bundle(), f.getFailure()));
+							_log.error(l -> l.error("CCR Error in extension restart {} on {}", reference, bundle(), f));
 
-							error(f.getFailure());
+							error(f);
 						}
 					);
 
+					if (containerState.extensionWindow() > 0) {
+						// the restart waits for further changes, don't hold up the departing service meanwhile
+						return;
+					}
+
 					try {
 						result.getValue();
 					}
-					catch (Exception e) {
-						Throw.exception(e);
+					catch (InvocationTargetException ite) {
+						// logged by onFailure
+					}
+					catch (InterruptedException ie) {
+						Thread.currentThread().interrupt();
 					}
 				}
 			);
@@ -21,6 +21,7 @@ public class Op {
 	public static enum Mode {CLOSE, OPEN}
 
 	public static enum Type {
+		BINDER,
 		CONFIGURATION_EVENT,
 		CONFIGURATION_LISTENER,
 		CONTAINER_ACTIVATOR,
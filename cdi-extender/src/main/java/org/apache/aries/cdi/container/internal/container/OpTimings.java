@@ -0,0 +1,201 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.container;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.aries.cdi.spi.runtime.OpTimingDTO;
+import org.apache.aries.cdi.spi.runtime.OpTypeTimingsDTO;
+
+/**
+ * Records how long the operations of a container wait for the container and
+ * how long they run. The most recent operations are kept in a bounded ring
+ * buffer, all of them are aggregated per {@link Op.Type}.
+ */
+public class OpTimings {
+
+	/**
+	 * Framework property holding the number of recent operations kept per
+	 * container.
+	 */
+	public static final String SIZE = "aries.cdi.extender.timings.size";
+
+	public static final int DEFAULT_SIZE = 100;
+
+	public OpTimings(int size) {
+		_recent = new AtomicReferenceArray<>(Math.max(0, size));
+
+		for (Op.Type type : Op.Type.values()) {
+			_types.put(type, new TypeTimings());
+		}
+	}
+
+	public void record(Op op, long submitted, long waitNanos, long runNanos, boolean failed) {
+		_types.get(op.type).record(waitNanos, runNanos, failed);
+
+		int size = _recent.length();
+
+		if (size == 0) {
+			return;
+		}
+
+		long index = _next.getAndIncrement();
+
+		_recent.set((int)(index % size), new Entry(op, submitted, waitNanos, runNanos, failed));
+	}
+
+	/**
+	 * @return the most recent operations, oldest first
+	 */
+	public List<OpTimingDTO> recent() {
+		int size = _recent.length();
+		long next = _next.get();
+		List<OpTimingDTO> recent = new ArrayList<>(size);
+
+		for (long index = Math.max(0, next - size); index < next; index++) {
+			Entry entry = _recent.get((int)(index % size));
+
+			if (entry != null) {
+				recent.add(entry.toDTO());
+			}
+		}
+
+		return recent;
+	}
+
+	/**
+	 * @return the aggregated timings of the operation types which ran at
+	 *         least once
+	 */
+	public List<OpTypeTimingsDTO> types() {
+		List<OpTypeTimingsDTO> types = new ArrayList<>();
+
+		_types.forEach(
+			(type, timings) -> {
+				if (timings._count.get() > 0) {
+					types.add(timings.toDTO(type));
+				}
+			}
+		);
+
+		return types;
+	}
+
+	static int bucket(long nanos) {
+		long millis = nanos / 1_000_000;
+		int bucket = 0;
+
+		for (long bound = 1; (bucket < BUCKETS - 1) && (millis >= bound); bound *= 10) {
+			bucket++;
+		}
+
+		return bucket;
+	}
+
+	private static final int BUCKETS = 6;
+
+	private final AtomicLong _next = new AtomicLong();
+	private final AtomicReferenceArray<Entry> _recent;
+	private final Map<Op.Type, TypeTimings> _types = new EnumMap<>(Op.Type.class);
+
+	private static class Entry {
+
+		Entry(Op op, long submitted, long waitNanos, long runNanos, boolean failed) {
+			_op = op;
+			_submitted = submitted;
+			_waitNanos = waitNanos;
+			_runNanos = runNanos;
+			_failed = failed;
+		}
+
+		OpTimingDTO toDTO() {
+			OpTimingDTO dto = new OpTimingDTO();
+			dto.failed = _failed;
+			dto.mode = _op.mode.name();
+			dto.name = _op.name;
+			dto.runNanos = _runNanos;
+			dto.submitted = _submitted;
+			dto.type = _op.type.name();
+			dto.waitNanos = _waitNanos;
+			return dto;
+		}
+
+		private final boolean _failed;
+		private final Op _op;
+		private final long _runNanos;
+		private final long _submitted;
+		private final long _waitNanos;
+
+	}
+
+	private static class TypeTimings {
+
+		void record(long waitNanos, long runNanos, boolean failed) {
+			_count.incrementAndGet();
+
+			if (failed) {
+				_failures.incrementAndGet();
+			}
+
+			_totalWaitNanos.addAndGet(waitNanos);
+			_maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+			_waitHistogram.incrementAndGet(bucket(waitNanos));
+			_totalRunNanos.addAndGet(runNanos);
+			_maxRunNanos.accumulateAndGet(runNanos, Math::max);
+			_runHistogram.incrementAndGet(bucket(runNanos));
+		}
+
+		OpTypeTimingsDTO toDTO(Op.Type type) {
+			OpTypeTimingsDTO dto = new OpTypeTimingsDTO();
+			dto.count = _count.get();
+			dto.failures = _failures.get();
+			dto.maxRunNanos = _maxRunNanos.get();
+			dto.maxWaitNanos = _maxWaitNanos.get();
+			dto.runHistogram = toArray(_runHistogram);
+			dto.totalRunNanos = _totalRunNanos.get();
+			dto.totalWaitNanos = _totalWaitNanos.get();
+			dto.type = type.name();
+			dto.waitHistogram = toArray(_waitHistogram);
+			return dto;
+		}
+
+		private long[] toArray(AtomicLongArray histogram) {
+			long[] array = new long[histogram.length()];
+
+			for (int i = 0; i < array.length; i++) {
+				array[i] = histogram.get(i);
+			}
+
+			return array;
+		}
+
+		private final AtomicLong _count = new AtomicLong();
+		private final AtomicLong _failures = new AtomicLong();
+		private final AtomicLong _maxRunNanos = new AtomicLong();
+		private final AtomicLong _maxWaitNanos = new AtomicLong();
+		private final AtomicLongArray _runHistogram = new AtomicLongArray(BUCKETS);
+		private final AtomicLong _totalRunNanos = new AtomicLong();
+		private final AtomicLong _totalWaitNanos = new AtomicLong();
+		private final AtomicLongArray _waitHistogram = new AtomicLongArray(BUCKETS);
+
+	}
+
+}
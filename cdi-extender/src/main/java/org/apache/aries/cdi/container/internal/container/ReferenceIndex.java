@@ -0,0 +1,489 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.container;
+
+import static org.apache.aries.cdi.container.internal.util.Filters.asFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.aries.cdi.container.internal.util.Syncro;
+import org.apache.aries.cdi.container.internal.util.Throw;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Filter;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.cdi.annotations.Reference;
+import org.osgi.util.tracker.ServiceTrackerCustomizer;
+
+/**
+ * Tracks the services of all the references of a container with a single
+ * {@link ServiceListener} per {@code objectClass} instead of one
+ * {@link org.osgi.util.tracker.ServiceTracker} (and therefore one framework
+ * filter) per reference per component instance. Events are matched in memory
+ * against the target filters of the references interested in the service
+ * type only.
+ */
+public class ReferenceIndex {
+
+	public ReferenceIndex(BundleContext bundleContext) {
+		_bundleContext = bundleContext;
+	}
+
+	/**
+	 * @param serviceType the service type of the reference, {@link Reference.Any}
+	 *        or {@link Object} match any service type
+	 * @param targetFilter the complete target filter of the reference
+	 * @param customizer receives the services matching the target filter
+	 * @return a tracker which is not yet open
+	 */
+	public Tracker tracker(
+		String serviceType, String targetFilter,
+		ServiceTrackerCustomizer<Object, Object> customizer) {
+
+		String objectClass = Reference.Any.class.getName().equals(serviceType) ||
+			Object.class.getName().equals(serviceType) ? ANY : serviceType;
+
+		return new Tracker(objectClass, targetFilter, customizer);
+	}
+
+	/**
+	 * @return the number of framework service listeners currently registered
+	 */
+	public int listeners() {
+		return _listeners.size();
+	}
+
+	private void add(Tracker tracker) {
+		try (Syncro open = _syncro.open()) {
+			TypeListener listener = _listeners.get(tracker._objectClass);
+
+			if (listener == null) {
+				listener = new TypeListener();
+
+				_listeners.put(tracker._objectClass, listener);
+
+				listener._trackers.add(tracker);
+
+				String filter = ANY.equals(tracker._objectClass) ? "(objectClass=*)" :
+					"(objectClass=".concat(tracker._objectClass).concat(")");
+
+				try {
+					_bundleContext.addServiceListener(listener, filter);
+				}
+				catch (InvalidSyntaxException ise) {
+					_listeners.remove(tracker._objectClass);
+
+					Throw.exception(ise);
+				}
+			}
+			else {
+				listener._trackers.add(tracker);
+			}
+		}
+	}
+
+	private void remove(Tracker tracker) {
+		try (Syncro open = _syncro.open()) {
+			TypeListener listener = _listeners.get(tracker._objectClass);
+
+			if (listener == null) {
+				return;
+			}
+
+			listener._trackers.remove(tracker);
+
+			if (listener._trackers.isEmpty()) {
+				_listeners.remove(tracker._objectClass);
+
+				try {
+					_bundleContext.removeServiceListener(listener);
+				}
+				catch (IllegalStateException ise) {
+					// the bundle context is no longer valid
+				}
+			}
+		}
+	}
+
+	public class Tracker {
+
+		private Tracker(
+			String objectClass, String targetFilter,
+			ServiceTrackerCustomizer<Object, Object> customizer) {
+
+			_objectClass = objectClass;
+			_targetFilter = targetFilter;
+			_filter = asFilter(targetFilter);
+			_customizer = customizer;
+		}
+
+		public void open() {
+			try (Syncro open = _trackerSyncro.open()) {
+				if (_open) {
+					return;
+				}
+
+				_open = true;
+
+				// listen before looking up so that no registration is missed
+				add(this);
+
+				ServiceReference<?>[] references;
+
+				try {
+					references = _bundleContext.getServiceReferences(
+						ANY.equals(_objectClass) ? null : _objectClass, _targetFilter);
+				}
+				catch (InvalidSyntaxException ise) {
+					references = Throw.exception(ise);
+				}
+
+				if (references != null) {
+					for (ServiceReference<?> reference : references) {
+						_initial.add(cast(reference));
+					}
+				}
+			}
+
+			// like the ServiceTracker, events seen meanwhile remove the references from the initial ones
+			while (true) {
+				ServiceReference<Object> reference;
+
+				try (Syncro open = _trackerSyncro.open()) {
+					Iterator<ServiceReference<Object>> iterator = _initial.iterator();
+
+					if (!_open || !iterator.hasNext()) {
+						return;
+					}
+
+					reference = iterator.next();
+
+					iterator.remove();
+				}
+
+				track(reference);
+			}
+		}
+
+		public void close() {
+			List<Entry<ServiceReference<Object>, Object>> untracked;
+
+			try (Syncro open = _trackerSyncro.open()) {
+				if (!_open) {
+					return;
+				}
+
+				_open = false;
+
+				remove(this);
+
+				_initial.clear();
+
+				untracked = new ArrayList<>(_tracked.entrySet());
+
+				_tracked.clear();
+
+				publish(EMPTY, new Object[0]);
+			}
+
+			for (Entry<ServiceReference<Object>, Object> entry : untracked) {
+				_customizer.removedService(entry.getKey(), entry.getValue());
+			}
+		}
+
+		public ServiceReference<Object> getServiceReference() {
+			List<ServiceReference<Object>> references = _references;
+
+			return references.isEmpty() ? null : references.get(0);
+		}
+
+		@SuppressWarnings("unchecked")
+		public ServiceReference<Object>[] getServiceReferences() {
+			List<ServiceReference<Object>> references = _references;
+
+			if (references.isEmpty()) {
+				return null;
+			}
+
+			return references.toArray(new ServiceReference[0]);
+		}
+
+		public Object getService() {
+			List<Object> services = _services;
+
+			return services.isEmpty() ? null : services.get(0);
+		}
+
+		/**
+		 * @return the tracked services sorted like
+		 *         {@link org.osgi.util.tracker.ServiceTracker#getTracked()}, the
+		 *         highest ranked service first
+		 */
+		public SortedMap<ServiceReference<Object>, Object> getTracked() {
+			SortedMap<ServiceReference<Object>, Object> map = new TreeMap<>(Collections.reverseOrder());
+
+			map.putAll(_tracked);
+
+			return map;
+		}
+
+		/**
+		 * @return an immutable snapshot of the tracked services, the highest
+		 *         ranked service first. The snapshot is replaced whenever the
+		 *         tracked services change so reading it doesn't copy anything.
+		 */
+		public List<Object> services() {
+			return _services;
+		}
+
+		public int size() {
+			return _tracked.size();
+		}
+
+		void serviceChanged(ServiceEvent event) {
+			if (!_open) {
+				return;
+			}
+
+			ServiceReference<Object> reference = cast(event.getServiceReference());
+
+			switch (event.getType()) {
+				case ServiceEvent.REGISTERED:
+				case ServiceEvent.MODIFIED:
+					if (_filter.match(reference)) {
+						track(reference);
+					}
+					else {
+						untrack(reference);
+					}
+					break;
+				case ServiceEvent.MODIFIED_ENDMATCH:
+				case ServiceEvent.UNREGISTERING:
+					untrack(reference);
+					break;
+			}
+		}
+
+		/*
+		 * The snapshot is kept sorted as the services come and go, each change
+		 * copies it once instead of sorting all the tracked services again.
+		 */
+		private void insert(ServiceReference<Object> reference, Object service) {
+			ServiceReference<Object>[] references = _sortedReferences;
+			Object[] services = _sortedServices;
+
+			int index = Arrays.binarySearch(references, reference, Collections.reverseOrder());
+
+			if (index < 0) {
+				index = -(index + 1);
+			}
+
+			ServiceReference<Object>[] newReferences = Arrays.copyOf(references, references.length + 1);
+			Object[] newServices = Arrays.copyOf(services, services.length + 1);
+
+			System.arraycopy(references, index, newReferences, index + 1, references.length - index);
+			System.arraycopy(services, index, newServices, index + 1, services.length - index);
+
+			newReferences[index] = reference;
+			newServices[index] = service;
+
+			publish(newReferences, newServices);
+		}
+
+		private void delete(ServiceReference<Object> reference) {
+			ServiceReference<Object>[] references = _sortedReferences;
+			Object[] services = _sortedServices;
+
+			// not a binary search, the ranking of the reference may have changed
+			int index = -1;
+
+			for (int i = 0; i < references.length; i++) {
+				if (references[i] == reference) {
+					index = i;
+
+					break;
+				}
+			}
+
+			if (index < 0) {
+				return;
+			}
+
+			ServiceReference<Object>[] newReferences = Arrays.copyOf(references, references.length - 1);
+			Object[] newServices = Arrays.copyOf(services, services.length - 1);
+
+			System.arraycopy(references, index + 1, newReferences, index, newReferences.length - index);
+			System.arraycopy(services, index + 1, newServices, index, newServices.length - index);
+
+			publish(newReferences, newServices);
+		}
+
+		private void publish(ServiceReference<Object>[] references, Object[] services) {
+			_sortedReferences = references;
+			_sortedServices = services;
+
+			_references = Collections.unmodifiableList(Arrays.asList(references));
+			_services = Collections.unmodifiableList(Arrays.asList(services));
+		}
+
+		/*
+		 * Like the ServiceTracker the customizer is never called while holding
+		 * the lock of the tracker, a customizer may synchronously close the
+		 * tracker or cause other events for it. A reference isn't tracked until
+		 * addingService returns, if it is untracked meanwhile removedService is
+		 * called right after.
+		 */
+		private void track(ServiceReference<Object> reference) {
+			Object service;
+
+			try (Syncro open = _trackerSyncro.open()) {
+				// an event got to it before the initial references did
+				_initial.remove(reference);
+
+				if (!_open || _adding.contains(reference)) {
+					return;
+				}
+
+				service = _tracked.get(reference);
+
+				if (service != null) {
+					// the ranking may have changed
+					delete(reference);
+					insert(reference, service);
+				}
+				else {
+					_adding.add(reference);
+				}
+			}
+
+			if (service != null) {
+				_customizer.modifiedService(reference, service);
+
+				return;
+			}
+
+			boolean untracked = true;
+
+			try {
+				service = _customizer.addingService(reference);
+			}
+			finally {
+				try (Syncro open = _trackerSyncro.open()) {
+					if (_adding.remove(reference) && _open && (service != null)) {
+						_tracked.put(reference, service);
+
+						insert(reference, service);
+
+						untracked = false;
+					}
+				}
+			}
+
+			if (untracked && (service != null)) {
+				_customizer.removedService(reference, service);
+			}
+		}
+
+		private void untrack(ServiceReference<Object> reference) {
+			Object service;
+
+			try (Syncro open = _trackerSyncro.open()) {
+				if (_initial.remove(reference)) {
+					// not tracked yet, the initial references won't track it anymore
+					return;
+				}
+
+				if (_adding.remove(reference)) {
+					// still being added, the adding thread removes it
+					return;
+				}
+
+				service = _tracked.remove(reference);
+
+				if (service == null) {
+					return;
+				}
+
+				delete(reference);
+			}
+
+			_customizer.removedService(reference, service);
+		}
+
+		private final List<ServiceReference<Object>> _adding = new ArrayList<>();
+		private final ServiceTrackerCustomizer<Object, Object> _customizer;
+		private final Filter _filter;
+		// guarded by the tracker lock, the references found by open which are not tracked yet
+		private final Set<ServiceReference<Object>> _initial = new LinkedHashSet<>();
+		private final String _objectClass;
+		private volatile boolean _open;
+		private volatile List<Object> _services = Collections.emptyList();
+		private final String _targetFilter;
+		private volatile List<ServiceReference<Object>> _references = Collections.emptyList();
+		// guarded by the tracker lock, the sorted arrays behind the snapshot
+		private ServiceReference<Object>[] _sortedReferences = EMPTY;
+		private Object[] _sortedServices = new Object[0];
+		// not sorted, the order of a reference changes with its service.ranking
+		private final Map<ServiceReference<Object>, Object> _tracked = new ConcurrentHashMap<>();
+		private final Syncro _trackerSyncro = new Syncro(true);
+
+	}
+
+	private class TypeListener implements ServiceListener {
+
+		@Override
+		public void serviceChanged(ServiceEvent event) {
+			for (Tracker tracker : _trackers) {
+				tracker.serviceChanged(event);
+			}
+		}
+
+		private final List<Tracker> _trackers = new CopyOnWriteArrayList<>();
+
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ServiceReference<Object> cast(ServiceReference<?> reference) {
+		return (ServiceReference<Object>)reference;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ServiceReference<Object>[] cast(ServiceReference<?>[] references) {
+		return (ServiceReference<Object>[])references;
+	}
+
+	private static final String ANY = "*";
+
+	private static final ServiceReference<Object>[] EMPTY = cast(new ServiceReference<?>[0]);
+
+	private final BundleContext _bundleContext;
+	private final Map<String, TypeListener> _listeners = new ConcurrentHashMap<>();
+	private final Syncro _syncro = new Syncro(true);
+
+}
@@ -16,15 +16,18 @@ package org.apache.aries.cdi.container.internal.container;
 
 import java.util.AbstractMap.SimpleImmutableEntry;
 
+import org.apache.aries.cdi.container.internal.jfr.Events;
+import org.apache.aries.cdi.container.internal.jfr.Probe;
 import org.apache.aries.cdi.container.internal.model.CollectionType;
 import org.apache.aries.cdi.container.internal.model.ExtendedComponentInstanceDTO;
 import org.apache.aries.cdi.container.internal.model.ExtendedReferenceDTO;
 import org.apache.aries.cdi.container.internal.model.ExtendedReferenceTemplateDTO;
 import org.apache.aries.cdi.container.internal.model.InstanceActivator;
+import org.apache.aries.cdi.container.internal.model.ReferenceMatches;
 import org.apache.aries.cdi.container.internal.util.Conversions;
-import org.apache.aries.cdi.container.internal.util.Maps;
 import org.apache.aries.cdi.container.internal.util.Perms;
 import org.apache.aries.cdi.container.internal.util.SRs;
+import org.apache.aries.cdi.container.internal.util.ServiceReferenceMap;
 import org.apache.aries.cdi.container.internal.util.Syncro;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.cdi.ReferencePolicy;
@@ -47,6 +50,8 @@ public class ReferenceSync implements ServiceTrackerCustomizer<Object, Object> {
 		_builder = builder;
 		_templateDTO = (ExtendedReferenceTemplateDTO)_referenceDTO.template;
 		_log = _containerState.containerLogs().getLogger(getClass());
+		_delivery = _templateDTO.async ?
+			new BinderDelivery(_containerState, _componentInstanceDTO.ident() + ":" + _templateDTO.name) : null;
 	}
 
 	@Override
@@ -66,8 +71,11 @@ public class ReferenceSync implements ServiceTrackerCustomizer<Object, Object> {
 			requiresUpdate = false;
 		}
 
-		try (Syncro open = _syncro.open()) {
-			_referenceDTO.matches = SRs.from(_referenceDTO.serviceTracker.getServiceReferences(), reference);
+		// a full queue must block before the lock, callbacks may cause events of this reference
+		boolean reserved = reserve();
+
+		try (Probe probe = probe(reference, "add"); Syncro open = _syncro.open()) {
+			addMatch(reference);
 
 			if (collectionType == CollectionType.BINDER_SERVICE ||
 				collectionType == CollectionType.BINDER_REFERENCE ||
@@ -75,10 +83,13 @@ public class ReferenceSync implements ServiceTrackerCustomizer<Object, Object> {
 
 				requiresUpdate = false;
 
-				return _referenceDTO.binder.addingService(reference);
+				deliver(reserved, () -> _referenceDTO.binder.addingService(reference));
+				reserved = false;
+
+				return _referenceDTO.binder;
 			}
 			else if (collectionType == CollectionType.PROPERTIES) {
-				return Maps.of(reference.getProperties());
+				return new ServiceReferenceMap(reference);
 			}
 			else if (collectionType == CollectionType.REFERENCE) {
 				return reference;
@@ -89,13 +100,15 @@ public class ReferenceSync implements ServiceTrackerCustomizer<Object, Object> {
 			}
 			else if (collectionType == CollectionType.TUPLE) {
 				return new SimpleImmutableEntry<>(
-					Maps.of(reference.getProperties()),
+					new ServiceReferenceMap(reference),
 					_containerState.bundleContext().getService(reference));
 			}
 
 			return _containerState.bundleContext().getService(reference);
 		}
 		finally {
+			release(reserved);
+
 			if (requiresUpdate) {
 				InstanceActivator activator = _builder.setInstance(
 					_componentInstanceDTO
@@ -108,13 +121,23 @@ public class ReferenceSync implements ServiceTrackerCustomizer<Object, Object> {
 
 	@Override
 	public void modifiedService(ServiceReference<Object> reference, Object service) {
+		try (Probe probe = probe(reference, "modify")) {
+			modifiedService0(reference, service);
+		}
+	}
+
+	private void modifiedService0(ServiceReference<Object> reference, Object service) {
 		CollectionType collectionType = _templateDTO.collectionType;
 
 		if (collectionType == CollectionType.BINDER_SERVICE ||
 			collectionType == CollectionType.BINDER_REFERENCE ||
 			collectionType == CollectionType.BINDER_BEAN_SERVICE_OBJECTS) {
 
-			_referenceDTO.binder.modifiedService(reference);
+			try (Syncro open = _syncro.open()) {
+				addMatch(reference);
+			}
+
+			deliver(reserve(), () -> _referenceDTO.binder.modifiedService(reference));
 		}
 		else if (collectionType == CollectionType.PROPERTIES ||
 				collectionType == CollectionType.REFERENCE ||
@@ -139,8 +162,12 @@ public class ReferenceSync implements ServiceTrackerCustomizer<Object, Object> {
 			requiresUpdate = false;
 		}
 
-		try (Syncro open = _syncro.open()) {
-			_referenceDTO.matches.removeIf(d -> SRs.id(reference) == d.id);
+		boolean reserved = reserve();
+
+		try (Probe probe = probe(reference, "remove"); Syncro open = _syncro.open()) {
+			if (((ReferenceMatches)_referenceDTO.matches).remove(SRs.id(reference))) {
+				_containerState.dtoChanged();
+			}
 
 			if (collectionType == CollectionType.BINDER_SERVICE ||
 				collectionType == CollectionType.BINDER_REFERENCE ||
@@ -148,7 +175,8 @@ public class ReferenceSync implements ServiceTrackerCustomizer<Object, Object> {
 
 				requiresUpdate = false;
 
-				_referenceDTO.binder.removedService(reference);
+				deliver(reserved, () -> _referenceDTO.binder.removedService(reference));
+				reserved = false;
 
 				return;
 			}
@@ -167,6 +195,8 @@ public class ReferenceSync implements ServiceTrackerCustomizer<Object, Object> {
 			_containerState.bundleContext().ungetService(reference);
 		}
 		finally {
+			release(reserved);
+
 			if (requiresUpdate) {
 				InstanceActivator activator = _builder.setInstance(
 					_componentInstanceDTO
@@ -177,6 +207,16 @@ public class ReferenceSync implements ServiceTrackerCustomizer<Object, Object> {
 		}
 	}
 
+	/**
+	 * Drops the callbacks of an {@code @Async} binder which are still waiting,
+	 * called once the tracker of the reference is closed.
+	 */
+	public void close() {
+		if (_delivery != null) {
+			_delivery.close();
+		}
+	}
+
 	@Override
 	public String toString() {
 		if (_string == null) {
@@ -185,23 +225,46 @@ public class ReferenceSync implements ServiceTrackerCustomizer<Object, Object> {
 		return _string;
 	}
 
+	private void addMatch(ServiceReference<Object> reference) {
+		// only the changed reference is touched, matches stay sorted like the tracked references
+		_referenceDTO.matches.add(SRs.toDTO(reference));
+
+		_containerState.dtoChanged();
+	}
+
+	private void deliver(boolean reserved, Runnable callback) {
+		if (_delivery == null) {
+			callback.run();
+		}
+		else {
+			_delivery.execute(callback, reserved);
+		}
+	}
+
+	private void release(boolean reserved) {
+		if (_delivery != null) {
+			_delivery.release(reserved);
+		}
+	}
+
+	private boolean reserve() {
+		return (_delivery != null) && _delivery.reserve();
+	}
+
+	private Probe probe(ServiceReference<Object> reference, String action) {
+		return Events.reference(
+			_containerState.id(), _templateDTO.name, _templateDTO.collectionType.name(), action, SRs.id(reference));
+	}
+
 	private void updateStatically(InstanceActivator activator) {
-		_containerState.submit(
-			activator.closeOp(), activator::close
-		).then(
-			s -> _containerState.submit(
-				activator.openOp(), activator::open
-			).onFailure(
-				f -> {
-					_log.error(l -> l.error("CCR Error in OPEN for {} on {}", _componentInstanceDTO.ident(), _containerState.bundle(), f));
-
-					_containerState.error(f);
-				}
-			),
+		_containerState.rebind(
+			activator.closeOp(), activator::close,
+			activator.openOp(), activator::open
+		).onFailure(
 			f -> {
-				_log.error(l -> l.error("CCR Error in CLODE for {} on {}", _componentInstanceDTO.ident(), _containerState.bundle(), f.getFailure()));
+				_log.error(l -> l.error("CCR Error in REBIND for {} on {}", _componentInstanceDTO.ident(), _containerState.bundle(), f));
 
-				_containerState.error(f.getFailure());
+				_containerState.error(f);
 			}
 		);
 	}
@@ -209,6 +272,7 @@ public class ReferenceSync implements ServiceTrackerCustomizer<Object, Object> {
 	private final InstanceActivator.Builder<?> _builder;
 	private final ExtendedComponentInstanceDTO _componentInstanceDTO;
 	private final ContainerState _containerState;
+	private final BinderDelivery _delivery;
 	private final Logger _log;
 	private final ExtendedReferenceDTO _referenceDTO;
 	private volatile String _string;
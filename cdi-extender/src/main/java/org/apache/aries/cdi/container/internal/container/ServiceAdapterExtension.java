@@ -14,22 +14,27 @@
 
 package org.apache.aries.cdi.container.internal.container;
 
+import static java.lang.invoke.MethodType.methodType;
 import static java.util.Arrays.asList;
-import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toList;
 
 import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Map.Entry;
-import java.util.Optional;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.BiConsumer;
-import java.util.function.BiFunction;
-import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import javax.enterprise.event.Observes;
@@ -50,11 +55,23 @@ import org.apache.aries.cdi.extension.spi.annotation.AdaptedService;
 import org.osgi.service.cdi.annotations.Service;
 
 public class ServiceAdapterExtension implements Extension {
-	private static final Predicate<AnnotatedType<?>> ANNOTATED_TYPE_TRUE_PREDICATE = at -> true;
+	private static final MethodType OBSERVER_TYPE = methodType(void.class, BeanManager.class, ProcessPotentialService.class);
 
 	private boolean started;
 
-	private Collection<Entry<Predicate<AnnotatedType<?>>, BiConsumer<BeanManager, ProcessAnnotatedType<?>>>> forwardingObservers = new ArrayList<>();
+	// observers in registration order, the indexes point into this list
+	private final List<ForwardingObserver> forwardingObservers = new ArrayList<>();
+
+	// observers filtering on types, by each supertype of the filtered types (a type matches a filter on its subtypes)
+	private final Map<Class<?>, BitSet> observersByType = new HashMap<>();
+
+	// observers filtering only on annotations, by annotation type
+	private final Map<Class<?>, BitSet> observersByAnnotation = new HashMap<>();
+
+	// observers which can't be indexed, e.g. not filtering at all
+	private final BitSet unindexedObservers = new BitSet();
+
+	private boolean annotationFilters;
 
 	void capturePotentialServiceObservers(@Observes final RegisterExtension registerExtension) {
 		if (started) {
@@ -62,20 +79,20 @@ public class ServiceAdapterExtension implements Extension {
 		}
 
 		// declarative mode
-		forwardingObservers.addAll(forMethods(registerExtension.getExtension().getClass())
+		forMethods(registerExtension.getExtension().getClass())
 			.map(method -> new SimpleImmutableEntry<>(registerExtension.getExtension(), method))
 			.filter(method -> Stream.of(method.getValue().getParameters())
 				.anyMatch(p -> p.isAnnotationPresent(Observes.class) && p.getType() == ProcessPotentialService.class))
-			.map(e -> new SimpleImmutableEntry<>(toPredicate(e.getValue()), toConsumer(e.getValue(), e.getKey())))
-			.collect(toList()));
+			.map(e -> toObserver(e.getValue(), e.getKey()))
+			.collect(toList())
+			.forEach(this::addObserver);
 
 		// functional mode
-		forwardingObservers.addAll(registerExtension.getBuilders().stream()
-			.map(builder -> new SimpleImmutableEntry<>(
-				toPredicate(builder.getAnnotations(), builder.getTypes()),
-				(BiConsumer<BeanManager, ProcessAnnotatedType<?>>) (bm, pat) ->
-					builder.getConsumer().accept(bm, new ProcessPotentialService(pat))))
-			.collect(toList()));
+		registerExtension.getBuilders().stream()
+			.map(builder -> new ForwardingObserver(
+				builder.getAnnotations(), builder.getTypes(), builder.getConsumer()))
+			.collect(toList())
+			.forEach(this::addObserver);
 	}
 
 	<T> void forwardToObservers(@Observes final ProcessAnnotatedType<T> pat, final BeanManager beanManager) {
@@ -84,10 +101,28 @@ public class ServiceAdapterExtension implements Extension {
 			// simulate that but avoid a tons of events for all possible combinations of qualifiers which would be too slow
 			// beanManager.fireEvent(new ProcessPotentialService(pat), createAllPotentialQualifiers(pat));
 
-			forwardingObservers.stream()
-				.filter(predicateWithObserver -> predicateWithObserver.getKey().test(annotatedType))
-				.map(Entry::getValue)
-				.forEach(observer -> observer.accept(beanManager, pat));
+			final Set<Class<?>> annotations = annotationFilters ? annotationsOf(annotatedType) : null;
+
+			final BitSet candidates = (BitSet)unindexedObservers.clone();
+			final BitSet byType = observersByType.get(annotatedType.getJavaClass());
+			if (byType != null) {
+				candidates.or(byType);
+			}
+			if (annotations != null) {
+				for (final Class<?> annotation : annotations) {
+					final BitSet byAnnotation = observersByAnnotation.get(annotation);
+					if (byAnnotation != null) {
+						candidates.or(byAnnotation);
+					}
+				}
+			}
+
+			for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+				final ForwardingObserver observer = forwardingObservers.get(i);
+				if (observer.test(annotatedType.getJavaClass(), annotations)) {
+					observer.consumer.accept(beanManager, new ProcessPotentialService(pat));
+				}
+			}
 		}
 	}
 
@@ -118,89 +153,141 @@ public class ServiceAdapterExtension implements Extension {
 		started = true;
 	}
 
+	private void addObserver(final ForwardingObserver observer) {
+		final int index = forwardingObservers.size();
+		forwardingObservers.add(observer);
+
+		if (observer.annotations != null) {
+			annotationFilters = true;
+		}
+
+		if (observer.types != null) {
+			for (final Class<?> type : observer.types) {
+				observersByType.computeIfAbsent(type, k -> new BitSet()).set(index);
+			}
+		}
+		else if (observer.annotations == null || observer.annotations.stream().anyMatch(a -> !a.isAnnotation())) {
+			// e.g. filtering on Annotation itself, checked against every type
+			unindexedObservers.set(index);
+		}
+		else {
+			for (final Class<?> annotation : observer.annotations) {
+				observersByAnnotation.computeIfAbsent(annotation, k -> new BitSet()).set(index);
+			}
+		}
+	}
+
 	// using reflection since we are too early in CDI lifecycle to use CDI model
-	private Predicate<AnnotatedType<?>> toPredicate(final Method method) {
-		return Stream.of(method.getParameters())
+	private ForwardingObserver toObserver(final Method method, final Extension instance) {
+		final FiltersOn filters = Stream.of(method.getParameters())
 			.filter(parameter -> parameter.isAnnotationPresent(Observes.class))
 			.findFirst()
 			.map(parameter -> parameter.getAnnotation(FiltersOn.class))
-			.map(filters -> toPredicate(asList(filters.annotations()), asList(filters.types())))
-			.orElse(ANNOTATED_TYPE_TRUE_PREDICATE);
-	}
+			.orElse(null);
 
-	private Predicate<AnnotatedType<?>> toPredicate(final Collection<Class<?>> annotations, final Collection<Class<?>> types) {
-		return filterWithAnnotations(annotations).and(filterWithTypes(types));
+		return new ForwardingObserver(
+			filters == null ? null : asList(filters.annotations()),
+			filters == null ? null : asList(filters.types()),
+			toConsumer(method, instance));
 	}
 
-	private BiConsumer<BeanManager, ProcessAnnotatedType<?>> toConsumer(final Method method, final Extension instance) {
-		@SuppressWarnings("unchecked")
-		final BiFunction<BeanManager, ProcessAnnotatedType<?>, Object>[] argsFactory = Stream.of(method.getParameters())
-			.map(parameter -> lookupMethod(method, parameter))
-			.toArray(BiFunction[]::new);
+	private BiConsumer<BeanManager, ProcessPotentialService> toConsumer(final Method method, final Extension instance) {
+		final int[] reorder = Stream.of(method.getParameters())
+			.mapToInt(parameter -> lookupArgument(method, parameter))
+			.toArray();
 		if (!method.isAccessible()) {
 			method.setAccessible(true);
 		}
-		return (bm, pat) -> {
-			try {
-				method.invoke(
-					instance,
-					Stream.of(argsFactory).map(fn -> fn.apply(bm, pat)).toArray(Object[]::new));
+
+		final MethodHandle handle;
+		try {
+			MethodHandle unreflected = MethodHandles.lookup().unreflect(method);
+			if (!Modifier.isStatic(method.getModifiers())) {
+				unreflected = unreflected.bindTo(instance);
 			}
-			catch (final IllegalAccessException e) {
-				throw new IllegalStateException(e);
+			unreflected = unreflected.asType(unreflected.type().changeReturnType(void.class));
+			handle = MethodHandles.permuteArguments(unreflected, OBSERVER_TYPE, reorder);
+		}
+		catch (final IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+
+		return (bm, pps) -> {
+			try {
+				handle.invokeExact(bm, pps);
 			}
-			catch (final InvocationTargetException e) {
-				throw new IllegalStateException(e.getTargetException());
+			catch (final Throwable t) {
+				throw new IllegalStateException(t);
 			}
 		};
 	}
 
-	private BiFunction<BeanManager, ProcessAnnotatedType<?>, Object> lookupMethod(
-			final Method method, final Parameter parameter) {
+	// the position of the argument in OBSERVER_TYPE
+	private int lookupArgument(final Method method, final Parameter parameter) {
 		if (BeanManager.class == parameter.getType()) {
-			return (bm, pat) -> bm;
+			return 0;
 		}
 		if (ProcessPotentialService.class == parameter.getType()) {
-			return (bm, pat) -> new ProcessPotentialService(pat);
+			return 1;
 		}
 		throw new IllegalArgumentException(
 			"Unsupported type: " + parameter.getType() + " on " + method);
 	}
 
-	private Predicate<AnnotatedType<?>> filterWithTypes(final Collection<Class<?>> filterOnTypes) {
-		return Optional.of(filterOnTypes)
-			.filter(this::shouldNotIgnore)
-			.map(types -> (Predicate<AnnotatedType<?>>) annotatedType -> types.stream()
-				.anyMatch(t -> annotatedType.getJavaClass().isAssignableFrom(t)))
-			.orElse(ANNOTATED_TYPE_TRUE_PREDICATE);
+	// the annotation types, and their meta-annotation types, of the type and of its members
+	private Set<Class<?>> annotationsOf(final AnnotatedType<?> annotatedType) {
+		final Set<Class<?>> annotations = new HashSet<>();
+		addAnnotations(annotations, annotatedType);
+		for (final Annotated field : annotatedType.getFields()) {
+			addAnnotations(annotations, field);
+		}
+		Stream.concat( // (constructors + methods) x (self + parameters)
+			(Stream<? extends AnnotatedCallable<?>>)annotatedType.getMethods().stream(),
+			(Stream<? extends AnnotatedCallable<?>>)annotatedType.getConstructors().stream()
+		).forEach(callable -> {
+			addAnnotations(annotations, callable);
+			for (final Annotated parameter : callable.getParameters()) {
+				addAnnotations(annotations, parameter);
+			}
+		});
+		return annotations;
 	}
 
-	private Predicate<AnnotatedType<?>> filterWithAnnotations(final Collection<Class<?>> filterOnAnnotations) {
-		return Optional.of(filterOnAnnotations)
-			.filter(this::shouldNotIgnore)
-			.map(withAnnotations -> (Predicate<AnnotatedType<?>>) annotatedType -> Stream.of(
-					Stream.of(annotatedType.getAnnotations()), // class
-					annotatedType.getFields().stream().map(Annotated::getAnnotations), // fields
-					Stream.concat( // (constructors + methods) x (self + parameters)
-						(Stream<? extends AnnotatedCallable<?>>)annotatedType.getMethods().stream(),
-						(Stream<? extends AnnotatedCallable<?>>)annotatedType.getConstructors().stream()
-					).flatMap(m -> Stream.concat(
-						Stream.of(m.getAnnotations()),
-						m.getParameters().stream().map(Annotated::getAnnotations))
-					)
-				).flatMap(identity()).anyMatch(
-					annotations -> annotations.stream().anyMatch(annotation ->
-					withAnnotations.stream().anyMatch(withAnnotation -> Stream.concat(
-						Stream.of(annotation.annotationType()),
-						Stream.of(annotation.annotationType().getAnnotations()).map(Annotation::annotationType))
-						.anyMatch(withAnnotation::isAssignableFrom))
-					)
-				)
-			).orElse(ANNOTATED_TYPE_TRUE_PREDICATE);
+	private void addAnnotations(final Set<Class<?>> annotations, final Annotated annotated) {
+		for (final Annotation annotation : annotated.getAnnotations()) {
+			if (annotations.add(annotation.annotationType())) {
+				for (final Annotation metaAnnotation : annotation.annotationType().getAnnotations()) {
+					annotations.add(metaAnnotation.annotationType());
+				}
+			}
+		}
 	}
 
-	private boolean shouldNotIgnore(final Collection<Class<?>> annotations) {
-		return annotations.size() != 1 || FiltersOn.class != annotations.iterator().next();
+	// a filter of exactly {FiltersOn.class} is the "not set" default
+	private static boolean shouldNotIgnore(final Collection<? extends Class<?>> filter) {
+		return filter.size() != 1 || FiltersOn.class != filter.iterator().next();
+	}
+
+	// the filtered types and all their supertypes
+	private static Set<Class<?>> supertypesOf(final Collection<Class<?>> types) {
+		final Set<Class<?>> supertypes = new HashSet<>();
+		for (final Class<?> type : types) {
+			addSupertypes(supertypes, type);
+		}
+		return supertypes;
+	}
+
+	private static void addSupertypes(final Set<Class<?>> supertypes, final Class<?> type) {
+		if (type == null || !supertypes.add(type)) {
+			return;
+		}
+		addSupertypes(supertypes, type.getSuperclass());
+		for (final Class<?> iface : type.getInterfaces()) {
+			addSupertypes(supertypes, iface);
+		}
+		if (type.isInterface()) {
+			supertypes.add(Object.class);
+		}
 	}
 
 	private Stream<Method> forMethods(final Class<?> clazz) {
@@ -209,5 +296,31 @@ public class ServiceAdapterExtension implements Extension {
 			Stream.concat(Stream.of(clazz.getDeclaredMethods()), forMethods(clazz.getSuperclass()));
 	}
 
-}
+	private static class ForwardingObserver {
+
+		// null when not filtering
+		private final Set<Class<?>> annotations;
+		private final Set<Class<?>> types;
+		private final BiConsumer<BeanManager, ProcessPotentialService> consumer;
+
+		private ForwardingObserver(
+			final Collection<? extends Class<?>> annotations, final Collection<Class<?>> types,
+			final BiConsumer<BeanManager, ProcessPotentialService> consumer) {
+
+			this.annotations = annotations != null && shouldNotIgnore(annotations) ? new HashSet<>(annotations) : null;
+			this.types = types != null && shouldNotIgnore(types) ? supertypesOf(types) : null;
+			this.consumer = consumer;
+		}
 
+		private boolean test(final Class<?> javaClass, final Set<Class<?>> typeAnnotations) {
+			if (types != null && !types.contains(javaClass)) {
+				return false;
+			}
+			return annotations == null || annotations.stream().anyMatch(annotation ->
+				typeAnnotations.contains(annotation) ||
+					(!annotation.isAnnotation() && typeAnnotations.stream().anyMatch(annotation::isAssignableFrom)));
+		}
+
+	}
+
+}
@@ -0,0 +1,62 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.jfr;
+
+/**
+ * Java Flight Recorder events of the CDI Component Runtime. The events are
+ * only created while a recording enables them, otherwise {@link Probe#NOOP}
+ * is returned. When the {@code jdk.jfr} package isn't available, e.g. when
+ * the framework doesn't export it, no event is ever created.
+ */
+public class Events {
+
+	private Events() {
+		// no instances
+	}
+
+	public static Probe activation(String container, String component, String mode) {
+		return AVAILABLE ? JfrEvents.activation(container, component, mode) : Probe.NOOP;
+	}
+
+	public static Probe configuration(String container, String component, String pid, String factoryPid, String type) {
+		return AVAILABLE ? JfrEvents.configuration(container, component, pid, factoryPid, type) : Probe.NOOP;
+	}
+
+	public static Probe containerBootstrap(String container, String mode, int beans, int extensions) {
+		return AVAILABLE ? JfrEvents.containerBootstrap(container, mode, beans, extensions) : Probe.NOOP;
+	}
+
+	public static Probe discovery(String container, int beans) {
+		return AVAILABLE ? JfrEvents.discovery(container, beans) : Probe.NOOP;
+	}
+
+	public static Probe reference(String container, String reference, String collectionType, String action, long serviceId) {
+		return AVAILABLE ? JfrEvents.reference(container, reference, collectionType, action, serviceId) : Probe.NOOP;
+	}
+
+	private static boolean available() {
+		try {
+			Class.forName("jdk.jfr.Event", false, Events.class.getClassLoader());
+
+			return true;
+		}
+		catch (Throwable t) {
+			return false;
+		}
+	}
+
+	static final boolean AVAILABLE = available();
+
+}
@@ -0,0 +1,216 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Only loaded when {@code jdk.jfr} is available.
+ */
+class JfrEvents {
+
+	static Probe activation(String container, String component, String mode) {
+		ActivationEvent event = new ActivationEvent();
+
+		if (!event.isEnabled()) {
+			return Probe.NOOP;
+		}
+
+		event.container = container;
+		event.component = component;
+		event.mode = mode;
+
+		return new EventProbe(event);
+	}
+
+	static Probe configuration(String container, String component, String pid, String factoryPid, String type) {
+		ConfigurationEvent event = new ConfigurationEvent();
+
+		if (!event.isEnabled()) {
+			return Probe.NOOP;
+		}
+
+		event.container = container;
+		event.component = component;
+		event.pid = pid;
+		event.factoryPid = factoryPid;
+		event.type = type;
+
+		return new EventProbe(event);
+	}
+
+	static Probe containerBootstrap(String container, String mode, int beans, int extensions) {
+		ContainerBootstrapEvent event = new ContainerBootstrapEvent();
+
+		if (!event.isEnabled()) {
+			return Probe.NOOP;
+		}
+
+		event.container = container;
+		event.mode = mode;
+		event.beans = beans;
+		event.extensions = extensions;
+
+		return new EventProbe(event);
+	}
+
+	static Probe discovery(String container, int beans) {
+		DiscoveryEvent event = new DiscoveryEvent();
+
+		if (!event.isEnabled()) {
+			return Probe.NOOP;
+		}
+
+		event.container = container;
+		event.beans = beans;
+
+		return new EventProbe(event);
+	}
+
+	static Probe reference(String container, String reference, String collectionType, String action, long serviceId) {
+		ReferenceEvent event = new ReferenceEvent();
+
+		if (!event.isEnabled()) {
+			return Probe.NOOP;
+		}
+
+		event.container = container;
+		event.reference = reference;
+		event.collectionType = collectionType;
+		event.action = action;
+		event.serviceId = serviceId;
+
+		return new EventProbe(event);
+	}
+
+	private static class EventProbe implements Probe {
+
+		EventProbe(Event event) {
+			_event = event;
+			_event.begin();
+		}
+
+		@Override
+		public void close() {
+			// commit ends the event and applies the threshold of the recording
+			_event.commit();
+		}
+
+		private final Event _event;
+
+	}
+
+	@Category("Aries CDI")
+	@Description("A component instance activated or deactivated")
+	@Label("Component Activation")
+	@Name("org.apache.aries.cdi.Activation")
+	static class ActivationEvent extends Event {
+
+		@Label("Container")
+		String container;
+
+		@Label("Component Instance")
+		String component;
+
+		@Label("Mode")
+		String mode;
+
+	}
+
+	@Category("Aries CDI")
+	@Description("A configuration event handled for a component")
+	@Label("Configuration Event")
+	@Name("org.apache.aries.cdi.Configuration")
+	static class ConfigurationEvent extends Event {
+
+		@Label("Container")
+		String container;
+
+		@Label("Component")
+		String component;
+
+		@Label("PID")
+		String pid;
+
+		@Label("Factory PID")
+		String factoryPid;
+
+		@Label("Type")
+		String type;
+
+	}
+
+	@Category("Aries CDI")
+	@Description("A CDI container started or stopped")
+	@Label("Container Bootstrap")
+	@Name("org.apache.aries.cdi.ContainerBootstrap")
+	static class ContainerBootstrapEvent extends Event {
+
+		@Label("Container")
+		String container;
+
+		@Label("Mode")
+		String mode;
+
+		@Label("Beans")
+		int beans;
+
+		@Label("Extensions")
+		int extensions;
+
+	}
+
+	@Category("Aries CDI")
+	@Description("The OSGi beans of a CDI bundle discovered")
+	@Label("Discovery")
+	@Name("org.apache.aries.cdi.Discovery")
+	static class DiscoveryEvent extends Event {
+
+		@Label("Container")
+		String container;
+
+		@Label("Beans")
+		int beans;
+
+	}
+
+	@Category("Aries CDI")
+	@Description("A service added to, modified in or removed from a reference")
+	@Label("Reference")
+	@Name("org.apache.aries.cdi.Reference")
+	static class ReferenceEvent extends Event {
+
+		@Label("Container")
+		String container;
+
+		@Label("Reference")
+		String reference;
+
+		@Label("Collection Type")
+		String collectionType;
+
+		@Label("Action")
+		String action;
+
+		@Label("Service Id")
+		long serviceId;
+
+	}
+
+}
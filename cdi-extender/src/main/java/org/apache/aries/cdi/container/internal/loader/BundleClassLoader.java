@@ -19,9 +19,16 @@ import static java.util.Objects.requireNonNull;
 import java.io.IOException;
 import java.net.URL;
 import java.security.ProtectionDomain;
+import java.util.AbstractList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -30,11 +37,24 @@ import java.util.function.Predicate;
 
 import org.apache.aries.cdi.spi.loader.SpiLoader;
 import org.osgi.framework.Bundle;
+import org.osgi.framework.namespace.PackageNamespace;
+import org.osgi.framework.wiring.BundleRevision;
+import org.osgi.framework.wiring.BundleWiring;
+import org.osgi.resource.Requirement;
 
+/**
+ * Loads classes and resources from an ordered list of bundles. To avoid
+ * probing every bundle again (and throwing a {@link ClassNotFoundException}
+ * for each miss) names no bundle could load are remembered. They are
+ * forgotten whenever the list of bundles changes or any of the bundles is
+ * rewired, and are not remembered at all while one of the bundles can
+ * dynamically import packages.
+ */
 public final class BundleClassLoader extends SpiLoader {
 
 	public BundleClassLoader(Bundle cdiBundle, Bundle extenderBundle) {
 		_bundle = cdiBundle;
+		_extenderBundle = extenderBundle;
 		_bundles.add(requireNonNull(cdiBundle));
 		_bundles.add(requireNonNull(extenderBundle));
 	}
@@ -92,6 +112,17 @@ public final class BundleClassLoader extends SpiLoader {
 		return _bundles;
 	}
 
+	/**
+	 * Removes the bundles added since the loader was created so that it can
+	 * serve another bootstrap of the same container. The classes loaded or
+	 * defined so far are kept.
+	 */
+	public void reset() {
+		_bundles.clear();
+		_bundles.add(_bundle);
+		_bundles.add(_extenderBundle);
+	}
+
 	@Override
 	public URL getResource(String name) {
 		return findResource(name);
@@ -127,15 +158,24 @@ public final class BundleClassLoader extends SpiLoader {
 		Object classLoadingLock = getClassLoadingLock(name);
 
 		synchronized (classLoadingLock) {
-			for (Bundle bundle : getBundles()) {
-				if ((bundle.getState() & Bundle.UNINSTALLED) == Bundle.UNINSTALLED) {
-					continue;
+			boolean remember = wiringsUnchanged();
+			long version = _version;
+
+			if (!remember || !isMiss(name)) {
+				for (Bundle bundle : getBundles()) {
+					if ((bundle.getState() & Bundle.UNINSTALLED) == Bundle.UNINSTALLED) {
+						continue;
+					}
+					try {
+						return bundle.loadClass(name);
+					}
+					catch (ClassNotFoundException cnfe) {
+						continue;
+					}
 				}
-				try {
-					return bundle.loadClass(name);
-				}
-				catch (ClassNotFoundException cnfe) {
-					continue;
+
+				if (remember) {
+					addMiss(name, version);
 				}
 			}
 
@@ -156,6 +196,11 @@ public final class BundleClassLoader extends SpiLoader {
 		synchronized (classLoadingLock) {
 			Class<?> clazz = _cache.get(name);
 
+			if (clazz == null) {
+				// classes defined directly, e.g. by Weld, aren't cached
+				clazz = findLoadedClass(name);
+			}
+
 			if (clazz == null) {
 				clazz = findClass(name);
 
@@ -190,6 +235,64 @@ public final class BundleClassLoader extends SpiLoader {
 		return existing;
 	}
 
+	/**
+	 * @return the number of class names known to be missing from all bundles
+	 */
+	public int misses() {
+		synchronized (_misses) {
+			return _misses.size();
+		}
+	}
+
+	private void invalidate() {
+		synchronized (_misses) {
+			_version++;
+			_misses.clear();
+			_wirings = null;
+		}
+	}
+
+	private boolean isMiss(String name) {
+		synchronized (_misses) {
+			return _misses.contains(name);
+		}
+	}
+
+	private void addMiss(String name, long version) {
+		synchronized (_misses) {
+			// the bundles changed during the lookup
+			if (version != _version) {
+				return;
+			}
+
+			_misses.add(name);
+		}
+	}
+
+	/**
+	 * @return true if the misses remembered so far are still valid, i.e. no
+	 *         bundle was rewired by a refresh, and if misses may be remembered
+	 *         at all
+	 */
+	private boolean wiringsUnchanged() {
+		List<Bundle> bundles = getBundles();
+		Wirings wirings = _wirings;
+
+		if ((wirings != null) && wirings.matches(bundles)) {
+			return !wirings.dynamic;
+		}
+
+		wirings = new Wirings(bundles);
+
+		synchronized (_misses) {
+			_version++;
+			_misses.clear();
+			_wirings = wirings;
+		}
+
+		return !wirings.dynamic;
+	}
+
 	private void definePackageFor(final Package model, final ProtectionDomain protectionDomain) {
 		if (model == null) {
 			return;
@@ -221,12 +324,201 @@ public final class BundleClassLoader extends SpiLoader {
 		}
 	}
 
+	private static final int MAX_MISSES = 4096;
+
 	private final Bundle _bundle;
-	private final List<Bundle> _bundles = new CopyOnWriteArrayList<>();
+	private final Bundle _extenderBundle;
+	private final List<Bundle> _bundles = new BundleList();
 	private final ConcurrentMap<String, Class<?>> _cache = new ConcurrentHashMap<>();
+	private final Set<String> _misses = Collections.newSetFromMap(new LinkedHashMap<String, Boolean>() {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+			return size() > MAX_MISSES;
+		}
+
+	});
+	private volatile Wirings _wirings;
+	private volatile long _version;
 	private volatile Predicate<String> classPredicate;
 	private volatile Function<String, Class<?>> classFunction;
 	private volatile Function<String, Enumeration<URL>> resourceFunction;
 	private volatile Predicate<String> resourcePredicate;
 
+	/**
+	 * The bundles are handed out to the container initializers which add to
+	 * them, every change resets the lookup caches.
+	 */
+	private class BundleList extends AbstractList<Bundle> implements RandomAccess {
+
+		@Override
+		public boolean add(Bundle bundle) {
+			try {
+				return _delegate.add(bundle);
+			}
+			finally {
+				invalidate();
+			}
+		}
+
+		@Override
+		public void add(int index, Bundle bundle) {
+			_delegate.add(index, bundle);
+
+			invalidate();
+		}
+
+		@Override
+		public void clear() {
+			_delegate.clear();
+
+			invalidate();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return _delegate.contains(o);
+		}
+
+		@Override
+		public Bundle get(int index) {
+			return _delegate.get(index);
+		}
+
+		@Override
+		public Iterator<Bundle> iterator() {
+			return _delegate.iterator();
+		}
+
+		@Override
+		public Bundle remove(int index) {
+			try {
+				return _delegate.remove(index);
+			}
+			finally {
+				invalidate();
+			}
+		}
+
+		@Override
+		public Bundle set(int index, Bundle bundle) {
+			try {
+				return _delegate.set(index, bundle);
+			}
+			finally {
+				invalidate();
+			}
+		}
+
+		@Override
+		public int size() {
+			return _delegate.size();
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			try {
+				return _delegate.remove(o);
+			}
+			finally {
+				invalidate();
+			}
+		}
+
+		@Override
+		public boolean removeAll(Collection<?> c) {
+			try {
+				return _delegate.removeAll(c);
+			}
+			finally {
+				invalidate();
+			}
+		}
+
+		@Override
+		public boolean removeIf(Predicate<? super Bundle> filter) {
+			try {
+				return _delegate.removeIf(filter);
+			}
+			finally {
+				invalidate();
+			}
+		}
+
+		@Override
+		public boolean retainAll(Collection<?> c) {
+			try {
+				return _delegate.retainAll(c);
+			}
+			finally {
+				invalidate();
+			}
+		}
+
+		private final List<Bundle> _delegate = new CopyOnWriteArrayList<>();
+
+	}
+
+	/**
+	 * The wirings of the bundles the misses were looked up against. A refresh
+	 * replaces the wiring of a bundle, and a dynamic import can wire a new
+	 * package on any later lookup.
+	 */
+	private static class Wirings {
+
+		Wirings(List<Bundle> bundles) {
+			_wirings = new BundleWiring[bundles.size()];
+
+			boolean dynamic = false;
+
+			for (int i = 0; i < _wirings.length; i++) {
+				BundleWiring wiring = bundles.get(i).adapt(BundleWiring.class);
+
+				_wirings[i] = wiring;
+
+				if ((wiring != null) && !dynamic) {
+					dynamic = isDynamic(wiring.getRevision());
+				}
+			}
+
+			this.dynamic = dynamic;
+		}
+
+		boolean matches(List<Bundle> bundles) {
+			if (bundles.size() != _wirings.length) {
+				return false;
+			}
+
+			for (int i = 0; i < _wirings.length; i++) {
+				if (bundles.get(i).adapt(BundleWiring.class) != _wirings[i]) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		private static boolean isDynamic(BundleRevision revision) {
+			if (revision == null) {
+				return false;
+			}
+
+			for (Requirement requirement : revision.getRequirements(PackageNamespace.PACKAGE_NAMESPACE)) {
+				if (PackageNamespace.RESOLUTION_DYNAMIC.equals(
+						requirement.getDirectives().get(PackageNamespace.REQUIREMENT_RESOLUTION_DIRECTIVE))) {
+
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		final boolean dynamic;
+		private final BundleWiring[] _wirings;
+
+	}
+
 }
\ No newline at end of file
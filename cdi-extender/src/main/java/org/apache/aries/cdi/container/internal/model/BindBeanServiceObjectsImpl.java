@@ -15,20 +15,24 @@
 package org.apache.aries.cdi.container.internal.model;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 import org.apache.aries.cdi.container.internal.container.BeanServiceObjectsImpl;
 import org.apache.aries.cdi.container.internal.container.ContainerState;
+import org.apache.aries.cdi.container.internal.model.BinderBatch.Kind;
+import org.apache.aries.cdi.spi.reference.BatchBindBeanServiceObjects;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceObjects;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.cdi.reference.BeanServiceObjects;
-import org.osgi.service.cdi.reference.BindBeanServiceObjects;
 import org.osgi.service.log.Logger;
 
-public class BindBeanServiceObjectsImpl<T> implements Binder<T>, BindBeanServiceObjects<T> {
+public class BindBeanServiceObjectsImpl<T> implements Binder<T>, BatchBindBeanServiceObjects<T> {
 
 	private final ContainerState _containerState;
 	private final Logger _log;
@@ -40,10 +44,13 @@ public class BindBeanServiceObjectsImpl<T> implements Binder<T>, BindBeanService
 	private volatile Optional<Consumer<BeanServiceObjects<T>>> onRemove = Optional.empty();
 
 	private volatile BeanServiceObjects<T> serviceObjects;
+	private final Map<ServiceReference<T>, BeanServiceObjects<T>> _serviceObjects = new ConcurrentHashMap<>();
+	private final BinderBatch<BeanServiceObjects<T>> _batch;
 
 	public BindBeanServiceObjectsImpl(ContainerState containerState) {
 		_containerState = containerState;
 		_log = _containerState.containerLogs().getLogger(getClass());
+		_batch = new BinderBatch<>(containerState, _log, this);
 	}
 
 	@Override
@@ -54,7 +61,12 @@ public class BindBeanServiceObjectsImpl<T> implements Binder<T>, BindBeanService
 		}
 
 		BundleContext bundleContext = _containerState.bundleContext();
-		serviceObjects = new BeanServiceObjectsImpl<T>(bundleContext.getServiceObjects(reference));
+		ServiceObjects<T> so = bundleContext.getServiceObjects(reference);
+		serviceObjects = new BeanServiceObjectsImpl<T>(so);
+
+		if (so != null) {
+			_serviceObjects.put(reference, serviceObjects);
+		}
 
 		onAdding.ifPresent(
 			c -> {
@@ -67,6 +79,11 @@ public class BindBeanServiceObjectsImpl<T> implements Binder<T>, BindBeanService
 			}
 		);
 
+		// the service may be gone already, batches only carry services which were found
+		if (so != null) {
+			_batch.add(Kind.ADDING, serviceObjects);
+		}
+
 		return this;
 	}
 
@@ -87,6 +104,12 @@ public class BindBeanServiceObjectsImpl<T> implements Binder<T>, BindBeanService
 			}
 		);
 
+		BeanServiceObjects<T> modified = _serviceObjects.get(reference);
+
+		if (modified != null) {
+			_batch.add(Kind.MODIFIED, modified);
+		}
+
 		return this;
 	}
 
@@ -108,18 +131,35 @@ public class BindBeanServiceObjectsImpl<T> implements Binder<T>, BindBeanService
 			}
 		);
 
+		BeanServiceObjects<T> removed = _serviceObjects.remove(reference);
+
+		if (removed != null) {
+			_batch.add(Kind.REMOVED, removed);
+		}
+
 		return this;
 	}
 
+	@Override
+	public void close() {
+		_batch.close();
+	}
+
 	@Override
 	public void bind() {
-		_enqueue.set(false);
-		_queue.removeIf(
-			reference -> {
-				addingService(reference);
-				return true;
-			}
-		);
+		_batch.hold();
+		try {
+			_enqueue.set(false);
+			_queue.removeIf(
+				reference -> {
+					addingService(reference);
+					return true;
+				}
+			);
+		}
+		finally {
+			_batch.release();
+		}
 	}
 
 	@Override
@@ -140,4 +180,28 @@ public class BindBeanServiceObjectsImpl<T> implements Binder<T>, BindBeanService
 		return this;
 	}
 
+	@Override
+	public BindBeanServiceObjectsImpl<T> addingAll(Consumer<List<BeanServiceObjects<T>>> action) {
+		_batch.consumer(Kind.ADDING, action);
+		return this;
+	}
+
+	@Override
+	public BindBeanServiceObjectsImpl<T> modifiedAll(Consumer<List<BeanServiceObjects<T>>> action) {
+		_batch.consumer(Kind.MODIFIED, action);
+		return this;
+	}
+
+	@Override
+	public BindBeanServiceObjectsImpl<T> removedAll(Consumer<List<BeanServiceObjects<T>>> action) {
+		_batch.consumer(Kind.REMOVED, action);
+		return this;
+	}
+
+	@Override
+	public BindBeanServiceObjectsImpl<T> batch(int maxSize, long latency) {
+		_batch.configure(maxSize, latency);
+		return this;
+	}
+
 }
\ No newline at end of file
@@ -17,19 +17,21 @@ package org.apache.aries.cdi.container.internal.model;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import org.apache.aries.cdi.container.internal.container.ContainerState;
-import org.apache.aries.cdi.container.internal.util.Maps;
+import org.apache.aries.cdi.container.internal.model.BinderBatch.Kind;
+import org.apache.aries.cdi.container.internal.util.ServiceReferenceMap;
+import org.apache.aries.cdi.spi.reference.BatchBindService;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceReference;
-import org.osgi.service.cdi.reference.BindService;
 import org.osgi.service.log.Logger;
 
-public class BindServiceImpl<T> implements Binder<T>, BindService<T> {
+public class BindServiceImpl<T> implements Binder<T>, BatchBindService<T> {
 
 	private final ContainerState _containerState;
 	private final Logger _log;
@@ -44,10 +46,13 @@ public class BindServiceImpl<T> implements Binder<T>, BindService<T> {
 	private volatile Optional<BiConsumer<T, Map<String, Object>>> onRemoveBi = Optional.empty();
 
 	private volatile T service;
+	private final Map<ServiceReference<T>, T> _services = new ConcurrentHashMap<>();
+	private final BinderBatch<T> _batch;
 
 	public BindServiceImpl(ContainerState containerState) {
 		_containerState = containerState;
 		_log = _containerState.containerLogs().getLogger(getClass());
+		_batch = new BinderBatch<>(containerState, _log, this);
 	}
 
 	@Override
@@ -59,7 +64,11 @@ public class BindServiceImpl<T> implements Binder<T>, BindService<T> {
 
 		BundleContext bundleContext = _containerState.bundleContext();
 		service = bundleContext.getService(reference);
-		Map<String, Object> map = Maps.of(reference.getProperties());
+		Map<String, Object> map = new ServiceReferenceMap(reference);
+
+		if (service != null) {
+			_services.put(reference, service);
+		}
 
 		onAdding.ifPresent(
 			c -> {
@@ -82,6 +91,11 @@ public class BindServiceImpl<T> implements Binder<T>, BindService<T> {
 			}
 		);
 
+		// the service may be gone already, batches only carry services which were found
+		if (service != null) {
+			_batch.add(Kind.ADDING, service);
+		}
+
 		return this;
 	}
 
@@ -91,7 +105,7 @@ public class BindServiceImpl<T> implements Binder<T>, BindService<T> {
 			return this; // i.e. do nothing
 		}
 
-		Map<String, Object> map = Maps.of(reference.getProperties());
+		Map<String, Object> map = new ServiceReferenceMap(reference);
 
 		onUpdate.ifPresent(
 			c -> {
@@ -114,6 +128,12 @@ public class BindServiceImpl<T> implements Binder<T>, BindService<T> {
 			}
 		);
 
+		T modified = _services.get(reference);
+
+		if (modified != null) {
+			_batch.add(Kind.MODIFIED, modified);
+		}
+
 		return this;
 	}
 
@@ -124,7 +144,7 @@ public class BindServiceImpl<T> implements Binder<T>, BindService<T> {
 			return this;
 		}
 
-		Map<String, Object> map = Maps.of(reference.getProperties());
+		Map<String, Object> map = new ServiceReferenceMap(reference);
 
 		onRemove.ifPresent(
 			c -> {
@@ -147,18 +167,35 @@ public class BindServiceImpl<T> implements Binder<T>, BindService<T> {
 			}
 		);
 
+		T removed = _services.remove(reference);
+
+		if (removed != null) {
+			_batch.add(Kind.REMOVED, removed);
+		}
+
 		return this;
 	}
 
+	@Override
+	public void close() {
+		_batch.close();
+	}
+
 	@Override
 	public void bind() {
-		_enqueue.set(false);
-		_queue.removeIf(
-			reference -> {
-				addingService(reference);
-				return true;
-			}
-		);
+		_batch.hold();
+		try {
+			_enqueue.set(false);
+			_queue.removeIf(
+				reference -> {
+					addingService(reference);
+					return true;
+				}
+			);
+		}
+		finally {
+			_batch.release();
+		}
 	}
 
 	@Override
@@ -197,4 +234,28 @@ public class BindServiceImpl<T> implements Binder<T>, BindService<T> {
 		return this;
 	}
 
+	@Override
+	public BindServiceImpl<T> addingAll(Consumer<List<T>> action) {
+		_batch.consumer(Kind.ADDING, action);
+		return this;
+	}
+
+	@Override
+	public BindServiceImpl<T> modifiedAll(Consumer<List<T>> action) {
+		_batch.consumer(Kind.MODIFIED, action);
+		return this;
+	}
+
+	@Override
+	public BindServiceImpl<T> removedAll(Consumer<List<T>> action) {
+		_batch.consumer(Kind.REMOVED, action);
+		return this;
+	}
+
+	@Override
+	public BindServiceImpl<T> batch(int maxSize, long latency) {
+		_batch.configure(maxSize, latency);
+		return this;
+	}
+
 }
\ No newline at end of file
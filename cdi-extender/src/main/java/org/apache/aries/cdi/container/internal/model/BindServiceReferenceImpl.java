@@ -22,12 +22,13 @@ import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import org.apache.aries.cdi.container.internal.container.ContainerState;
+import org.apache.aries.cdi.container.internal.model.BinderBatch.Kind;
+import org.apache.aries.cdi.spi.reference.BatchBindServiceReference;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceReference;
-import org.osgi.service.cdi.reference.BindServiceReference;
 import org.osgi.service.log.Logger;
 
-public class BindServiceReferenceImpl<T> implements Binder<T>, BindServiceReference<T> {
+public class BindServiceReferenceImpl<T> implements Binder<T>, BatchBindServiceReference<T> {
 
 	private final ContainerState _containerState;
 	private final Logger _log;
@@ -42,10 +43,12 @@ public class BindServiceReferenceImpl<T> implements Binder<T>, BindServiceRefere
 	private volatile Optional<BiConsumer<ServiceReference<T>, T>> onRemoveBi = Optional.empty();
 
 	private volatile T service;
+	private final BinderBatch<ServiceReference<T>> _batch;
 
 	public BindServiceReferenceImpl(ContainerState containerState) {
 		_containerState = containerState;
 		_log = _containerState.containerLogs().getLogger(getClass());
+		_batch = new BinderBatch<>(containerState, _log, this);
 	}
 
 	@Override
@@ -79,6 +82,8 @@ public class BindServiceReferenceImpl<T> implements Binder<T>, BindServiceRefere
 			}
 		);
 
+		_batch.add(Kind.ADDING, reference);
+
 		return this;
 	}
 
@@ -109,6 +114,8 @@ public class BindServiceReferenceImpl<T> implements Binder<T>, BindServiceRefere
 			}
 		);
 
+		_batch.add(Kind.MODIFIED, reference);
+
 		return this;
 	}
 
@@ -140,18 +147,31 @@ public class BindServiceReferenceImpl<T> implements Binder<T>, BindServiceRefere
 			}
 		);
 
+		_batch.add(Kind.REMOVED, reference);
+
 		return this;
 	}
 
+	@Override
+	public void close() {
+		_batch.close();
+	}
+
 	@Override
 	public void bind() {
-		_enqueue.set(false);
-		_queue.removeIf(
-			reference -> {
-				addingService(reference);
-				return true;
-			}
-		);
+		_batch.hold();
+		try {
+			_enqueue.set(false);
+			_queue.removeIf(
+				reference -> {
+					addingService(reference);
+					return true;
+				}
+			);
+		}
+		finally {
+			_batch.release();
+		}
 	}
 
 	@Override
@@ -190,4 +210,28 @@ public class BindServiceReferenceImpl<T> implements Binder<T>, BindServiceRefere
 		return this;
 	}
 
+	@Override
+	public BindServiceReferenceImpl<T> addingAll(Consumer<List<ServiceReference<T>>> action) {
+		_batch.consumer(Kind.ADDING, action);
+		return this;
+	}
+
+	@Override
+	public BindServiceReferenceImpl<T> modifiedAll(Consumer<List<ServiceReference<T>>> action) {
+		_batch.consumer(Kind.MODIFIED, action);
+		return this;
+	}
+
+	@Override
+	public BindServiceReferenceImpl<T> removedAll(Consumer<List<ServiceReference<T>>> action) {
+		_batch.consumer(Kind.REMOVED, action);
+		return this;
+	}
+
+	@Override
+	public BindServiceReferenceImpl<T> batch(int maxSize, long latency) {
+		_batch.configure(maxSize, latency);
+		return this;
+	}
+
 }
\ No newline at end of file
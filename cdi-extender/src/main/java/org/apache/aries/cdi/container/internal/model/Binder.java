@@ -22,4 +22,10 @@ public interface Binder<T> {
 	public Binder<T> modifiedService(ServiceReference<T> reference);
 	public Binder<T> removedService(ServiceReference<T> reference);
 
+	/**
+	 * Called once the component instance of the binder goes away, the pending
+	 * batch callbacks are dropped.
+	 */
+	public void close();
+
 }
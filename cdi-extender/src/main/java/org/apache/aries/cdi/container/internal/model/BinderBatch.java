@@ -0,0 +1,216 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.model;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.apache.aries.cdi.container.internal.container.ContainerState;
+import org.apache.aries.cdi.container.internal.util.Syncro;
+import org.osgi.service.log.Logger;
+
+/**
+ * Collects the changes seen by a binder and hands them to its batch callbacks.
+ * Consecutive changes of the same kind are delivered together, at most
+ * {@code maxSize} at a time. A change waits at most {@code latency}
+ * milliseconds for more changes, unless the changes are held, e.g. while the
+ * binder delivers the services found when it was bound.
+ * <p>
+ * The callbacks are never called while holding the lock of the batch and one
+ * thread at a time delivers the batches in order. Changes waiting for the
+ * latency are delivered on the binder executor of the container, not on its
+ * lane, and are dropped once the batch is closed.
+ */
+public class BinderBatch<E> {
+
+	/**
+	 * Framework property holding the default maximum number of changes
+	 * delivered at once to the batch callbacks of a binder.
+	 */
+	public static final String SIZE = "aries.cdi.extender.binder.batch.size";
+
+	public static final int DEFAULT_SIZE = 100;
+
+	/**
+	 * Framework property holding the default time in milliseconds during which
+	 * the changes seen by a binder are collected before being delivered to its
+	 * batch callbacks.
+	 */
+	public static final String LATENCY = "aries.cdi.extender.binder.batch.latency";
+
+	public static final long DEFAULT_LATENCY = 10;
+
+	public enum Kind {
+		ADDING, MODIFIED, REMOVED
+	}
+
+	public BinderBatch(ContainerState containerState, Logger log, Object binder) {
+		_containerState = containerState;
+		_log = log;
+		_binder = binder;
+		_maxSize = containerState.binderBatchSize();
+		_latency = containerState.binderBatchLatency();
+	}
+
+	public void add(Kind kind, E element) {
+		if (_consumers.isEmpty()) {
+			return;
+		}
+
+		try (Syncro open = _syncro.open()) {
+			if (_closed) {
+				return;
+			}
+
+			_pending.add(new SimpleImmutableEntry<>(kind, element));
+
+			if ((_pending.size() < _maxSize) && (_held || (_latency > 0))) {
+				if (!_held && !_scheduled) {
+					_scheduled = true;
+
+					_containerState.binderPromiseFactory().resolved(null).delay(_latency).onResolve(this::flush);
+				}
+
+				return;
+			}
+		}
+
+		flush();
+	}
+
+	/**
+	 * Drops the pending changes, including those waiting for the latency, and
+	 * ignores the changes added from now on.
+	 */
+	public void close() {
+		try (Syncro open = _syncro.open()) {
+			_closed = true;
+
+			_pending.clear();
+		}
+	}
+
+	public void configure(int maxSize, long latency) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("maxSize must be at least 1: " + maxSize);
+		}
+		if (latency < 0) {
+			throw new IllegalArgumentException("latency must not be negative: " + latency);
+		}
+
+		try (Syncro open = _syncro.open()) {
+			_maxSize = maxSize;
+			_latency = latency;
+		}
+	}
+
+	public void consumer(Kind kind, Consumer<List<E>> consumer) {
+		if (consumer == null) {
+			_consumers.remove(kind);
+		}
+		else {
+			_consumers.put(kind, consumer);
+		}
+	}
+
+	public void flush() {
+		try (Syncro open = _syncro.open()) {
+			_scheduled = false;
+
+			if (_delivering) {
+				// the delivering thread also picks up the changes added meanwhile
+				return;
+			}
+
+			_delivering = true;
+		}
+
+		while (true) {
+			Kind kind;
+			List<E> batch = new ArrayList<>();
+
+			try (Syncro open = _syncro.open()) {
+				if (_pending.isEmpty()) {
+					_delivering = false;
+
+					return;
+				}
+
+				kind = _pending.peek().getKey();
+
+				while (!_pending.isEmpty() && (_pending.peek().getKey() == kind) && (batch.size() < _maxSize)) {
+					batch.add(_pending.poll().getValue());
+				}
+			}
+
+			deliver(kind, batch);
+		}
+	}
+
+	/**
+	 * Holds the changes until {@link #release()}, only full batches are
+	 * delivered in the meantime.
+	 */
+	public void hold() {
+		try (Syncro open = _syncro.open()) {
+			_held = true;
+		}
+	}
+
+	public void release() {
+		try (Syncro open = _syncro.open()) {
+			_held = false;
+		}
+
+		flush();
+	}
+
+	private void deliver(Kind kind, List<E> batch) {
+		Consumer<List<E>> consumer = _consumers.get(kind);
+
+		if (consumer == null) {
+			return;
+		}
+
+		try {
+			consumer.accept(Collections.unmodifiableList(batch));
+		}
+		catch (Throwable t) {
+			_log.error(l -> l.error("CCR error in {}", _binder, t));
+		}
+	}
+
+	private final Object _binder;
+	private final Map<Kind, Consumer<List<E>>> _consumers = new ConcurrentHashMap<>();
+	private boolean _closed;
+	private final ContainerState _containerState;
+	private boolean _delivering;
+	private boolean _held;
+	private long _latency;
+	private final Logger _log;
+	private int _maxSize;
+	private final Deque<Entry<Kind, E>> _pending = new ArrayDeque<>();
+	private boolean _scheduled;
+	private final Syncro _syncro = new Syncro(true);
+
+}
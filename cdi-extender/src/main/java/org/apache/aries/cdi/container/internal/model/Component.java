@@ -16,6 +16,7 @@ package org.apache.aries.cdi.container.internal.model;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import org.apache.aries.cdi.container.internal.container.ContainerState;
 import org.apache.aries.cdi.container.internal.container.Phase;
@@ -59,6 +60,17 @@ public abstract class Component extends Phase {
 
 	public abstract List<ConfigurationTemplateDTO> configurationTemplates();
 
+	/**
+	 * @return the instance created for the configuration with the given pid
+	 */
+	public Optional<ExtendedComponentInstanceDTO> instance(String pid) {
+		return instances().stream().map(
+			ExtendedComponentInstanceDTO.class::cast
+		).filter(
+			instance -> pid.equals(instance.pid)
+		).findFirst();
+	}
+
 	public abstract List<ComponentInstanceDTO> instances();
 
 	public abstract ComponentDTO snapshot();
@@ -16,12 +16,15 @@ package org.apache.aries.cdi.container.internal.model;
 
 import java.util.function.Consumer;
 
+import org.apache.aries.cdi.container.internal.container.ComponentContext;
 import org.osgi.service.cdi.runtime.dto.ActivationDTO;
 
 public class ExtendedActivationDTO extends ActivationDTO {
 
 	public ExtendedComponentInstanceDTO instance;
 
+	public final ComponentContext.Instances instances = new ComponentContext.Instances();
+
 	public Consumer<ExtendedActivationDTO> onClose;
 
 }
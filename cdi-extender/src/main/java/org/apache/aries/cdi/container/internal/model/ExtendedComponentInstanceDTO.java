@@ -14,15 +14,13 @@
 
 package org.apache.aries.cdi.container.internal.model;
 
-import static org.apache.aries.cdi.container.internal.util.Filters.asFilter;
-
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -44,7 +42,6 @@ import org.osgi.service.cdi.runtime.dto.template.ComponentTemplateDTO;
 import org.osgi.service.cdi.runtime.dto.template.ConfigurationTemplateDTO;
 import org.osgi.service.cdi.runtime.dto.template.ReferenceTemplateDTO;
 import org.osgi.service.log.Logger;
-import org.osgi.util.tracker.ServiceTracker;
 
 public class ExtendedComponentInstanceDTO extends ComponentInstanceDTO {
 
@@ -58,6 +55,7 @@ public class ExtendedComponentInstanceDTO extends ComponentInstanceDTO {
 	private final Logger _log;
 	private final AtomicReference<InstanceActivator> _noRequiredDependenciesActivator = new AtomicReference<>();
 	private final Syncro sync = new Syncro(true);
+	private volatile PropertiesViews _views;
 
 	public ExtendedComponentInstanceDTO(
 		ContainerState containerState,
@@ -77,6 +75,10 @@ public class ExtendedComponentInstanceDTO extends ComponentInstanceDTO {
 						r -> {
 							ExtendedReferenceDTO referenceDTO = (ExtendedReferenceDTO)r;
 							referenceDTO.serviceTracker.close();
+							referenceDTO.sync.close();
+							if (referenceDTO.binder != null) {
+								referenceDTO.binder.close();
+							}
 							return true;
 						}
 					);
@@ -199,14 +201,13 @@ public class ExtendedComponentInstanceDTO extends ComponentInstanceDTO {
 						referenceDTO.binder = new BindBeanServiceObjectsImpl<>(_containerState);
 					}
 
-					referenceDTO.matches = new CopyOnWriteArrayList<>();
+					referenceDTO.matches = new ReferenceMatches();
 					referenceDTO.minimumCardinality = minimumCardinality(t.name, t.minimumCardinality);
 					referenceDTO.targetFilter = targetFilter(t.serviceType, t.name, t.targetFilter);
 					referenceDTO.template = t;
-					referenceDTO.serviceTracker = new ServiceTracker<>(
-						_containerState.bundleContext(),
-						asFilter(referenceDTO.targetFilter),
-						new ReferenceSync(_containerState, referenceDTO, this, _builder));
+					referenceDTO.sync = new ReferenceSync(_containerState, referenceDTO, this, _builder);
+					referenceDTO.serviceTracker = _containerState.referenceIndex().tracker(
+						t.serviceType, referenceDTO.targetFilter, referenceDTO.sync);
 
 					references.add(referenceDTO);
 				}
@@ -273,6 +274,28 @@ public class ExtendedComponentInstanceDTO extends ComponentInstanceDTO {
 		return Op.of(Mode.OPEN, getType(), ident());
 	}
 
+	/**
+	 * @return the properties converted to the type. Annotation and interface
+	 *         views are kept until the properties of this instance change.
+	 */
+	public Object componentPropertiesAs(java.lang.reflect.Type type) {
+		Map<String, Object> current = Objects.requireNonNull(properties);
+
+		if (!Conversions.isView(type)) {
+			return Conversions.convert(current).to(type);
+		}
+
+		PropertiesViews views = _views;
+
+		if ((views == null) || (views._properties != current)) {
+			views = new PropertiesViews(current);
+
+			_views = views;
+		}
+
+		return views._views.computeIfAbsent(type, t -> Conversions.view(current, (Class<?>)t));
+	}
+
 	public Map<String, Object> componentProperties(Map<String, Object> others) {
 		_log.debug(l -> l.debug("ComponentProperties: merging"));
 
@@ -358,6 +381,17 @@ public class ExtendedComponentInstanceDTO extends ComponentInstanceDTO {
 		return template.name + "[" + _componentId + "]";
 	}
 
+	private static class PropertiesViews {
+
+		PropertiesViews(Map<String, Object> properties) {
+			_properties = properties;
+		}
+
+		private final Map<String, Object> _properties;
+		private final Map<java.lang.reflect.Type, Object> _views = new ConcurrentHashMap<>();
+
+	}
+
 	private static final AtomicLong _componentIds = new AtomicLong();
 
 }
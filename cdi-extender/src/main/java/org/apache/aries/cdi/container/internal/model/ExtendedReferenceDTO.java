@@ -14,13 +14,16 @@
 
 package org.apache.aries.cdi.container.internal.model;
 
+import org.apache.aries.cdi.container.internal.container.ReferenceIndex;
+import org.apache.aries.cdi.container.internal.container.ReferenceSync;
 import org.osgi.service.cdi.runtime.dto.ReferenceDTO;
-import org.osgi.util.tracker.ServiceTracker;
 
 public class ExtendedReferenceDTO extends ReferenceDTO {
 
 	public Binder<Object> binder;
 
-	public ServiceTracker<Object, Object> serviceTracker;
+	public ReferenceIndex.Tracker serviceTracker;
+
+	public ReferenceSync sync;
 
 }
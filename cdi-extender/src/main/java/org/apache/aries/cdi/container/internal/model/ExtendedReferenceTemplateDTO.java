@@ -21,6 +21,8 @@ import org.osgi.service.cdi.runtime.dto.template.ReferenceTemplateDTO;
 
 public class ExtendedReferenceTemplateDTO extends ReferenceTemplateDTO {
 
+	public boolean async;
+
 	public ReferenceBean bean;
 
 	public Class<?> beanClass;
@@ -37,6 +39,7 @@ public class ExtendedReferenceTemplateDTO extends ReferenceTemplateDTO {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
+		result = prime * result + (async ? 1231 : 1237);
 		result = prime * result + ((beanClass == null) ? 0 : beanClass.hashCode());
 		result = prime * result + ((collectionType == null) ? 0 : collectionType.hashCode());
 		result = prime * result + ((declaringClass == null) ? 0 : declaringClass.hashCode());
@@ -63,6 +66,9 @@ public class ExtendedReferenceTemplateDTO extends ReferenceTemplateDTO {
 			return false;
 		}
 		ExtendedReferenceTemplateDTO other = (ExtendedReferenceTemplateDTO) obj;
+		if (async != other.async) {
+			return false;
+		}
 		if (beanClass == null) {
 			if (other.beanClass != null) {
 				return false;
@@ -31,6 +31,7 @@ import org.apache.aries.cdi.container.internal.container.ContainerState;
 import org.apache.aries.cdi.container.internal.container.Op;
 import org.apache.aries.cdi.container.internal.container.Op.Mode;
 import org.apache.aries.cdi.container.internal.container.Op.Type;
+import org.apache.aries.cdi.container.internal.jfr.Probe;
 import org.apache.aries.cdi.container.internal.util.Maps;
 import org.apache.aries.cdi.container.internal.util.SRs;
 import org.apache.aries.cdi.container.internal.util.Syncro;
@@ -65,7 +66,7 @@ public class FactoryActivator extends InstanceActivator {
 
 	@Override
 	public boolean close() {
-		try (Syncro synchro = _lock.open()) {
+		try (Probe probe = probe(Mode.CLOSE); Syncro synchro = _lock.open()) {
 			if (serviceRegistration != null) {
 				serviceRegistration.unregister();
 				serviceRegistration = null;
@@ -94,7 +95,7 @@ public class FactoryActivator extends InstanceActivator {
 	@Override
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public boolean open() {
-		try (Syncro synchro = _lock.open()) {
+		try (Probe probe = probe(Mode.OPEN); Syncro synchro = _lock.open()) {
 			if (containerState.bundleContext() == null) {
 				// this bundle was already removed
 				return false;
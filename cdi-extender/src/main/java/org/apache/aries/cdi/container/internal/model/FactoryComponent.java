@@ -17,7 +17,7 @@ package org.apache.aries.cdi.container.internal.model;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Optional;
 
 import org.apache.aries.cdi.container.internal.container.ContainerState;
 import org.apache.aries.cdi.container.internal.container.Op;
@@ -82,6 +82,7 @@ public class FactoryComponent extends Component {
 
 			containerState.containerDTO().components.remove(_snapshot);
 
+			_instances = null;
 			_snapshot = null;
 
 			return true;
@@ -98,6 +99,13 @@ public class FactoryComponent extends Component {
 		return _template.configurations;
 	}
 
+	@Override
+	public Optional<ExtendedComponentInstanceDTO> instance(String pid) {
+		FactoryInstances instances = _instances;
+		if (instances == null) return Optional.empty();
+		return instances.get(pid);
+	}
+
 	@Override
 	public List<ComponentInstanceDTO> instances() {
 		if (_snapshot == null) return Collections.emptyList();
@@ -112,8 +120,9 @@ public class FactoryComponent extends Component {
 	@Override
 	public boolean open() {
 		try (Syncro open = syncro.open()) {
+			_instances = new FactoryInstances();
 			_snapshot = new ComponentDTO();
-			_snapshot.instances = new CopyOnWriteArrayList<>();
+			_snapshot.instances = _instances.list();
 			_snapshot.template = _template;
 
 			containerState.containerDTO().components.add(_snapshot);
@@ -133,6 +142,7 @@ public class FactoryComponent extends Component {
 	}
 
 	private final Logger _log;
+	private volatile FactoryInstances _instances;
 	private volatile ComponentDTO _snapshot;
 	private final ComponentTemplateDTO _template;
 
@@ -0,0 +1,187 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+
+import org.apache.aries.cdi.container.internal.util.Syncro;
+import org.osgi.service.cdi.runtime.dto.ComponentInstanceDTO;
+
+/**
+ * The instances of a factory component indexed by configuration pid, in the
+ * order they were added. Adding, finding and removing an instance by pid
+ * don't copy or scan anything. The
+ * {@link org.osgi.service.cdi.runtime.dto.ComponentDTO#instances} list of the
+ * component is a {@link #list() view} whose elements are only derived from the
+ * index when the list is read after a change.
+ */
+class FactoryInstances {
+
+	/**
+	 * @throws IllegalArgumentException if there is already an instance with the
+	 *         same pid
+	 */
+	public boolean add(ExtendedComponentInstanceDTO instance) {
+		try (Syncro open = _syncro.open()) {
+			if (_byPid.putIfAbsent(instance.pid, instance) != null) {
+				throw new IllegalArgumentException("Factory component instance already exists for " + instance.pid);
+			}
+
+			_snapshot = null;
+
+			return true;
+		}
+	}
+
+	public void clear() {
+		try (Syncro open = _syncro.open()) {
+			_byPid.clear();
+
+			_snapshot = null;
+		}
+	}
+
+	public Optional<ExtendedComponentInstanceDTO> get(String pid) {
+		try (Syncro open = _syncro.open()) {
+			return Optional.ofNullable(_byPid.get(pid));
+		}
+	}
+
+	/**
+	 * @return the instances as the list of the component DTO, iterators work on
+	 *         a snapshot like those of a copy on write list
+	 */
+	public List<ComponentInstanceDTO> list() {
+		return _list;
+	}
+
+	public boolean remove(Object o) {
+		if (!(o instanceof ExtendedComponentInstanceDTO)) {
+			return false;
+		}
+
+		try (Syncro open = _syncro.open()) {
+			if (!_byPid.remove(((ExtendedComponentInstanceDTO)o).pid, o)) {
+				return false;
+			}
+
+			_snapshot = null;
+
+			return true;
+		}
+	}
+
+	public int size() {
+		try (Syncro open = _syncro.open()) {
+			return _byPid.size();
+		}
+	}
+
+	private ComponentInstanceDTO[] snapshot() {
+		try (Syncro open = _syncro.open()) {
+			if (_snapshot == null) {
+				_snapshot = _byPid.values().toArray(new ComponentInstanceDTO[0]);
+			}
+
+			return _snapshot;
+		}
+	}
+
+	private class InstancesList extends AbstractList<ComponentInstanceDTO> implements RandomAccess {
+
+		@Override
+		public boolean add(ComponentInstanceDTO instance) {
+			return FactoryInstances.this.add((ExtendedComponentInstanceDTO)instance);
+		}
+
+		@Override
+		public void clear() {
+			FactoryInstances.this.clear();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof ExtendedComponentInstanceDTO)) {
+				return false;
+			}
+
+			return FactoryInstances.this.get(((ExtendedComponentInstanceDTO)o).pid).orElse(null) == o;
+		}
+
+		@Override
+		public ComponentInstanceDTO get(int index) {
+			return snapshot()[index];
+		}
+
+		@Override
+		public Iterator<ComponentInstanceDTO> iterator() {
+			ComponentInstanceDTO[] snapshot = snapshot();
+			Iterator<ComponentInstanceDTO> iterator = Arrays.asList(snapshot).iterator();
+
+			return new Iterator<ComponentInstanceDTO>() {
+
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				@Override
+				public ComponentInstanceDTO next() {
+					_last = iterator.next();
+
+					return _last;
+				}
+
+				@Override
+				public void remove() {
+					if (_last == null) {
+						throw new IllegalStateException();
+					}
+
+					FactoryInstances.this.remove(_last);
+
+					_last = null;
+				}
+
+				private ComponentInstanceDTO _last;
+
+			};
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return FactoryInstances.this.remove(o);
+		}
+
+		@Override
+		public int size() {
+			return FactoryInstances.this.size();
+		}
+
+	}
+
+	private final Map<String, ExtendedComponentInstanceDTO> _byPid = new LinkedHashMap<>();
+	private final List<ComponentInstanceDTO> _list = new InstancesList();
+	private ComponentInstanceDTO[] _snapshot;
+	private final Syncro _syncro = new Syncro(true);
+
+}
@@ -31,6 +31,8 @@ import org.apache.aries.cdi.container.internal.container.ComponentContext.With;
 import org.apache.aries.cdi.container.internal.container.ContainerState;
 import org.apache.aries.cdi.container.internal.container.Op;
 import org.apache.aries.cdi.container.internal.container.Phase;
+import org.apache.aries.cdi.container.internal.jfr.Events;
+import org.apache.aries.cdi.container.internal.jfr.Probe;
 import org.apache.aries.cdi.container.internal.util.Sets;
 import org.apache.aries.cdi.container.internal.util.Throw;
 import org.osgi.service.cdi.annotations.ComponentScoped;
@@ -135,6 +137,10 @@ public abstract class InstanceActivator extends Phase {
 		}
 	}
 
+	protected Probe probe(Op.Mode mode) {
+		return Events.activation(containerState.id(), _instance.ident(), mode.name());
+	}
+
 	private final Logger _log;
 	protected final ExtendedComponentInstanceDTO _instance;
 
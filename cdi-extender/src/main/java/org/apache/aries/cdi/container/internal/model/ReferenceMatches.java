@@ -0,0 +1,153 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.model;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.apache.aries.cdi.container.internal.util.SRs;
+import org.osgi.framework.dto.ServiceReferenceDTO;
+
+/**
+ * The services matching a reference, sorted with {@link SRs#COMPARATOR}
+ * like the tracked service references. This is the
+ * {@link org.osgi.service.cdi.runtime.dto.ReferenceDTO#matches} list of the
+ * reference; adding, replacing and removing a match are logarithmic instead
+ * of copying the list, and iteration is weakly consistent.
+ */
+public class ReferenceMatches extends AbstractList<ServiceReferenceDTO> {
+
+	/**
+	 * Adds the match at its sorted position, replacing the match of the same
+	 * service, if any.
+	 */
+	@Override
+	public boolean add(ServiceReferenceDTO dto) {
+		ServiceReferenceDTO previous = _byId.put(dto.id, dto);
+
+		if (previous != null) {
+			_sorted.remove(previous);
+		}
+
+		_sorted.put(dto, dto);
+
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		_byId.clear();
+		_sorted.clear();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return (o instanceof ServiceReferenceDTO) &&
+			(_byId.get(((ServiceReferenceDTO)o).id) == o);
+	}
+
+	/**
+	 * Iterates to the index, prefer {@link #iterator()}.
+	 */
+	@Override
+	public ServiceReferenceDTO get(int index) {
+		if (index < 0) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+
+		int i = 0;
+
+		for (ServiceReferenceDTO dto : _sorted.keySet()) {
+			if (i++ == index) {
+				return dto;
+			}
+		}
+
+		throw new IndexOutOfBoundsException(String.valueOf(index));
+	}
+
+	@Override
+	public Iterator<ServiceReferenceDTO> iterator() {
+		Iterator<ServiceReferenceDTO> iterator = _sorted.keySet().iterator();
+
+		return new Iterator<ServiceReferenceDTO>() {
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public ServiceReferenceDTO next() {
+				return _last = iterator.next();
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+
+				_byId.remove(_last.id, _last);
+			}
+
+			private ServiceReferenceDTO _last;
+
+		};
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (!(o instanceof ServiceReferenceDTO)) {
+			return false;
+		}
+
+		ServiceReferenceDTO dto = (ServiceReferenceDTO)o;
+
+		if (!_byId.remove(dto.id, dto)) {
+			return false;
+		}
+
+		_sorted.remove(dto);
+
+		return true;
+	}
+
+	/**
+	 * @return true if the match of the service was removed
+	 */
+	public boolean remove(long id) {
+		ServiceReferenceDTO dto = _byId.remove(id);
+
+		if (dto == null) {
+			return false;
+		}
+
+		_sorted.remove(dto);
+
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return _byId.size();
+	}
+
+	private final Map<Long, ServiceReferenceDTO> _byId = new ConcurrentHashMap<>();
+	private final NavigableMap<ServiceReferenceDTO, ServiceReferenceDTO> _sorted = new ConcurrentSkipListMap<>(SRs.COMPARATOR);
+
+}
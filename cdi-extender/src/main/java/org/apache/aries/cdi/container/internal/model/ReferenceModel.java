@@ -42,6 +42,7 @@ import javax.inject.Qualifier;
 
 import org.apache.aries.cdi.container.internal.util.Conversions;
 import org.apache.aries.cdi.container.internal.util.Maps;
+import org.apache.aries.cdi.spi.reference.Async;
 import org.osgi.framework.Constants;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.cdi.MaximumCardinality;
@@ -148,6 +149,17 @@ public class ReferenceModel {
 			_greedy = false;
 		}
 
+		_async = _annotated.isAnnotationPresent(Async.class);
+
+		if (_async &&
+			(_collectionType != CollectionType.BINDER_SERVICE) &&
+			(_collectionType != CollectionType.BINDER_REFERENCE) &&
+			(_collectionType != CollectionType.BINDER_BEAN_SERVICE_OBJECTS)) {
+
+			throw new IllegalArgumentException(
+				"@Async is only supported on binders: " + _injectionPointType + " on " + _annotated);
+		}
+
 		_targetFilter = buildFilter();
 	}
 
@@ -210,6 +222,7 @@ public class ReferenceModel {
 
 	public ExtendedReferenceTemplateDTO toDTO() {
 		ExtendedReferenceTemplateDTO dto = new ExtendedReferenceTemplateDTO();
+		dto.async = _async;
 		dto.beanClass = _beanClass;
 		dto.collectionType = _collectionType;
 		dto.declaringClass = _declaringClass;
@@ -590,6 +603,7 @@ public class ReferenceModel {
 	private static final String _emptyFilter = "";
 
 	private final Annotated _annotated;
+	private final boolean _async;
 	private Class<?> _beanClass;
 	private CollectionType _collectionType = CollectionType.SERVICE;
 	private final Class<?> _declaringClass;
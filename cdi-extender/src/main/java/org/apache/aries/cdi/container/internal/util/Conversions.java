@@ -14,7 +14,25 @@
 
 package org.apache.aries.cdi.container.internal.util;
 
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import org.osgi.util.converter.Converter;
 import org.osgi.util.converter.ConverterBuilder;
@@ -32,6 +50,269 @@ public class Conversions {
 		return INSTANCE._converter.convert(object);
 	}
 
+	/**
+	 * @return true when converting properties to the type produces a read-only
+	 *         view, i.e. the type is an annotation or an interface other than
+	 *         the JDK types, so that the result can be shared
+	 */
+	public static boolean isView(Type type) {
+		if (!(type instanceof Class)) {
+			return false;
+		}
+
+		Class<?> clazz = (Class<?>)type;
+
+		return clazz.isInterface() &&
+			!clazz.getName().startsWith("java.") &&
+			!Map.class.isAssignableFrom(clazz) &&
+			!Collection.class.isAssignableFrom(clazz);
+	}
+
+	/**
+	 * Converts the properties to an annotation or interface type like
+	 * {@link #convert(Object)} does, except that the value of each method is
+	 * converted once, when the view is created, instead of on every
+	 * invocation. Only immutable values are kept, arrays are copied on every
+	 * invocation and other values, e.g. lists or maps, are converted again.
+	 * Views are equal when their values are, for annotation types as defined
+	 * by {@link java.lang.annotation.Annotation#equals(Object)}.
+	 */
+	public static Object view(Map<String, Object> properties, Class<?> type) {
+		Object delegate = convert(properties).to(type);
+
+		return Proxy.newProxyInstance(
+			type.getClassLoader(), new Class<?>[] {type}, new View(ACCESSORS.get(type), delegate));
+	}
+
+	/*
+	 * The value methods of a type, computed once per type.
+	 */
+	private static class Accessor {
+
+		Accessor(Class<?> type) {
+			_type = type;
+
+			List<Method> methods = new ArrayList<>();
+
+			for (Method method : type.getMethods()) {
+				if ((method.getParameterCount() == 0) && !method.isDefault() &&
+					!Modifier.isStatic(method.getModifiers()) &&
+					(method.getDeclaringClass() != Annotation.class)) {
+
+					_indexes.put(method, methods.size());
+					methods.add(method);
+				}
+			}
+
+			_methods = methods.toArray(new Method[0]);
+		}
+
+		private final Map<Method, Integer> _indexes = new HashMap<>();
+		private final Method[] _methods;
+		private final Class<?> _type;
+
+	}
+
+	private static class View implements InvocationHandler {
+
+		View(Accessor accessor, Object delegate) {
+			_accessor = accessor;
+			_delegate = delegate;
+			_values = new Object[accessor._methods.length];
+
+			for (int i = 0; i < _values.length; i++) {
+				Object value;
+
+				try {
+					value = accessor._methods[i].invoke(delegate);
+				}
+				catch (InvocationTargetException ite) {
+					// conversion failures surface when the method is called
+					_values[i] = new Failure(ite.getCause());
+
+					continue;
+				}
+				catch (IllegalAccessException iae) {
+					_values[i] = new Failure(iae);
+
+					continue;
+				}
+
+				_values[i] = isShareable(value) ? value : CONVERT;
+			}
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Integer index = _accessor._indexes.get(method);
+
+			if (index != null) {
+				return copy(value(index));
+			}
+
+			if (method.getDeclaringClass() == Object.class) {
+				switch (method.getName()) {
+					case "equals": return isEqual(args[0]);
+					case "hashCode": return valuesHashCode();
+					default: return _delegate.toString();
+				}
+			}
+
+			if ((method.getDeclaringClass() == Annotation.class) && method.getName().equals("annotationType")) {
+				return _accessor._type;
+			}
+
+			return invoke(method, args);
+		}
+
+		private Object copy(Object value) {
+			if ((value == null) || !value.getClass().isArray()) {
+				return value;
+			}
+
+			// arrays are mutable
+			int length = Array.getLength(value);
+			Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+			System.arraycopy(value, 0, copy, 0, length);
+			return copy;
+		}
+
+		private Object invoke(Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(_delegate, args);
+			}
+			catch (InvocationTargetException ite) {
+				throw ite.getCause();
+			}
+		}
+
+		private boolean isEqual(Object other) throws Throwable {
+			if (other == null) {
+				return false;
+			}
+
+			if (Proxy.isProxyClass(other.getClass())) {
+				InvocationHandler handler = Proxy.getInvocationHandler(other);
+
+				if (handler == this) {
+					return true;
+				}
+
+				if (handler instanceof View) {
+					View view = (View)handler;
+
+					if (view._accessor != _accessor) {
+						return false;
+					}
+
+					for (int i = 0; i < _values.length; i++) {
+						if (!Objects.deepEquals(value(i), view.value(i))) {
+							return false;
+						}
+					}
+
+					return true;
+				}
+			}
+
+			// annotations are equal to any instance of their type with the same values
+			if (!_accessor._type.isAnnotation() || !_accessor._type.isInstance(other)) {
+				return false;
+			}
+
+			for (int i = 0; i < _values.length; i++) {
+				Object value;
+
+				try {
+					value = _accessor._methods[i].invoke(other);
+				}
+				catch (InvocationTargetException ite) {
+					throw ite.getCause();
+				}
+
+				if (!Objects.deepEquals(value(i), value)) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		private boolean isShareable(Object value) {
+			if (value == null) {
+				return true;
+			}
+
+			Class<?> clazz = value.getClass();
+
+			// nested annotation and interface values are converter views
+			return clazz.isArray() || IMMUTABLE_TYPES.contains(clazz) ||
+				Proxy.isProxyClass(clazz) || (value instanceof Enum);
+		}
+
+		private Object value(int index) throws Throwable {
+			Object value = _values[index];
+
+			if (value == CONVERT) {
+				return invoke(_accessor._methods[index], null);
+			}
+			else if (value instanceof Failure) {
+				throw ((Failure)value)._cause;
+			}
+
+			return value;
+		}
+
+		/*
+		 * As defined by Annotation.hashCode(), which is also a valid hash code
+		 * for the value equality of interface views.
+		 */
+		private int valuesHashCode() throws Throwable {
+			int hashCode = 0;
+
+			for (int i = 0; i < _values.length; i++) {
+				Object value = value(i);
+
+				int valueHashCode;
+
+				if (value == null) {
+					valueHashCode = 0;
+				}
+				else if (value.getClass().isArray()) {
+					valueHashCode = Arrays.deepHashCode(new Object[] {value}) - 31;
+				}
+				else {
+					valueHashCode = value.hashCode();
+				}
+
+				hashCode += (127 * _accessor._methods[i].getName().hashCode()) ^ valueHashCode;
+			}
+
+			return hashCode;
+		}
+
+		private static final Object CONVERT = new Object();
+		private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(
+			BigDecimal.class, BigInteger.class, Boolean.class, Byte.class, Character.class,
+			Class.class, Double.class, Float.class, Integer.class, Long.class, Short.class,
+			String.class));
+
+		private final Accessor _accessor;
+		private final Object _delegate;
+		private final Object[] _values;
+
+	}
+
+	private static class Failure {
+
+		Failure(Throwable cause) {
+			_cause = cause;
+		}
+
+		private final Throwable _cause;
+
+	}
+
 	private Conversions() {
 		ConverterBuilder builder = Converters.newConverterBuilder();
 
@@ -46,6 +327,15 @@ public class Conversions {
 
 	public static final Conversions INSTANCE = new Conversions();
 
+	private static final ClassValue<Accessor> ACCESSORS = new ClassValue<Accessor>() {
+
+		@Override
+		protected Accessor computeValue(Class<?> type) {
+			return new Accessor(type);
+		}
+
+	};
+
 	private final Converter _converter;
 
 }
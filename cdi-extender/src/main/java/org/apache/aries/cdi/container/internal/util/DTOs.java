@@ -14,6 +14,9 @@
 
 package org.apache.aries.cdi.container.internal.util;
 
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -35,6 +38,10 @@ import org.osgi.service.cdi.runtime.dto.template.ContainerTemplateDTO;
 import org.osgi.service.cdi.runtime.dto.template.ExtensionTemplateDTO;
 import org.osgi.service.cdi.runtime.dto.template.ReferenceTemplateDTO;
 
+/**
+ * Deep copies of the runtime DTOs. The lists and maps of the copies are
+ * unmodifiable since the copies are shared as snapshots.
+ */
 public class DTOs {
 
 	private DTOs() {
@@ -59,13 +66,31 @@ public class DTOs {
 		ContainerDTO copy = new ContainerDTO();
 		copy.bundle = original.bundle;
 		copy.changeCount = original.changeCount;
-		copy.errors = new ArrayList<>(original.errors);
+		copy.errors = unmodifiableList(new ArrayList<>(original.errors));
 		copy.template = copy(original.template, false);
 		copy.extensions = copy(original.extensions);
 		copy.components = copy(original.components);
 		return copy;
 	}
 
+	/**
+	 * @return a copy of the container DTO and of its template DTO sharing the
+	 *         nested DTOs of the original, which is expected to be a snapshot
+	 */
+	public static ContainerDTO shallowCopy(ContainerDTO original) {
+		ContainerDTO copy = new ContainerDTO();
+		copy.bundle = original.bundle;
+		copy.changeCount = original.changeCount;
+		copy.components = original.components;
+		copy.errors = original.errors;
+		copy.extensions = original.extensions;
+		copy.template = new ContainerTemplateDTO();
+		copy.template.components = original.template.components;
+		copy.template.extensions = original.template.extensions;
+		copy.template.id = original.template.id;
+		return copy;
+	}
+
 	static ExtensionDTO copy(ExtensionDTO original) {
 		if (cache.get().containsKey(original)) {
 			return (ExtensionDTO)cache.get().get(original);
@@ -109,7 +134,7 @@ public class DTOs {
 		ComponentInstanceDTO copy = new ComponentInstanceDTO();
 		copy.activations = copy(original.activations);
 		copy.configurations = copy(original.configurations);
-		copy.properties = original.properties == null ? null : new HashMap<>(original.properties);
+		copy.properties = original.properties == null ? null : unmodifiableMap(new HashMap<>(original.properties));
 		copy.references = copy(original.references);
 		return copy;
 	}
@@ -124,7 +149,7 @@ public class DTOs {
 
 	static ActivationDTO copy0(ActivationDTO original) {
 		ActivationDTO copy = new ActivationDTO();
-		copy.errors = new ArrayList<>(original.errors);
+		copy.errors = unmodifiableList(new ArrayList<>(original.errors));
 		copy.service = original.service;
 		copy.template = copy(original.template);
 		return copy;
@@ -140,7 +165,7 @@ public class DTOs {
 
 	static ConfigurationDTO copy0(ConfigurationDTO original) {
 		ConfigurationDTO copy = new ConfigurationDTO();
-		copy.properties = original.properties == null ? null : new HashMap<>(original.properties);
+		copy.properties = original.properties == null ? null : unmodifiableMap(new HashMap<>(original.properties));
 		copy.template = copy(original.template);
 		return copy;
 	}
@@ -155,7 +180,7 @@ public class DTOs {
 
 	static ReferenceDTO copy0(ReferenceDTO original) {
 		ReferenceDTO copy = new ReferenceDTO();
-		copy.matches = new ArrayList<>(original.matches);
+		copy.matches = unmodifiableList(new ArrayList<>(original.matches));
 		copy.minimumCardinality = original.minimumCardinality;
 		copy.targetFilter = original.targetFilter;
 		copy.template = copy(original.template);
@@ -195,10 +220,10 @@ public class DTOs {
 	static ComponentTemplateDTO copy0(ComponentTemplateDTO original) {
 		ComponentTemplateDTO copy = new ComponentTemplateDTO();
 		copy.activations = copy(original.activations);
-		copy.beans = new ArrayList<>(original.beans);
+		copy.beans = unmodifiableList(new ArrayList<>(original.beans));
 		copy.configurations = copy(original.configurations);
 		copy.name = original.name;
-		copy.properties = original.properties == null ? null : new HashMap<>(original.properties);
+		copy.properties = original.properties == null ? null : unmodifiableMap(new HashMap<>(original.properties));
 		copy.references = copy(original.references);
 		copy.type = original.type;
 		return copy;
@@ -228,9 +253,9 @@ public class DTOs {
 
 	static ActivationTemplateDTO copy0(ActivationTemplateDTO original) {
 		ActivationTemplateDTO copy = new ActivationTemplateDTO();
-		copy.properties = original.properties == null ? null : new HashMap<>(original.properties);
+		copy.properties = original.properties == null ? null : unmodifiableMap(new HashMap<>(original.properties));
 		copy.scope = original.scope;
-		copy.serviceClasses = new ArrayList<>(original.serviceClasses);
+		copy.serviceClasses = unmodifiableList(new ArrayList<>(original.serviceClasses));
 		return copy;
 	}
 
@@ -316,7 +341,7 @@ public class DTOs {
 	}
 
 	static <T> List<T> copy(List<T> original) {
-		return original.stream().map(t -> copy(t)).collect(Collectors.toList());
+		return unmodifiableList(original.stream().map(t -> copy(t)).collect(Collectors.toList()));
 	}
 
 	private static final ThreadLocal<Map<Object, Object>> cache =
@@ -16,10 +16,12 @@ package org.apache.aries.cdi.container.internal.util;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.osgi.framework.Bundle;
 import org.osgi.framework.Constants;
 import org.osgi.framework.ServiceReference;
 import org.osgi.framework.dto.ServiceReferenceDTO;
@@ -39,6 +41,25 @@ public class SRs {
 		return null;
 	}
 
+	/**
+	 * Builds the DTO straight from the reference instead of scanning all the
+	 * services of the registering bundle.
+	 */
+	public static <T> ServiceReferenceDTO toDTO(ServiceReference<T> reference) {
+		ServiceReferenceDTO dto = new ServiceReferenceDTO();
+
+		Bundle bundle = reference.getBundle();
+		Bundle[] usingBundles = reference.getUsingBundles();
+
+		dto.bundle = (bundle == null) ? -1 : bundle.getBundleId();
+		dto.id = id(reference);
+		dto.properties = Maps.of(reference.getProperties());
+		dto.usingBundles = (usingBundles == null) ? new long[0] :
+			Arrays.stream(usingBundles).mapToLong(Bundle::getBundleId).toArray();
+
+		return dto;
+	}
+
 	@SafeVarargs
 	public static <T> List<ServiceReferenceDTO> from(ServiceReference<T>[] references, ServiceReference<T>... more) {
 		if (references == null) return Arrays.stream(more).sorted().map(
@@ -61,4 +82,20 @@ public class SRs {
 		return (Long)reference.getProperty(Constants.SERVICE_ID);
 	}
 
+	public static int ranking(ServiceReferenceDTO dto) {
+		Object ranking = dto.properties.get(Constants.SERVICE_RANKING);
+
+		return (ranking instanceof Integer) ? (Integer)ranking : 0;
+	}
+
+	/**
+	 * Orders DTOs like the natural order of their service references, lowest
+	 * ranking first and for equal rankings highest service id first.
+	 */
+	public static final Comparator<ServiceReferenceDTO> COMPARATOR = Comparator.comparingInt(
+		SRs::ranking
+	).thenComparing(
+		Comparator.comparingLong((ServiceReferenceDTO dto) -> dto.id).reversed()
+	);
+
 }
@@ -0,0 +1,110 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.util;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A serial lane on top of a shared executor. Tasks submitted to the same lane
+ * run one at a time in submission order while independent lanes share the
+ * threads of the delegate executor.
+ */
+public class SerialExecutor implements Executor {
+
+	public SerialExecutor(Executor executor) {
+		this(executor, DEFAULT_BATCH_SIZE);
+	}
+
+	public SerialExecutor(Executor executor, int batchSize) {
+		_executor = requireNonNull(executor);
+		_batchSize = Math.max(1, batchSize);
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		_tasks.offer(requireNonNull(task));
+
+		try {
+			schedule();
+		}
+		catch (RejectedExecutionException ree) {
+			_tasks.remove(task);
+
+			throw ree;
+		}
+	}
+
+	/**
+	 * @return true when called from a task of this lane
+	 */
+	public boolean isCurrent() {
+		return _thread == Thread.currentThread();
+	}
+
+	public int pending() {
+		return _tasks.size();
+	}
+
+	private void drain() {
+		_thread = Thread.currentThread();
+
+		try {
+			Runnable task;
+
+			// yield the pool thread after a batch so that busy lanes don't starve the others
+			for (int i = 0; (i < _batchSize) && ((task = _tasks.poll()) != null); i++) {
+				task.run();
+			}
+		}
+		finally {
+			_thread = null;
+			_running.set(false);
+
+			if (!_tasks.isEmpty()) {
+				schedule();
+			}
+		}
+	}
+
+	private void schedule() {
+		if (!_running.compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			_executor.execute(this::drain);
+		}
+		catch (RejectedExecutionException ree) {
+			_running.set(false);
+
+			throw ree;
+		}
+	}
+
+	private static final int DEFAULT_BATCH_SIZE = 32;
+
+	private final int _batchSize;
+	private final Executor _executor;
+	private final AtomicBoolean _running = new AtomicBoolean(false);
+	private final Queue<Runnable> _tasks = new ConcurrentLinkedQueue<>();
+	private volatile Thread _thread;
+
+}
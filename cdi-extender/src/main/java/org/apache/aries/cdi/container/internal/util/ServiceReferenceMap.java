@@ -0,0 +1,210 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.osgi.framework.ServiceReference;
+
+/**
+ * A read-only view of the properties of a service reference. The keys are
+ * taken when the map is created, e.g. when the service event is handled, and
+ * the values are read from the reference. The properties are only copied the
+ * first time the map is modified, from then on the map no longer follows the
+ * reference.
+ * <p>
+ * Unlike {@link ServiceReference#getProperty(String)} the keys are case
+ * sensitive, like those of a copy.
+ */
+public class ServiceReferenceMap extends AbstractMap<String, Object> {
+
+	public ServiceReferenceMap(ServiceReference<?> reference) {
+		_reference = reference;
+		_keys = reference.getPropertyKeys();
+	}
+
+	@Override
+	public void clear() {
+		materialize().clear();
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		Map<String, Object> map = _map;
+
+		if (map != null) {
+			return map.containsKey(key);
+		}
+
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		Map<String, Object> map = _map;
+
+		if (map != null) {
+			return map.entrySet();
+		}
+
+		return new EntrySet();
+	}
+
+	@Override
+	public Object get(Object key) {
+		Map<String, Object> map = _map;
+
+		if (map != null) {
+			return map.get(key);
+		}
+
+		int index = indexOf(key);
+
+		if (index < 0) {
+			return null;
+		}
+
+		return _reference.getProperty(_keys[index]);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		return materialize().put(key, value);
+	}
+
+	@Override
+	public void putAll(Map<? extends String, ? extends Object> m) {
+		materialize().putAll(m);
+	}
+
+	@Override
+	public Object remove(Object key) {
+		return materialize().remove(key);
+	}
+
+	@Override
+	public int size() {
+		Map<String, Object> map = _map;
+
+		if (map != null) {
+			return map.size();
+		}
+
+		return _keys.length;
+	}
+
+	private int indexOf(Object key) {
+		// services have few properties, a scan beats hashing them
+		for (int i = 0; i < _keys.length; i++) {
+			if (_keys[i].equals(key)) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	private Map<String, Object> materialize() {
+		Map<String, Object> map = _map;
+
+		if (map == null) {
+			synchronized (this) {
+				map = _map;
+
+				if (map == null) {
+					map = new HashMap<>();
+
+					for (String key : _keys) {
+						map.put(key, _reference.getProperty(key));
+					}
+
+					_map = map;
+				}
+			}
+		}
+
+		return map;
+	}
+
+	private class EntrySet extends AbstractSet<Entry<String, Object>> {
+
+		@Override
+		public Iterator<Entry<String, Object>> iterator() {
+			return new Iterator<Entry<String, Object>>() {
+
+				@Override
+				public boolean hasNext() {
+					return _index < _keys.length;
+				}
+
+				@Override
+				public Entry<String, Object> next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+
+					String key = _keys[_index++];
+
+					return new SimpleEntry<String, Object>(key, get(key)) {
+
+						private static final long serialVersionUID = 1L;
+
+						@Override
+						public Object setValue(Object value) {
+							put(getKey(), value);
+
+							return super.setValue(value);
+						}
+
+					};
+				}
+
+				@Override
+				public void remove() {
+					if (_index == 0) {
+						throw new IllegalStateException();
+					}
+
+					ServiceReferenceMap.this.remove(_keys[_index - 1]);
+				}
+
+				private int _index;
+
+			};
+		}
+
+		@Override
+		public int size() {
+			return ServiceReferenceMap.this.size();
+		}
+
+	}
+
+	private final String[] _keys;
+	private volatile Map<String, Object> _map;
+	private final ServiceReference<?> _reference;
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ChangeCountTest {
+
+	@Test
+	public void incrementsPropagateToParent() throws Exception {
+		ChangeCount parent = new ChangeCount();
+		ChangeCount first = new ChangeCount(parent);
+		ChangeCount second = new ChangeCount(parent);
+
+		AtomicInteger notified = new AtomicInteger();
+		Runnable listener = notified::incrementAndGet;
+
+		parent.addListener(listener);
+
+		assertEquals(2, first.incrementAndGet());
+		assertEquals(1, second.getAndIncrement());
+
+		assertEquals(3, parent.get());
+		assertEquals(2, notified.get());
+
+		parent.removeListener(listener);
+		first.incrementAndGet();
+
+		assertEquals(4, parent.get());
+		assertEquals(2, notified.get());
+	}
+
+	@Test
+	public void concurrentIncrements() throws Exception {
+		ChangeCount parent = new ChangeCount();
+		ChangeCount child = new ChangeCount(parent);
+
+		Thread[] threads = new Thread[4];
+
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(() -> {
+				for (int j = 0; j < 1000; j++) {
+					child.incrementAndGet();
+				}
+			});
+			threads[i].start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(4001, child.get());
+		assertEquals(4001, parent.get());
+	}
+
+}
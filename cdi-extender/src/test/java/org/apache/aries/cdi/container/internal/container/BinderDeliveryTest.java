@@ -0,0 +1,251 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.aries.cdi.container.internal.container.Op.Type;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BinderDeliveryTest {
+
+	@Before
+	public void before() {
+		executor = Executors.newCachedThreadPool();
+		containerState = mock(ContainerState.class, RETURNS_DEEP_STUBS);
+		timings = new OpTimings(10);
+
+		when(containerState.binderExecutor()).thenReturn(executor);
+		when(containerState.timings()).thenReturn(timings);
+	}
+
+	@After
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void callbacksRunInOrderOffThread() throws Exception {
+		when(containerState.binderAsyncCapacity()).thenReturn(1000);
+
+		BinderDelivery delivery = new BinderDelivery(containerState, "foo");
+		List<Integer> delivered = new CopyOnWriteArrayList<>();
+		List<Thread> threads = new CopyOnWriteArrayList<>();
+		CountDownLatch latch = new CountDownLatch(100);
+
+		for (int i = 0; i < 100; i++) {
+			int value = i;
+
+			delivery.execute(
+				() -> {
+					delivered.add(value);
+					threads.add(Thread.currentThread());
+					latch.countDown();
+				}
+			);
+		}
+
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals(IntStream.range(0, 100).boxed().collect(Collectors.toList()), delivered);
+		assertFalse(threads.contains(Thread.currentThread()));
+
+		// the timing of a callback is recorded after it ran
+		long deadline = System.currentTimeMillis() + 10000;
+
+		while ((binderCount() < 100) && (System.currentTimeMillis() < deadline)) {
+			Thread.sleep(10);
+		}
+
+		assertEquals(100, binderCount());
+	}
+
+	@Test
+	public void reservingDoesNotBlockTheSubmission() throws Exception {
+		when(containerState.binderAsyncCapacity()).thenReturn(1);
+
+		BinderDelivery delivery = new BinderDelivery(containerState, "foo");
+		CountDownLatch delivered = new CountDownLatch(1);
+
+		assertTrue(delivery.reserve());
+
+		ExecutorService caller = Executors.newSingleThreadExecutor();
+
+		try {
+			Future<Boolean> second = caller.submit(delivery::reserve);
+
+			try {
+				second.get(200, TimeUnit.MILLISECONDS);
+
+				throw new AssertionError("the caller was not blocked");
+			}
+			catch (TimeoutException te) {
+				// expected
+			}
+
+			// submitting the reserved callback never blocks
+			delivery.execute(delivered::countDown, true);
+
+			assertTrue(second.get(10, TimeUnit.SECONDS));
+			assertTrue(delivered.await(10, TimeUnit.SECONDS));
+
+			delivery.release(true);
+		}
+		finally {
+			caller.shutdownNow();
+		}
+	}
+
+	@Test
+	public void closeDropsTheWaitingCallbacks() throws Exception {
+		when(containerState.binderAsyncCapacity()).thenReturn(10);
+
+		BinderDelivery delivery = new BinderDelivery(containerState, "foo");
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch blocked = new CountDownLatch(1);
+		List<Integer> delivered = new CopyOnWriteArrayList<>();
+
+		delivery.execute(
+			() -> {
+				started.countDown();
+
+				try {
+					blocked.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+
+				delivered.add(0);
+			}
+		);
+		delivery.execute(() -> delivered.add(1));
+
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+
+		delivery.close();
+		delivery.execute(() -> delivered.add(2));
+		blocked.countDown();
+
+		executor.shutdown();
+
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList(0), delivered);
+		assertFalse(delivery.reserve());
+	}
+
+	@Test
+	public void fullQueueBlocksTheCaller() throws Exception {
+		when(containerState.binderAsyncCapacity()).thenReturn(1);
+
+		BinderDelivery delivery = new BinderDelivery(containerState, "foo");
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch delivered = new CountDownLatch(2);
+
+		delivery.execute(
+			() -> {
+				try {
+					blocked.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+
+				delivered.countDown();
+			}
+		);
+
+		ExecutorService caller = Executors.newSingleThreadExecutor();
+
+		try {
+			Future<?> second = caller.submit(() -> delivery.execute(delivered::countDown));
+
+			try {
+				second.get(200, TimeUnit.MILLISECONDS);
+
+				throw new AssertionError("the caller was not blocked");
+			}
+			catch (TimeoutException te) {
+				// expected
+			}
+
+			blocked.countDown();
+
+			second.get(10, TimeUnit.SECONDS);
+
+			assertTrue(delivered.await(10, TimeUnit.SECONDS));
+		}
+		finally {
+			caller.shutdownNow();
+		}
+	}
+
+	@Test
+	public void callbacksMayCauseCallbacks() throws Exception {
+		when(containerState.binderAsyncCapacity()).thenReturn(1);
+
+		BinderDelivery delivery = new BinderDelivery(containerState, "foo");
+		List<Thread> threads = new CopyOnWriteArrayList<>();
+		CountDownLatch latch = new CountDownLatch(1);
+
+		delivery.execute(
+			() -> {
+				threads.add(Thread.currentThread());
+
+				// e.g. the callback registers a service tracked by the same binder
+				delivery.execute(
+					() -> {
+						threads.add(Thread.currentThread());
+						latch.countDown();
+					}
+				);
+			}
+		);
+
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals(2, threads.size());
+		assertNotSame(Thread.currentThread(), threads.get(1));
+	}
+
+	private long binderCount() {
+		return timings.types().stream().filter(
+			t -> t.type.equals(Type.BINDER.name())
+		).mapToLong(t -> t.count).findFirst().orElse(0);
+	}
+
+	private ContainerState containerState;
+	private ExecutorService executor;
+	private OpTimings timings;
+
+}
@@ -0,0 +1,230 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.context.spi.CreationalContext;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.InjectionPoint;
+
+import org.apache.aries.cdi.container.internal.container.ComponentContext.With;
+import org.apache.aries.cdi.container.internal.model.ExtendedActivationDTO;
+import org.junit.Test;
+import org.osgi.service.cdi.annotations.ComponentScoped;
+
+public class ComponentContextTest {
+
+	@Test
+	public void instancesBelongToTheActivation() throws Exception {
+		ExtendedActivationDTO first = new ExtendedActivationDTO();
+		ExtendedActivationDTO second = new ExtendedActivationDTO();
+
+		assertFalse(context.isActive());
+		assertNull(context.get(bean, creationalContext));
+
+		Object instance;
+
+		try (With with = new With(first)) {
+			assertTrue(context.isActive());
+
+			instance = context.get(bean, creationalContext);
+
+			assertSame(instance, context.get(bean));
+			assertSame(instance, context.get(bean, creationalContext));
+		}
+
+		try (With with = new With(second)) {
+			assertNull(context.get(bean));
+		}
+
+		assertEquals(1, first.instances.size());
+		assertEquals(0, second.instances.size());
+
+		try (With with = new With(first)) {
+			context.destroy();
+		}
+
+		assertEquals(0, first.instances.size());
+		assertEquals(1, bean.created.get());
+		assertEquals(1, bean.destroyed.get());
+	}
+
+	@Test
+	public void activationsLeaveNothingBehind() throws Exception {
+		// like a prototype scoped service being got and ungot over and over
+		for (int i = 0; i < 1000; i++) {
+			ExtendedActivationDTO activationDTO = new ExtendedActivationDTO();
+
+			try (With with = new With(activationDTO)) {
+				context.get(bean, creationalContext);
+
+				assertEquals(1, activationDTO.instances.size());
+
+				context.destroy();
+
+				assertEquals(0, activationDTO.instances.size());
+			}
+
+			assertNull(With.current());
+			assertFalse(context.isActive());
+		}
+
+		assertEquals(1000, bean.created.get());
+		assertEquals(1000, bean.destroyed.get());
+	}
+
+	@Test
+	public void activatedInstancesAreCollected() throws Exception {
+		List<WeakReference<Object>> references = new ArrayList<>();
+
+		for (int i = 0; i < 100; i++) {
+			activateAndDestroy(references);
+		}
+
+		for (int i = 0; (i < 50) && !collected(references); i++) {
+			System.gc();
+
+			Thread.sleep(20);
+		}
+
+		assertTrue(references.size() + " instances and contexts were retained", collected(references));
+		assertEquals(100, bean.destroyed.get());
+	}
+
+	/*
+	 * Nothing of the activation must be reachable from this frame once it
+	 * returns, only from the component context if it leaked.
+	 */
+	private void activateAndDestroy(List<WeakReference<Object>> references) {
+		ExtendedActivationDTO activationDTO = new ExtendedActivationDTO();
+		CreationalContext<Object> cc = new CreationalContext<Object>() {
+
+			@Override
+			public void push(Object incompleteInstance) {
+			}
+
+			@Override
+			public void release() {
+			}
+
+		};
+
+		try (With with = new With(activationDTO)) {
+			references.add(new WeakReference<>(context.get(bean, cc)));
+			references.add(new WeakReference<>(activationDTO));
+			references.add(new WeakReference<>(cc));
+
+			context.destroy();
+		}
+	}
+
+	private boolean collected(List<WeakReference<Object>> references) {
+		references.removeIf(reference -> reference.get() == null);
+
+		return references.isEmpty();
+	}
+
+	private final TestBean bean = new TestBean();
+	private final ComponentContext context = new ComponentContext();
+	private final CreationalContext<Object> creationalContext = new CreationalContext<Object>() {
+
+		@Override
+		public void push(Object incompleteInstance) {
+		}
+
+		@Override
+		public void release() {
+		}
+
+	};
+
+	private static class TestBean implements Bean<Object> {
+
+		@Override
+		public Object create(CreationalContext<Object> creationalContext) {
+			created.incrementAndGet();
+			return new Object();
+		}
+
+		@Override
+		public void destroy(Object instance, CreationalContext<Object> creationalContext) {
+			destroyed.incrementAndGet();
+		}
+
+		@Override
+		public Set<Type> getTypes() {
+			return Collections.singleton(Object.class);
+		}
+
+		@Override
+		public Set<Annotation> getQualifiers() {
+			return Collections.emptySet();
+		}
+
+		@Override
+		public Class<? extends Annotation> getScope() {
+			return ComponentScoped.class;
+		}
+
+		@Override
+		public String getName() {
+			return null;
+		}
+
+		@Override
+		public Set<Class<? extends Annotation>> getStereotypes() {
+			return Collections.emptySet();
+		}
+
+		@Override
+		public boolean isAlternative() {
+			return false;
+		}
+
+		@Override
+		public Class<?> getBeanClass() {
+			return TestBean.class;
+		}
+
+		@Override
+		public Set<InjectionPoint> getInjectionPoints() {
+			return Collections.emptySet();
+		}
+
+		@Override
+		public boolean isNullable() {
+			return false;
+		}
+
+		final AtomicInteger created = new AtomicInteger();
+		final AtomicInteger destroyed = new AtomicInteger();
+
+	}
+
+}
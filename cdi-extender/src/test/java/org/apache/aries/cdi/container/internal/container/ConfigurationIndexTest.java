@@ -0,0 +1,260 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.aries.cdi.container.internal.model.Component;
+import org.apache.aries.cdi.container.internal.util.Filters;
+import org.apache.aries.cdi.container.test.BaseCDIBundleTest;
+import org.apache.aries.cdi.container.test.MockConfiguration;
+import org.apache.aries.cdi.container.test.TestUtil;
+import org.junit.Test;
+import org.mockito.stubbing.Answer;
+import org.osgi.framework.Filter;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.cdi.MaximumCardinality;
+import org.osgi.service.cdi.runtime.dto.template.ComponentTemplateDTO;
+import org.osgi.service.cdi.runtime.dto.template.ConfigurationTemplateDTO;
+import org.osgi.service.cm.Configuration;
+import org.osgi.service.cm.ConfigurationAdmin;
+import org.osgi.service.cm.ConfigurationEvent;
+
+public class ConfigurationIndexTest extends BaseCDIBundleTest {
+
+	@Test
+	public void eventsOnlyReachMatchingComponents() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+		ConfigurationIndex index = containerState.configurationIndex();
+
+		Recorder foo1 = new Recorder(containerState, "foo", MaximumCardinality.ONE);
+		Recorder foo2 = new Recorder(containerState, "foo", MaximumCardinality.ONE);
+		Recorder bar = new Recorder(containerState, "bar", MaximumCardinality.MANY);
+
+		index.add(foo1);
+		index.add(foo2);
+		index.add(bar);
+
+		assertEquals(1, listenerServices());
+
+		index.configurationEvent(event(null, "foo"));
+		index.configurationEvent(event("bar", "bar~1"));
+		index.configurationEvent(event(null, "baz"));
+
+		assertEquals(1, foo1.events.size());
+		assertEquals(1, foo2.events.size());
+		assertEquals(1, bar.events.size());
+		assertEquals("bar~1", bar.events.get(0).getPid());
+
+		index.remove(foo1);
+		index.configurationEvent(event(null, "foo"));
+
+		assertEquals(1, foo1.events.size());
+		assertEquals(2, foo2.events.size());
+
+		index.remove(foo2);
+		index.remove(bar);
+
+		assertEquals(0, index.size());
+		assertEquals(0, listenerServices());
+	}
+
+	@Test
+	public void configurationsAreFetchedOnce() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+		ConfigurationIndex index = containerState.configurationIndex();
+
+		ComponentTemplateDTO component = new ComponentTemplateDTO();
+		component.configurations = new ArrayList<>();
+		component.configurations.add(template("foo", MaximumCardinality.ONE));
+		component.configurations.add(template("bar", MaximumCardinality.MANY));
+		containerState.containerDTO().template.components.add(component);
+
+		List<Configuration> store = new CopyOnWriteArrayList<>();
+		store.add(configuration(null, "foo"));
+		store.add(configuration("bar", "bar~1"));
+		store.add(configuration("bar", "bar~2"));
+		store.add(configuration(null, "baz"));
+
+		ConfigurationAdmin ca = containerState.caTracker().getService();
+
+		when(ca.listConfigurations(anyString())).then(
+			(Answer<Configuration[]>) invocation -> {
+				Filter filter = Filters.asFilter(invocation.getArgument(0));
+
+				Configuration[] configurations = store.stream().filter(
+					c -> filter.match(c.getProperties())
+				).toArray(Configuration[]::new);
+
+				return (configurations.length == 0) ? null : configurations;
+			}
+		);
+
+		assertTrue(index.findConfig("foo").isPresent());
+		assertEquals(2, index.findConfigs("bar", true).get().length);
+		assertTrue(index.findConfig("bar~1").isPresent());
+		assertFalse(index.findConfig(containerState.containerDTO().template.components.get(0).configurations.get(0).pid).isPresent());
+
+		verify(ca, times(1)).listConfigurations(anyString());
+
+		store.add(configuration("bar", "bar~3"));
+		index.configurationEvent(event(ConfigurationEvent.CM_UPDATED, "bar", "bar~3"));
+
+		assertEquals(3, index.findConfigs("bar", true).get().length);
+
+		store.remove(0);
+		index.configurationEvent(event(ConfigurationEvent.CM_DELETED, null, "foo"));
+
+		assertFalse(index.findConfig("foo").isPresent());
+
+		// only the new configuration was fetched
+		verify(ca, times(2)).listConfigurations(anyString());
+
+		// not covered by a template
+		assertTrue(index.findConfig("baz").isPresent());
+
+		verify(ca, times(3)).listConfigurations(anyString());
+	}
+
+	@Test
+	public void eventsRacingTheQueryAreApplied() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+		ConfigurationIndex index = containerState.configurationIndex();
+
+		ComponentTemplateDTO component = new ComponentTemplateDTO();
+		component.configurations = new ArrayList<>();
+		component.configurations.add(template("foo", MaximumCardinality.ONE));
+		component.configurations.add(template("bar", MaximumCardinality.MANY));
+		containerState.containerDTO().template.components.add(component);
+
+		List<Configuration> store = new CopyOnWriteArrayList<>();
+		store.add(configuration(null, "foo"));
+		store.add(configuration("bar", "bar~1"));
+
+		ConfigurationAdmin ca = containerState.caTracker().getService();
+		AtomicBoolean first = new AtomicBoolean(true);
+
+		when(ca.listConfigurations(anyString())).then(
+			(Answer<Configuration[]>) invocation -> {
+				Filter filter = Filters.asFilter(invocation.getArgument(0));
+
+				Configuration[] configurations = store.stream().filter(
+					c -> filter.match(c.getProperties())
+				).toArray(Configuration[]::new);
+
+				if (first.getAndSet(false)) {
+					// changed after the store was read
+					store.add(configuration("bar", "bar~2"));
+					index.configurationEvent(event(ConfigurationEvent.CM_UPDATED, "bar", "bar~2"));
+					store.remove(0);
+					index.configurationEvent(event(ConfigurationEvent.CM_DELETED, null, "foo"));
+				}
+
+				return (configurations.length == 0) ? null : configurations;
+			}
+		);
+
+		assertEquals(2, index.findConfigs("bar", true).get().length);
+		assertFalse(index.findConfig("foo").isPresent());
+
+		// the snapshot was kept, only the changed configurations were fetched again
+		verify(ca, times(3)).listConfigurations(anyString());
+
+		assertTrue(index.findConfig("bar~2").isPresent());
+		assertFalse(index.findConfig("foo").isPresent());
+
+		verify(ca, times(3)).listConfigurations(anyString());
+	}
+
+	private Configuration configuration(String factoryPid, String pid) throws Exception {
+		Dictionary<String, Object> properties = new Hashtable<>();
+
+		if (factoryPid != null) {
+			properties.put(ConfigurationAdmin.SERVICE_FACTORYPID, factoryPid);
+		}
+
+		MockConfiguration configuration = new MockConfiguration(pid, factoryPid);
+		configuration.update(properties);
+
+		return configuration;
+	}
+
+	private ConfigurationEvent event(String factoryPid, String pid) {
+		return event(ConfigurationEvent.CM_UPDATED, factoryPid, pid);
+	}
+
+	private ConfigurationEvent event(int type, String factoryPid, String pid) {
+		@SuppressWarnings("unchecked")
+		ServiceReference<ConfigurationAdmin> reference = mock(ServiceReference.class);
+
+		return new ConfigurationEvent(reference, type, factoryPid, pid);
+	}
+
+	private ConfigurationTemplateDTO template(String pid, MaximumCardinality maximumCardinality) {
+		ConfigurationTemplateDTO template = new ConfigurationTemplateDTO();
+		template.pid = pid;
+		template.maximumCardinality = maximumCardinality;
+		return template;
+	}
+
+	private long listenerServices() {
+		return TestUtil.serviceRegistrations.stream().filter(
+			reg -> reg.getReference().getService() instanceof ConfigurationIndex
+		).count();
+	}
+
+	private static class Recorder extends ConfigurationListener {
+
+		Recorder(ContainerState containerState, String pid, MaximumCardinality maximumCardinality) {
+			super(containerState, component(pid, maximumCardinality));
+		}
+
+		@Override
+		public void configurationEvent(ConfigurationEvent event) {
+			events.add(event);
+		}
+
+		private static Component component(String pid, MaximumCardinality maximumCardinality) {
+			ConfigurationTemplateDTO template = new ConfigurationTemplateDTO();
+			template.pid = pid;
+			template.maximumCardinality = maximumCardinality;
+
+			Component component = mock(Component.class);
+
+			when(component.configurationTemplates()).thenReturn(Collections.singletonList(template));
+
+			return component;
+		}
+
+		final List<ConfigurationEvent> events = new CopyOnWriteArrayList<>();
+
+	}
+
+}
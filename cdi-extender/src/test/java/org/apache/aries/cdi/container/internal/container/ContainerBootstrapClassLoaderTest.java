@@ -0,0 +1,115 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.container;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.apache.aries.cdi.container.internal.model.BeansModel;
+import org.apache.aries.cdi.container.test.BaseCDIBundleTest;
+import org.apache.aries.cdi.container.test.TestUtil;
+import org.apache.aries.cdi.spi.CDIContainerInitializer;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.ServiceObjects;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.wiring.BundleRevision;
+import org.osgi.framework.wiring.BundleWiring;
+import org.osgi.util.tracker.ServiceTracker;
+
+public class ContainerBootstrapClassLoaderTest extends BaseCDIBundleTest {
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void before() throws Exception {
+		BeansModel beansModel = mock(BeansModel.class);
+		when(beansModel.getOSGiBeans()).thenReturn(Collections.emptyList());
+
+		containerState = TestUtil.getContainerState(beansModel);
+
+		when(containerState.bundleContext().getProperty(ContainerBootstrap.PROXY_CACHE)).thenReturn("true");
+
+		revision = mock(BundleRevision.class);
+		wiring = wiring(revision);
+
+		when(containerState.bundle().adapt(BundleWiring.class)).thenReturn(wiring);
+		when(containerState.bundle().adapt(BundleRevision.class)).thenReturn(revision);
+
+		BundleWiring initializerWiring = wiring(mock(BundleRevision.class));
+
+		Bundle initializerBundle = mock(Bundle.class);
+		when(initializerBundle.adapt(BundleWiring.class)).thenReturn(initializerWiring);
+
+		ServiceReference<CDIContainerInitializer> reference = mock(ServiceReference.class);
+		when(reference.getBundle()).thenReturn(initializerBundle);
+
+		ServiceObjects<CDIContainerInitializer> serviceObjects = mock(ServiceObjects.class);
+		when(serviceObjects.getServiceReference()).thenReturn(reference);
+
+		ServiceTracker<CDIContainerInitializer, ServiceObjects<CDIContainerInitializer>> containerTracker = mock(ServiceTracker.class);
+		when(containerTracker.getService()).thenReturn(serviceObjects);
+
+		containerBootstrap = new ContainerBootstrap(
+			containerState, containerTracker, null, null, null, mock(ServiceTracker.class));
+	}
+
+	@Test
+	public void unchangedWiringReusesTheLoader() throws Exception {
+		assertSame(containerBootstrap.classLoader(), containerBootstrap.classLoader());
+	}
+
+	@Test
+	public void refreshWithTheSameRevisionReplacesTheLoader() throws Exception {
+		ClassLoader first = containerBootstrap.classLoader();
+
+		// a refresh keeps the revision but replaces the wiring
+		BundleWiring refreshed = wiring(revision);
+
+		when(wiring.isCurrent()).thenReturn(false);
+		when(containerState.bundle().adapt(BundleWiring.class)).thenReturn(refreshed);
+
+		ClassLoader second = containerBootstrap.classLoader();
+
+		assertNotSame(first, second);
+		assertSame(second, containerBootstrap.classLoader());
+	}
+
+	@Test
+	public void wiringWhichIsNoLongerCurrentReplacesTheLoader() throws Exception {
+		ClassLoader first = containerBootstrap.classLoader();
+
+		when(wiring.isCurrent()).thenReturn(false);
+
+		assertNotSame(first, containerBootstrap.classLoader());
+	}
+
+	private BundleWiring wiring(BundleRevision revision) {
+		BundleWiring wiring = mock(BundleWiring.class);
+		when(wiring.getRevision()).thenReturn(revision);
+		when(wiring.isCurrent()).thenReturn(true);
+		return wiring;
+	}
+
+	private ContainerBootstrap containerBootstrap;
+	private ContainerState containerState;
+	private BundleRevision revision;
+	private BundleWiring wiring;
+
+}
@@ -0,0 +1,114 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.aries.cdi.container.internal.container.Op.Mode;
+import org.apache.aries.cdi.container.internal.container.Op.Type;
+import org.apache.aries.cdi.container.test.BaseCDIBundleTest;
+import org.apache.aries.cdi.container.test.TestUtil;
+import org.junit.Test;
+import org.osgi.util.promise.Promise;
+
+public class ContainerStateRebindTest extends BaseCDIBundleTest {
+
+	@Test
+	public void queuedOpensAreCoalesced() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+
+		CountDownLatch blocked = new CountDownLatch(1);
+
+		// keep the container busy so that the rebinds queue up
+		containerState.promiseFactory().submit(() -> blocked.await(10, TimeUnit.SECONDS));
+
+		List<Promise<Boolean>> promises = new ArrayList<>();
+
+		for (int i = 0; i < 5; i++) {
+			promises.add(rebind(containerState, "foo[1]"));
+		}
+
+		Promise<Boolean> other = rebind(containerState, "bar[2]");
+
+		// closes always happen right away
+		assertEquals(6, closes.get());
+		assertEquals(0, opens.get());
+
+		blocked.countDown();
+
+		for (Promise<Boolean> promise : promises) {
+			promise.getValue();
+		}
+
+		other.getValue();
+
+		assertTrue(promises.get(0).getValue());
+		assertFalse(promises.get(4).getValue());
+		assertEquals(2, opens.get());
+		assertEquals(4, containerState.coalescedRebinds());
+
+		// once done the next rebind is not coalesced
+		rebind(containerState, "foo[1]").getValue();
+
+		assertEquals(3, opens.get());
+	}
+
+	@Test
+	public void queuedRestartsAreCoalesced() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+
+		CountDownLatch blocked = new CountDownLatch(1);
+
+		containerState.promiseFactory().submit(() -> blocked.await(10, TimeUnit.SECONDS));
+
+		List<Promise<Boolean>> promises = new ArrayList<>();
+
+		// e.g. three extensions arriving at once
+		for (int i = 0; i < 3; i++) {
+			promises.add(containerState.restart(
+				Op.of(Mode.CLOSE, Type.CONTAINER_BOOTSTRAP, containerState.id()), () -> closes.incrementAndGet() > 0,
+				Op.of(Mode.OPEN, Type.CONTAINER_BOOTSTRAP, containerState.id()), () -> opens.incrementAndGet() > 0));
+		}
+
+		blocked.countDown();
+
+		for (Promise<Boolean> promise : promises) {
+			promise.getValue();
+		}
+
+		assertEquals(3, closes.get());
+		assertEquals(1, opens.get());
+		assertEquals(2, containerState.avoidedRestarts());
+		assertEquals(0, containerState.coalescedRebinds());
+	}
+
+	private Promise<Boolean> rebind(ContainerState containerState, String ident) {
+		return containerState.rebind(
+			Op.of(Mode.CLOSE, Type.SINGLE_ACTIVATOR, ident), () -> closes.incrementAndGet() > 0,
+			Op.of(Mode.OPEN, Type.SINGLE_ACTIVATOR, ident), () -> opens.incrementAndGet() > 0);
+	}
+
+	private final AtomicInteger closes = new AtomicInteger();
+	private final AtomicInteger opens = new AtomicInteger();
+
+}
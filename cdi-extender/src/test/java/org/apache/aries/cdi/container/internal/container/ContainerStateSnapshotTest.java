@@ -0,0 +1,137 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.aries.cdi.container.internal.container.Op.Mode;
+import org.apache.aries.cdi.container.internal.container.Op.Type;
+import org.apache.aries.cdi.container.test.BaseCDIBundleTest;
+import org.apache.aries.cdi.container.test.TestUtil;
+import org.junit.Test;
+import org.osgi.service.cdi.runtime.dto.ContainerDTO;
+import org.osgi.util.promise.Promise;
+
+public class ContainerStateSnapshotTest extends BaseCDIBundleTest {
+
+	@Test
+	public void snapshotIsSharedUntilChanged() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+
+		ContainerDTO first = containerState.containerDTOSnapshot();
+
+		assertSame(first.components, containerState.containerDTOSnapshot().components);
+
+		containerState.containerDTO().errors.add("failure");
+		containerState.dtoChanged();
+		drainLane(containerState);
+
+		ContainerDTO second = containerState.containerDTOSnapshot();
+
+		assertNotSame(first.errors, second.errors);
+		assertEquals(first.errors.size() + 1, second.errors.size());
+		assertEquals(first.changeCount, second.changeCount);
+
+		containerState.incrementChangeCount();
+		drainLane(containerState);
+
+		ContainerDTO third = containerState.containerDTOSnapshot();
+
+		assertNotSame(second.errors, third.errors);
+		assertEquals(second.changeCount + 1, third.changeCount);
+	}
+
+	@Test
+	public void opsInvalidateSnapshot() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+
+		ContainerDTO first = containerState.containerDTOSnapshot();
+
+		containerState.submit(Op.of(Mode.CLOSE, Type.CONTAINER_BOOTSTRAP, containerState.id()), () -> true).getValue();
+		drainLane(containerState);
+
+		assertNotSame(first.components, containerState.containerDTOSnapshot().components);
+	}
+
+	@Test
+	public void topLevelDTOsBelongToTheCaller() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+
+		ContainerDTO first = containerState.containerDTOSnapshot();
+
+		long changeCount = first.changeCount;
+
+		first.changeCount = -1;
+		first.template.id = "changed";
+
+		ContainerDTO second = containerState.containerDTOSnapshot();
+
+		assertNotSame(first, second);
+		assertEquals(changeCount, second.changeCount);
+		assertEquals(containerState.id(), second.template.id);
+	}
+
+	@Test
+	public void snapshotDoesNotWaitForTheLane() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+
+		ContainerDTO first = containerState.containerDTOSnapshot();
+
+		CountDownLatch release = new CountDownLatch(1);
+
+		Promise<Boolean> busy = containerState.promiseFactory().submit(() -> release.await(10, TimeUnit.SECONDS));
+
+		try {
+			containerState.incrementChangeCount();
+
+			// the lane is busy, the last published snapshot is served
+			ContainerDTO second = containerState.containerDTOSnapshot();
+
+			assertSame(first.components, second.components);
+			assertEquals(first.changeCount, second.changeCount);
+
+			containerState.dtoChanged();
+			containerState.dtoChanged();
+		}
+		finally {
+			release.countDown();
+		}
+
+		assertTrue(busy.getValue());
+
+		drainLane(containerState);
+
+		assertEquals(first.changeCount + 1, containerState.containerDTOSnapshot().changeCount);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void snapshotIsUnmodifiable() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+
+		containerState.containerDTOSnapshot().errors.add("failure");
+	}
+
+	private void drainLane(ContainerState containerState) throws Exception {
+		// snapshots are published by the lane, which runs its tasks in order
+		containerState.promiseFactory().submit(() -> true).getValue();
+	}
+
+}
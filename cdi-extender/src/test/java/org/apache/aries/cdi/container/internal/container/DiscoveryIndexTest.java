@@ -0,0 +1,133 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.container;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DiscoveryIndexTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void plainAndOsgi() throws Exception {
+		DiscoveryIndex index = read(
+			"# Aries CDI discovery index\n" +
+			"version=2\n" +
+			"com.acme.Plain=plain," + classFile("com.acme.Plain", "plain") + "\n" +
+			"com.acme.Component=osgi," + classFile("com.acme.Component", "osgi") + "\n");
+
+		assertFalse(index.isEmpty());
+		assertTrue(index.isPlain("com.acme.Plain"));
+		assertFalse(index.isPlain("com.acme.Component"));
+		assertFalse(index.isPlain("com.acme.Unknown"));
+	}
+
+	@Test
+	public void unknownVersionIsIgnored() throws Exception {
+		DiscoveryIndex index = read(
+			"version=1\n" +
+			"com.acme.Plain=plain\n");
+
+		assertTrue(index.isEmpty());
+		assertFalse(index.isPlain("com.acme.Plain"));
+	}
+
+	@Test
+	public void missingIndex() throws Exception {
+		assertTrue(DiscoveryIndex.read((URL)null, this::classFile).isEmpty());
+	}
+
+	@Test
+	public void classFileChangedSinceTheIndexWasBuilt() throws Exception {
+		DiscoveryIndex index = read(
+			"version=2\n" +
+			"com.acme.Changed=plain," + classFile("com.acme.Changed", "before") + "\n" +
+			"com.acme.Plain=plain," + classFile("com.acme.Plain", "plain") + "\n");
+
+		classFile("com.acme.Changed", "after");
+
+		assertFalse(index.isPlain("com.acme.Changed"));
+
+		// the index is stale, none of it is trusted any longer
+		assertTrue(index.isEmpty());
+		assertFalse(index.isPlain("com.acme.Plain"));
+	}
+
+	@Test
+	public void missingClassFileIsNotPlain() throws Exception {
+		DiscoveryIndex index = read(
+			"version=2\n" +
+			"com.acme.Embedded=plain,0\n" +
+			"com.acme.Plain=plain," + classFile("com.acme.Plain", "plain") + "\n");
+
+		assertFalse(index.isPlain("com.acme.Embedded"));
+		assertTrue(index.isPlain("com.acme.Plain"));
+	}
+
+	@Test
+	public void indexMustListAllBeanClasses() throws Exception {
+		DiscoveryIndex index = read(
+			"version=2\n" +
+			"com.acme.Plain=plain," + classFile("com.acme.Plain", "plain") + "\n");
+
+		assertSame(index, index.listing(Arrays.asList("com.acme.Plain")));
+		assertSame(DiscoveryIndex.EMPTY, index.listing(Arrays.asList("com.acme.Plain", "com.acme.Added")));
+	}
+
+	private String classFile(String className, String content) throws Exception {
+		Path path = temporaryFolder.getRoot().toPath().resolve(className.replace('.', '/') + ".class");
+
+		Files.createDirectories(path.getParent());
+		Files.write(path, content.getBytes(UTF_8));
+
+		CRC32 crc = new CRC32();
+		crc.update(content.getBytes(UTF_8));
+
+		return Long.toHexString(crc.getValue());
+	}
+
+	private URL classFile(String path) {
+		File file = new File(temporaryFolder.getRoot(), path);
+
+		try {
+			return file.exists() ? file.toURI().toURL() : null;
+		}
+		catch (MalformedURLException mue) {
+			throw new AssertionError(mue);
+		}
+	}
+
+	private DiscoveryIndex read(String content) throws Exception {
+		return DiscoveryIndex.read(new ByteArrayInputStream(content.getBytes(UTF_8)), this::classFile);
+	}
+
+}
@@ -0,0 +1,113 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.container;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.aries.cdi.container.internal.container.Op.Mode;
+import org.apache.aries.cdi.container.internal.container.Op.Type;
+import org.apache.aries.cdi.container.test.BaseCDIBundleTest;
+import org.apache.aries.cdi.container.test.TestUtil;
+import org.apache.aries.cdi.spi.runtime.OpTimingDTO;
+import org.apache.aries.cdi.spi.runtime.OpTypeTimingsDTO;
+import org.junit.Test;
+
+public class OpTimingsTest extends BaseCDIBundleTest {
+
+	@Test
+	public void recentOpsAreBounded() throws Exception {
+		OpTimings timings = new OpTimings(3);
+
+		for (int i = 0; i < 5; i++) {
+			timings.record(Op.of(Mode.OPEN, Type.SINGLE_ACTIVATOR, "foo" + i), i, 0, i, false);
+		}
+
+		List<OpTimingDTO> recent = timings.recent();
+
+		assertEquals(3, recent.size());
+		assertEquals("foo2", recent.get(0).name);
+		assertEquals("foo4", recent.get(2).name);
+
+		OpTypeTimingsDTO typeDTO = timings.types().get(0);
+
+		assertEquals(1, timings.types().size());
+		assertEquals("SINGLE_ACTIVATOR", typeDTO.type);
+		assertEquals(5, typeDTO.count);
+		assertEquals(10, typeDTO.totalRunNanos);
+		assertEquals(4, typeDTO.maxRunNanos);
+	}
+
+	@Test
+	public void histogramBuckets() throws Exception {
+		OpTimings timings = new OpTimings(0);
+
+		for (long millis : new long[] {0, 1, 9, 10, 999, 10_000, 60_000}) {
+			timings.record(Op.of(Mode.CLOSE, Type.CONTAINER_BOOTSTRAP, "c"), 0, 0, TimeUnit.MILLISECONDS.toNanos(millis), millis == 0);
+		}
+
+		OpTypeTimingsDTO typeDTO = timings.types().get(0);
+
+		assertEquals(0, timings.recent().size());
+		assertEquals(1, typeDTO.failures);
+		assertArrayEquals(new long[] {1, 2, 1, 1, 0, 2}, typeDTO.runHistogram);
+		assertArrayEquals(new long[] {7, 0, 0, 0, 0, 0}, typeDTO.waitHistogram);
+	}
+
+	@Test
+	public void submittedOpsAreTimed() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+
+		CountDownLatch blocked = new CountDownLatch(1);
+
+		// keep the container busy so that the open waits
+		containerState.promiseFactory().submit(() -> blocked.await(10, TimeUnit.SECONDS));
+
+		containerState.submit(Op.of(Mode.CLOSE, Type.SINGLE_ACTIVATOR, "foo"), () -> true).getValue();
+
+		containerState.promiseFactory().scheduledExecutor().schedule(blocked::countDown, 50, TimeUnit.MILLISECONDS);
+
+		containerState.submit(Op.of(Mode.OPEN, Type.SINGLE_ACTIVATOR, "foo"), () -> {
+			Thread.sleep(20);
+			return true;
+		}).getValue();
+
+		containerState.submit(Op.of(Mode.OPEN, Type.SINGLE_ACTIVATOR, "bar"), () -> {
+			throw new IllegalStateException();
+		}).getFailure();
+
+		List<OpTimingDTO> recent = containerState.timings().recent();
+
+		assertEquals(
+			"[CLOSE foo, OPEN foo, OPEN bar]",
+			recent.stream().map(o -> o.mode + " " + o.name).collect(Collectors.toList()).toString());
+		assertEquals(0, recent.get(0).waitNanos);
+		assertTrue(recent.get(1).waitNanos >= TimeUnit.MILLISECONDS.toNanos(20));
+		assertTrue(recent.get(1).runNanos >= TimeUnit.MILLISECONDS.toNanos(20));
+		assertTrue(recent.get(2).failed);
+
+		OpTypeTimingsDTO typeDTO = containerState.timings().types().get(0);
+
+		assertEquals(3, typeDTO.count);
+		assertEquals(1, typeDTO.failures);
+	}
+
+}
@@ -0,0 +1,317 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.aries.cdi.container.test.TestUtil;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.framework.dto.BundleDTO;
+import org.osgi.service.cdi.annotations.Reference;
+import org.osgi.util.tracker.ServiceTrackerCustomizer;
+
+public class ReferenceIndexTest {
+
+	@Before
+	public void before() throws Exception {
+		TestUtil.serviceListeners.clear();
+		TestUtil.serviceRegistrations.clear();
+
+		BundleDTO bundleDTO = new BundleDTO();
+		bundleDTO.id = 1;
+		bundleDTO.symbolicName = "foo";
+
+		bundleContext = TestUtil.mockBundle(bundleDTO, b -> {}).getBundleContext();
+		index = new ReferenceIndex(bundleContext);
+	}
+
+	@Test
+	public void oneListenerPerServiceType() throws Exception {
+		Recorder red = new Recorder();
+		Recorder blue = new Recorder();
+
+		ReferenceIndex.Tracker redTracker = index.tracker("test.Foo", "(&(objectClass=test.Foo)(color=red))", red);
+		ReferenceIndex.Tracker blueTracker = index.tracker("test.Foo", "(&(objectClass=test.Foo)(color=blue))", blue);
+
+		redTracker.open();
+		blueTracker.open();
+
+		assertEquals(1, index.listeners());
+
+		register("test.Foo", "red");
+		register("test.Foo", "blue");
+		register("test.Foo", "blue");
+		register("test.Bar", "red");
+
+		assertEquals(1, red.added.size());
+		assertEquals(2, blue.added.size());
+		assertEquals(2, blueTracker.size());
+
+		redTracker.close();
+
+		assertEquals(1, index.listeners());
+		assertEquals(1, red.removed.size());
+
+		blueTracker.close();
+
+		assertEquals(0, index.listeners());
+		assertEquals(2, blue.removed.size());
+	}
+
+	@Test
+	public void existingServicesAreTracked() throws Exception {
+		register("test.Foo", "red");
+
+		Recorder first = new Recorder();
+		Recorder second = new Recorder();
+
+		index.tracker("test.Foo", "(&(objectClass=test.Foo)(color=red))", first).open();
+		index.tracker("test.Foo", "(&(objectClass=test.Foo)(color=red))", second).open();
+
+		assertEquals(1, first.added.size());
+		assertEquals(1, second.added.size());
+	}
+
+	@Test
+	public void modifiedAndUnregistered() throws Exception {
+		Recorder red = new Recorder();
+
+		ReferenceIndex.Tracker tracker = index.tracker(
+			Reference.Any.class.getName(), "(color=red)", red);
+
+		tracker.open();
+
+		ServiceRegistration<?> registration = register("test.Foo", "red");
+
+		assertEquals(registration.getReference(), tracker.getServiceReference());
+
+		Hashtable<String, Object> properties = new Hashtable<>();
+		properties.put("color", "red");
+		properties.put("size", 1);
+		registration.setProperties(properties);
+
+		assertEquals(1, red.modified.size());
+
+		properties.put("color", "green");
+		registration.setProperties(properties);
+
+		assertEquals(1, red.removed.size());
+		assertNull(tracker.getServiceReference());
+
+		properties.put("color", "red");
+		registration.setProperties(properties);
+
+		assertEquals(2, red.added.size());
+
+		registration.unregister();
+
+		assertEquals(2, red.removed.size());
+		assertNull(tracker.getServiceReferences());
+	}
+
+	@Test
+	public void servicesSnapshot() throws Exception {
+		Recorder red = new Recorder();
+
+		ReferenceIndex.Tracker tracker = index.tracker("test.Foo", "(&(objectClass=test.Foo)(color=red))", red);
+
+		tracker.open();
+
+		assertTrue(tracker.services().isEmpty());
+
+		ServiceRegistration<?> low = register("test.Foo", "red", -1);
+		ServiceRegistration<?> high = register("test.Foo", "red", 10);
+		ServiceRegistration<?> middle = register("test.Foo", "red", 0);
+
+		List<Object> services = tracker.services();
+
+		assertEquals(Arrays.asList(high.getReference(), middle.getReference(), low.getReference()), services);
+		assertSame(services, tracker.services());
+
+		Hashtable<String, Object> properties = new Hashtable<>();
+		properties.put("color", "red");
+		properties.put(Constants.SERVICE_RANKING, 20);
+		low.setProperties(properties);
+
+		assertEquals(Arrays.asList(low.getReference(), high.getReference(), middle.getReference()), tracker.services());
+
+		high.unregister();
+
+		assertEquals(Arrays.asList(low.getReference(), middle.getReference()), tracker.services());
+		// earlier snapshots are not affected
+		assertEquals(3, services.size());
+
+		tracker.close();
+
+		assertTrue(tracker.services().isEmpty());
+	}
+
+	@Test
+	public void customizerIsCalledWithoutTheLock() throws Exception {
+		AtomicBoolean first = new AtomicBoolean(true);
+
+		Recorder red = new Recorder() {
+
+			@Override
+			public Object addingService(ServiceReference<Object> reference) {
+				if (first.compareAndSet(true, false)) {
+					// e.g. a component activated by the first service registers the second one
+					Thread thread = new Thread(() -> register("test.Foo", "red"));
+
+					thread.start();
+
+					try {
+						thread.join(10000);
+					}
+					catch (InterruptedException ie) {
+						Thread.currentThread().interrupt();
+					}
+
+					assertFalse(thread.isAlive());
+				}
+
+				return super.addingService(reference);
+			}
+
+		};
+
+		ReferenceIndex.Tracker tracker = index.tracker("test.Foo", "(&(objectClass=test.Foo)(color=red))", red);
+
+		tracker.open();
+
+		register("test.Foo", "red");
+
+		assertEquals(2, red.added.size());
+		assertEquals(2, tracker.size());
+	}
+
+	@Test
+	public void removedWhileAdding() throws Exception {
+		Recorder red = new Recorder() {
+
+			@Override
+			public Object addingService(ServiceReference<Object> reference) {
+				// e.g. the service is unregistered by another thread meanwhile
+				tracker.serviceChanged(new ServiceEvent(ServiceEvent.UNREGISTERING, reference));
+
+				return super.addingService(reference);
+			}
+
+		};
+
+		tracker = index.tracker("test.Foo", "(&(objectClass=test.Foo)(color=red))", red);
+
+		tracker.open();
+
+		register("test.Foo", "red");
+
+		assertEquals(1, red.added.size());
+		assertEquals(1, red.removed.size());
+		assertEquals(0, tracker.size());
+		assertTrue(tracker.services().isEmpty());
+	}
+
+	@Test
+	public void unregisteredWhileOpening() throws Exception {
+		List<ServiceRegistration<?>> registrations = Arrays.asList(
+			register("test.Foo", "red"), register("test.Foo", "red"));
+
+		Recorder red = new Recorder() {
+
+			@Override
+			public Object addingService(ServiceReference<Object> reference) {
+				// the other initial service goes away before open gets to it
+				registrations.stream().filter(
+					r -> !r.getReference().equals(reference)
+				).forEach(ServiceRegistration::unregister);
+
+				return super.addingService(reference);
+			}
+
+		};
+
+		// the mock framework replays the registrations to a new listener, share the listener so open looks them up
+		index.tracker("test.Foo", "(&(objectClass=test.Foo)(color=blue))", new Recorder()).open();
+
+		tracker = index.tracker("test.Foo", "(&(objectClass=test.Foo)(color=red))", red);
+
+		tracker.open();
+
+		assertEquals(1, red.added.size());
+		assertTrue(red.removed.isEmpty());
+		assertEquals(1, tracker.size());
+		assertEquals(red.added, Arrays.asList(tracker.getServiceReferences()));
+	}
+
+	private ServiceRegistration<?> register(String objectClass, String color) {
+		Hashtable<String, Object> properties = new Hashtable<>();
+		properties.put("color", color);
+
+		return bundleContext.registerService(new String[] {objectClass}, new Object(), properties);
+	}
+
+	private ServiceRegistration<?> register(String objectClass, String color, int ranking) {
+		Hashtable<String, Object> properties = new Hashtable<>();
+		properties.put("color", color);
+		properties.put(Constants.SERVICE_RANKING, ranking);
+
+		return bundleContext.registerService(new String[] {objectClass}, new Object(), properties);
+	}
+
+	private BundleContext bundleContext;
+	private ReferenceIndex index;
+	private ReferenceIndex.Tracker tracker;
+
+	private static class Recorder implements ServiceTrackerCustomizer<Object, Object> {
+
+		@Override
+		public Object addingService(ServiceReference<Object> reference) {
+			added.add(reference);
+			return reference;
+		}
+
+		@Override
+		public void modifiedService(ServiceReference<Object> reference, Object service) {
+			modified.add(reference);
+		}
+
+		@Override
+		public void removedService(ServiceReference<Object> reference, Object service) {
+			removed.add(reference);
+		}
+
+		final List<ServiceReference<Object>> added = new CopyOnWriteArrayList<>();
+		final List<ServiceReference<Object>> modified = new CopyOnWriteArrayList<>();
+		final List<ServiceReference<Object>> removed = new CopyOnWriteArrayList<>();
+
+	}
+
+}
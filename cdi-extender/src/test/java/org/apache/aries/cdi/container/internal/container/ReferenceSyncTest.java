@@ -0,0 +1,221 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aries.cdi.container.internal.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.aries.cdi.container.internal.model.Binder;
+import org.apache.aries.cdi.container.internal.model.CollectionType;
+import org.apache.aries.cdi.container.internal.model.ExtendedComponentInstanceDTO;
+import org.apache.aries.cdi.container.internal.model.ExtendedReferenceDTO;
+import org.apache.aries.cdi.container.internal.model.ExtendedReferenceTemplateDTO;
+import org.apache.aries.cdi.container.internal.model.ReferenceMatches;
+import org.apache.aries.cdi.container.test.MockServiceReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.cdi.MaximumCardinality;
+import org.osgi.service.cdi.ReferencePolicy;
+import org.osgi.service.cdi.ReferencePolicyOption;
+import org.osgi.service.cdi.runtime.dto.template.ComponentTemplateDTO;
+
+public class ReferenceSyncTest {
+
+	@Before
+	public void before() {
+		executor = Executors.newCachedThreadPool();
+		containerState = mock(ContainerState.class, RETURNS_DEEP_STUBS);
+		bundle = mock(Bundle.class);
+
+		when(containerState.binderAsyncCapacity()).thenReturn(1);
+		when(containerState.binderExecutor()).thenReturn(executor);
+		when(containerState.timings()).thenReturn(new OpTimings(10));
+		when(bundle.getBundleId()).thenReturn(2L);
+
+		ExtendedReferenceTemplateDTO templateDTO = new ExtendedReferenceTemplateDTO();
+		templateDTO.async = true;
+		templateDTO.collectionType = CollectionType.BINDER_SERVICE;
+		templateDTO.maximumCardinality = MaximumCardinality.MANY;
+		templateDTO.minimumCardinality = 0;
+		templateDTO.name = "test";
+		templateDTO.policy = ReferencePolicy.DYNAMIC;
+		templateDTO.policyOption = ReferencePolicyOption.GREEDY;
+		templateDTO.serviceType = "com.acme.Service";
+
+		referenceDTO = new ExtendedReferenceDTO();
+		referenceDTO.matches = new ReferenceMatches();
+		referenceDTO.minimumCardinality = 0;
+		referenceDTO.template = templateDTO;
+
+		instanceDTO = new ExtendedComponentInstanceDTO(containerState, null);
+		instanceDTO.active = true;
+		instanceDTO.template = new ComponentTemplateDTO();
+		instanceDTO.template.name = "foo";
+	}
+
+	@After
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void callbacksMayCauseEventsWhileTheQueueIsFull() throws Exception {
+		ServiceReference<Object> a = reference();
+		ServiceReference<Object> b = reference();
+		ServiceReference<Object> c = reference();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch delivered = new CountDownLatch(3);
+		List<ServiceReference<Object>> added = new CopyOnWriteArrayList<>();
+		Thread[] caller = new Thread[1];
+		ReferenceSync[] sync = new ReferenceSync[1];
+
+		referenceDTO.binder = new RecordingBinder(
+			reference -> {
+				added.add(reference);
+
+				if (reference == a) {
+					started.countDown();
+
+					// wait for the other caller to block on the full queue
+					while ((caller[0].getState() == Thread.State.NEW) || (caller[0].getState() == Thread.State.RUNNABLE)) {
+						Thread.yield();
+					}
+
+					// e.g. the callback registers a service tracked by the same reference
+					sync[0].addingService(b);
+				}
+
+				delivered.countDown();
+			}
+		);
+
+		sync[0] = new ReferenceSync(containerState, referenceDTO, instanceDTO, null);
+		caller[0] = new Thread(() -> sync[0].addingService(c));
+
+		sync[0].addingService(a);
+
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+
+		caller[0].start();
+		caller[0].join(TimeUnit.SECONDS.toMillis(10));
+
+		assertFalse(caller[0].isAlive());
+		assertTrue(delivered.await(10, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList(a, b, c), added);
+		assertEquals(3, referenceDTO.matches.size());
+	}
+
+	@Test
+	public void closeDropsTheWaitingCallbacks() throws Exception {
+		ServiceReference<Object> a = reference();
+		ServiceReference<Object> b = reference();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch closed = new CountDownLatch(1);
+		List<ServiceReference<Object>> added = new CopyOnWriteArrayList<>();
+
+		when(containerState.binderAsyncCapacity()).thenReturn(10);
+
+		referenceDTO.binder = new RecordingBinder(
+			reference -> {
+				added.add(reference);
+				started.countDown();
+
+				try {
+					closed.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		);
+
+		ReferenceSync sync = new ReferenceSync(containerState, referenceDTO, instanceDTO, null);
+
+		sync.addingService(a);
+		sync.addingService(b);
+
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+
+		sync.close();
+		closed.countDown();
+		sync.removedService(a, referenceDTO.binder);
+
+		executor.shutdown();
+
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList(a), added);
+		assertTrue(((RecordingBinder)referenceDTO.binder)._removed.isEmpty());
+	}
+
+	private ServiceReference<Object> reference() {
+		return new MockServiceReference<>(bundle, new Object(), new String[] {"com.acme.Service"});
+	}
+
+	private static class RecordingBinder implements Binder<Object> {
+
+		RecordingBinder(Consumer<ServiceReference<Object>> adding) {
+			_adding = adding;
+		}
+
+		@Override
+		public Binder<Object> addingService(ServiceReference<Object> reference) {
+			_adding.accept(reference);
+
+			return this;
+		}
+
+		@Override
+		public Binder<Object> modifiedService(ServiceReference<Object> reference) {
+			return this;
+		}
+
+		@Override
+		public Binder<Object> removedService(ServiceReference<Object> reference) {
+			_removed.add(reference);
+
+			return this;
+		}
+
+		@Override
+		public void close() {
+		}
+
+		private final Consumer<ServiceReference<Object>> _adding;
+		private final List<ServiceReference<Object>> _removed = new CopyOnWriteArrayList<>();
+
+	}
+
+	private Bundle bundle;
+	private ContainerState containerState;
+	private ExecutorService executor;
+	private ExtendedComponentInstanceDTO instanceDTO;
+	private ExtendedReferenceDTO referenceDTO;
+
+}
@@ -0,0 +1,204 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.container;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.Extension;
+import javax.enterprise.inject.spi.ProcessAnnotatedType;
+
+import org.apache.aries.cdi.container.test.MockAnnotatedType;
+import org.apache.aries.cdi.extension.spi.adapt.FiltersOn;
+import org.apache.aries.cdi.extension.spi.adapt.ProcessPotentialService;
+import org.apache.aries.cdi.extension.spi.adapt.RegisterExtension;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ServiceAdapterExtensionTest {
+
+	@Before
+	public void before() {
+		beanManager = mock(BeanManager.class);
+		extension = new TestExtension();
+		serviceAdapterExtension = new ServiceAdapterExtension();
+
+		RegisterExtension registerExtension = new RegisterExtension(extension);
+
+		registerExtension.registerObserver().forAnnotations(Marker.class).execute(
+			(bm, pps) -> extension.calls.add("functional")).done();
+
+		serviceAdapterExtension.capturePotentialServiceObservers(registerExtension);
+	}
+
+	@Test
+	public void plainType() {
+		forward(Plain.class);
+
+		assertCalls("all");
+	}
+
+	@Test
+	public void annotatedType() {
+		forward(OnType.class);
+
+		assertCalls("all", "marker", "functional");
+	}
+
+	@Test
+	public void metaAnnotatedMember() {
+		forward(OnMember.class);
+
+		assertCalls("all", "marker", "functional");
+	}
+
+	@Test
+	public void annotatedParameter() {
+		forward(OnParameter.class);
+
+		assertCalls("all", "other");
+	}
+
+	@Test
+	public void types() {
+		forward(Sub.class);
+
+		assertCalls("all", "types");
+
+		extension.calls.clear();
+
+		forward(Base.class);
+
+		assertCalls("all", "types");
+
+		extension.calls.clear();
+
+		forward(Object.class);
+
+		assertCalls("all", "types");
+	}
+
+	@Test
+	public void typesAndAnnotations() {
+		forward(AnnotatedSub.class);
+
+		assertCalls("all", "marker", "types", "both", "functional");
+	}
+
+	private void assertCalls(String... calls) {
+		// declared methods are not ordered
+		assertEquals(asList(calls).stream().sorted().collect(toList()), extension.calls.stream().sorted().collect(toList()));
+	}
+
+	private <T> void forward(Class<T> clazz) {
+		@SuppressWarnings("unchecked")
+		ProcessAnnotatedType<T> pat = mock(ProcessAnnotatedType.class);
+		when(pat.getAnnotatedType()).thenReturn(new MockAnnotatedType<>(clazz));
+
+		extension.events.clear();
+
+		serviceAdapterExtension.forwardToObservers(pat, beanManager);
+
+		for (ProcessPotentialService pps : extension.events) {
+			assertSame(pat, pps.getProcessAnnotatedType());
+		}
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Marker {}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Other {}
+
+	@Marker
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Stereotype {}
+
+	public static class Plain {}
+
+	@Marker
+	public static class OnType {}
+
+	public static class OnMember {
+		@Stereotype
+		public Object field;
+	}
+
+	public static class OnParameter {
+		public void method(@Other Object parameter) {}
+	}
+
+	public static class Base {}
+
+	public static class Sub extends Base implements Runnable {
+		@Override
+		public void run() {}
+	}
+
+	@Marker
+	public static class AnnotatedSub extends Sub {}
+
+	public static class TestExtension implements Extension {
+
+		void all(@Observes ProcessPotentialService pps) {
+			calls.add("all");
+			events.add(pps);
+		}
+
+		void marker(@Observes @FiltersOn(annotations = Marker.class) ProcessPotentialService pps, BeanManager bm) {
+			calls.add("marker");
+			events.add(pps);
+		}
+
+		void other(BeanManager bm, @Observes @FiltersOn(annotations = Other.class) ProcessPotentialService pps) {
+			calls.add("other");
+			events.add(pps);
+		}
+
+		void types(@Observes @FiltersOn(types = AnnotatedSub.class) ProcessPotentialService pps) {
+			calls.add("types");
+			events.add(pps);
+		}
+
+		void both(@Observes @FiltersOn(annotations = Marker.class, types = AnnotatedSub.class) ProcessPotentialService pps) {
+			calls.add("both");
+			events.add(pps);
+		}
+
+		void none(@Observes @FiltersOn(annotations = {}) ProcessPotentialService pps) {
+			calls.add("none");
+		}
+
+		final List<String> calls = new ArrayList<>();
+		final List<ProcessPotentialService> events = new ArrayList<>();
+
+	}
+
+	private BeanManager beanManager;
+	private TestExtension extension;
+	private ServiceAdapterExtension serviceAdapterExtension;
+
+}
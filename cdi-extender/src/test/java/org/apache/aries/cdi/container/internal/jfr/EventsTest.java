@@ -0,0 +1,83 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class EventsTest {
+
+	@Test
+	public void disabledEventsAreNoop() throws Exception {
+		assertSame(Probe.NOOP, Events.reference("foo", "bar", "SERVICE", "add", 1));
+	}
+
+	@Test
+	public void enabledEventsAreRecorded() throws Exception {
+		Path file = Files.createTempFile("aries-cdi", ".jfr");
+
+		try (Recording recording = new Recording()) {
+			recording.enable("org.apache.aries.cdi.Reference").withoutThreshold();
+			recording.enable("org.apache.aries.cdi.Discovery").withoutThreshold();
+			recording.disable("org.apache.aries.cdi.Configuration");
+			recording.start();
+
+			try (Probe probe = Events.reference("foo", "bar", "SERVICE", "add", 42)) {
+				assertNotSame(Probe.NOOP, probe);
+			}
+			try (Probe probe = Events.discovery("foo", 3)) {
+				// nothing to do
+			}
+			try (Probe probe = Events.configuration("foo", "baz", "pid", null, "UPDATED")) {
+				assertSame(Probe.NOOP, probe);
+			}
+
+			recording.stop();
+			recording.dump(file);
+
+			List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream().filter(
+				e -> e.getEventType().getName().startsWith("org.apache.aries.cdi.")
+			).collect(Collectors.toList());
+
+			assertEquals(2, events.size());
+
+			RecordedEvent reference = events.stream().filter(
+				e -> e.getEventType().getName().equals("org.apache.aries.cdi.Reference")
+			).findFirst().get();
+
+			assertEquals("foo", reference.getString("container"));
+			assertEquals("bar", reference.getString("reference"));
+			assertEquals("SERVICE", reference.getString("collectionType"));
+			assertEquals("add", reference.getString("action"));
+			assertEquals(42, reference.getLong("serviceId"));
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+}
@@ -0,0 +1,204 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.loader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.namespace.PackageNamespace;
+import org.osgi.framework.wiring.BundleRevision;
+import org.osgi.framework.wiring.BundleWiring;
+import org.osgi.resource.Requirement;
+
+public class BundleClassLoaderTest {
+
+	@Test
+	public void missesAreRemembered() throws Exception {
+		Bundle cdiBundle = bundle();
+		Bundle extenderBundle = bundle();
+
+		BundleClassLoader loader = new BundleClassLoader(cdiBundle, extenderBundle);
+
+		for (int i = 0; i < 3; i++) {
+			assertMissing(loader, "com.acme.Missing");
+		}
+
+		verify(cdiBundle, times(1)).loadClass("com.acme.Missing");
+		verify(extenderBundle, times(1)).loadClass("com.acme.Missing");
+		assertEquals(1, loader.misses());
+
+		// a new bundle may have the class
+		Bundle extensionBundle = bundle();
+		loader.getBundles().add(extensionBundle);
+
+		assertEquals(0, loader.misses());
+
+		assertMissing(loader, "com.acme.Missing");
+
+		verify(cdiBundle, times(2)).loadClass("com.acme.Missing");
+		verify(extensionBundle, times(1)).loadClass("com.acme.Missing");
+	}
+
+	@Test
+	public void bundlesAreTriedInOrder() throws Exception {
+		Bundle cdiBundle = bundle();
+		Bundle extenderBundle = bundle();
+
+		// a split package, the first bundle in the list wins
+		doReturn(ArrayList.class).when(cdiBundle).loadClass("java.util.ArrayList");
+		doReturn(LinkedList.class).when(extenderBundle).loadClass("java.util.ArrayList");
+
+		BundleClassLoader loader = new BundleClassLoader(cdiBundle, extenderBundle);
+
+		assertEquals(ArrayList.class, loader.loadClass("java.util.ArrayList"));
+
+		verify(extenderBundle, never()).loadClass(any());
+	}
+
+	@Test
+	public void missesAreForgottenOnRefresh() throws Exception {
+		Bundle cdiBundle = bundle();
+		Bundle extenderBundle = bundle();
+
+		BundleClassLoader loader = new BundleClassLoader(cdiBundle, extenderBundle);
+
+		assertMissing(loader, "com.acme.Missing");
+		assertEquals(1, loader.misses());
+
+		// the refreshed bundle may have the class
+		when(extenderBundle.adapt(BundleWiring.class)).thenReturn(mock(BundleWiring.class));
+		doReturn(ArrayList.class).when(extenderBundle).loadClass("com.acme.Missing");
+
+		assertEquals(ArrayList.class, loader.loadClass("com.acme.Missing"));
+		assertEquals(0, loader.misses());
+	}
+
+	@Test
+	public void missesAreNotRememberedWithDynamicImports() throws Exception {
+		Bundle cdiBundle = bundle();
+		Bundle extenderBundle = bundle();
+
+		Requirement requirement = mock(Requirement.class);
+		BundleRevision revision = mock(BundleRevision.class);
+
+		when(requirement.getDirectives()).thenReturn(
+			Collections.singletonMap(
+				PackageNamespace.REQUIREMENT_RESOLUTION_DIRECTIVE, PackageNamespace.RESOLUTION_DYNAMIC));
+		when(revision.getRequirements(PackageNamespace.PACKAGE_NAMESPACE)).thenReturn(
+			Collections.singletonList(requirement));
+		when(cdiBundle.adapt(BundleWiring.class).getRevision()).thenReturn(revision);
+
+		BundleClassLoader loader = new BundleClassLoader(cdiBundle, extenderBundle);
+
+		for (int i = 0; i < 3; i++) {
+			assertMissing(loader, "com.acme.Missing");
+		}
+
+		verify(cdiBundle, times(3)).loadClass("com.acme.Missing");
+		assertEquals(0, loader.misses());
+	}
+
+	@Test
+	public void removingBundlesForgetsTheMisses() throws Exception {
+		Bundle cdiBundle = bundle();
+		Bundle extenderBundle = bundle();
+		Bundle extensionBundle = bundle();
+
+		BundleClassLoader loader = new BundleClassLoader(cdiBundle, extenderBundle);
+
+		loader.getBundles().add(extensionBundle);
+
+		assertMissing(loader, "com.acme.Missing");
+		assertEquals(1, loader.misses());
+
+		assertTrue(loader.getBundles().remove(extensionBundle));
+		assertEquals(0, loader.misses());
+
+		loader.getBundles().add(extensionBundle);
+		assertMissing(loader, "com.acme.Missing");
+
+		assertTrue(loader.getBundles().removeIf(extensionBundle::equals));
+		assertEquals(0, loader.misses());
+
+		loader.getBundles().add(extensionBundle);
+		assertMissing(loader, "com.acme.Missing");
+
+		assertTrue(loader.getBundles().removeAll(Collections.singleton(extensionBundle)));
+		assertEquals(0, loader.misses());
+		assertEquals(Arrays.asList(cdiBundle, extenderBundle), loader.getBundles());
+	}
+
+	@Test
+	public void resetKeepsTheLoadedClasses() throws Exception {
+		Bundle cdiBundle = bundle();
+		Bundle extenderBundle = bundle();
+		Bundle extensionBundle = bundle();
+
+		doReturn(ArrayList.class).when(extensionBundle).loadClass("java.util.ArrayList");
+
+		BundleClassLoader loader = new BundleClassLoader(cdiBundle, extenderBundle);
+
+		loader.getBundles().add(extensionBundle);
+
+		assertEquals(ArrayList.class, loader.loadClass("java.util.ArrayList"));
+		assertMissing(loader, "com.acme.Missing");
+
+		loader.reset();
+
+		assertEquals(Arrays.asList(cdiBundle, extenderBundle), loader.getBundles());
+		assertEquals(0, loader.misses());
+		assertEquals(ArrayList.class, loader.loadClass("java.util.ArrayList"));
+
+		verify(extensionBundle, times(1)).loadClass("java.util.ArrayList");
+	}
+
+	private void assertMissing(BundleClassLoader loader, String name) {
+		try {
+			loader.loadClass(name);
+
+			fail();
+		}
+		catch (ClassNotFoundException cnfe) {
+			// expected
+		}
+	}
+
+	private Bundle bundle() throws Exception {
+		Bundle bundle = mock(Bundle.class);
+		BundleWiring wiring = mock(BundleWiring.class);
+
+		when(bundle.adapt(BundleWiring.class)).thenReturn(wiring);
+		when(bundle.getState()).thenReturn(Bundle.ACTIVE);
+		when(bundle.loadClass(any())).thenThrow(new ClassNotFoundException());
+
+		return bundle;
+	}
+
+}
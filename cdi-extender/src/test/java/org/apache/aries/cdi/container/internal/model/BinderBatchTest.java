@@ -0,0 +1,249 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.aries.cdi.container.internal.container.ContainerState;
+import org.apache.aries.cdi.container.internal.model.BinderBatch.Kind;
+import org.apache.aries.cdi.container.test.BaseCDIBundleTest;
+import org.apache.aries.cdi.container.test.TestUtil;
+import org.apache.aries.cdi.spi.reference.BatchBindService;
+import org.junit.Test;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.cdi.reference.BeanServiceObjects;
+import org.osgi.service.cdi.reference.BindService;
+import org.osgi.service.log.Logger;
+import org.osgi.util.promise.PromiseFactory;
+
+public class BinderBatchTest extends BaseCDIBundleTest {
+
+	@Test
+	public void initialServicesAreBatched() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+		BindServiceImpl<Integer> binder = new BindServiceImpl<>(containerState);
+		List<ServiceReference<Integer>> references = register(containerState, 5);
+		List<List<Integer>> batches = new ArrayList<>();
+		AtomicInteger added = new AtomicInteger();
+
+		references.forEach(binder::addingService);
+
+		BatchBindService.of((BindService<Integer>)binder).batch(2, 1000).addingAll(batches::add).adding(s -> added.incrementAndGet()).bind();
+
+		// delivered by bind, without waiting for the latency
+		assertEquals(Arrays.asList(Arrays.asList(0, 1), Arrays.asList(2, 3), Arrays.asList(4)), batches);
+		assertEquals(5, added.get());
+	}
+
+	@Test
+	public void changesAreCoalesced() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+		BindServiceImpl<Integer> binder = new BindServiceImpl<>(containerState);
+		List<ServiceReference<Integer>> references = register(containerState, 4);
+		List<String> batches = new ArrayList<>();
+		CountDownLatch latch = new CountDownLatch(3);
+
+		binder.batch(100, 200).addingAll(
+			s -> {
+				batches.add("adding" + s);
+				latch.countDown();
+			}
+		).removedAll(
+			s -> {
+				batches.add("removed" + s);
+				latch.countDown();
+			}
+		).bind();
+
+		references.forEach(binder::addingService);
+		binder.removedService(references.get(1));
+		binder.removedService(references.get(3));
+		binder.addingService(references.get(1));
+
+		assertTrue(batches.isEmpty());
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList("adding[0, 1, 2, 3]", "removed[1, 3]", "adding[1]"), batches);
+	}
+
+	@Test
+	public void noLatencyDeliversRightAway() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+		BindServiceReferenceImpl<Integer> binder = new BindServiceReferenceImpl<>(containerState);
+		List<ServiceReference<Integer>> references = register(containerState, 2);
+		List<List<ServiceReference<Integer>>> batches = new ArrayList<>();
+
+		binder.batch(100, 0).addingAll(batches::add).bind();
+
+		references.forEach(binder::addingService);
+
+		assertEquals(Arrays.asList(references.subList(0, 1), references.subList(1, 2)), batches);
+	}
+
+	@Test
+	public void latencyIsWaitedOnTheBinderExecutor() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "binder"));
+		ContainerState containerState = mock(ContainerState.class);
+		AtomicReference<String> thread = new AtomicReference<>();
+		CountDownLatch latch = new CountDownLatch(1);
+
+		when(containerState.binderPromiseFactory()).thenReturn(new PromiseFactory(executor));
+
+		try {
+			BinderBatch<Integer> batch = new BinderBatch<>(containerState, mock(Logger.class), this);
+
+			batch.configure(100, 50);
+			batch.consumer(
+				Kind.ADDING,
+				s -> {
+					thread.set(Thread.currentThread().getName());
+					latch.countDown();
+				}
+			);
+			batch.add(Kind.ADDING, 1);
+
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+			assertEquals("binder", thread.get());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void callbacksRunWithoutHoldingTheBatch() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		ContainerState containerState = mock(ContainerState.class);
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch leave = new CountDownLatch(1);
+		List<List<Integer>> batches = new ArrayList<>();
+
+		try {
+			BinderBatch<Integer> batch = new BinderBatch<>(containerState, mock(Logger.class), this);
+
+			batch.configure(100, 0);
+			batch.consumer(
+				Kind.ADDING,
+				s -> {
+					entered.countDown();
+
+					try {
+						leave.await(10, TimeUnit.SECONDS);
+					}
+					catch (InterruptedException ie) {
+						Thread.currentThread().interrupt();
+					}
+
+					batches.add(s);
+				}
+			);
+
+			Future<?> first = executor.submit(() -> batch.add(Kind.ADDING, 1));
+
+			assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+			// returns while the first batch is being delivered, which then delivers this one too
+			batch.add(Kind.ADDING, 2);
+
+			assertTrue(batches.isEmpty());
+
+			leave.countDown();
+			first.get(10, TimeUnit.SECONDS);
+
+			assertEquals(Arrays.asList(Arrays.asList(1), Arrays.asList(2)), batches);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void servicesWhichAreGoneAreNotBatched() throws Exception {
+		ContainerState containerState = mock(ContainerState.class, RETURNS_DEEP_STUBS);
+		BindServiceImpl<Integer> binder = new BindServiceImpl<>(containerState);
+		ServiceReference<Integer> reference = mock(ServiceReference.class);
+		List<List<Integer>> batches = new ArrayList<>();
+
+		// the service was unregistered before the binder got to it
+		when(containerState.bundleContext().getService(reference)).thenReturn(null);
+
+		binder.batch(100, 0).addingAll(batches::add).removedAll(batches::add).bind();
+
+		binder.addingService(reference);
+		binder.removedService(reference);
+
+		assertTrue(batches.isEmpty());
+	}
+
+	@Test
+	public void serviceObjectsWhichAreGoneAreNotBatched() throws Exception {
+		ContainerState containerState = mock(ContainerState.class, RETURNS_DEEP_STUBS);
+		BindBeanServiceObjectsImpl<Integer> binder = new BindBeanServiceObjectsImpl<>(containerState);
+		ServiceReference<Integer> reference = mock(ServiceReference.class);
+		List<List<BeanServiceObjects<Integer>>> batches = new ArrayList<>();
+
+		when(containerState.bundleContext().getServiceObjects(reference)).thenReturn(null);
+
+		binder.batch(100, 0).addingAll(batches::add).removedAll(batches::add).bind();
+
+		binder.addingService(reference);
+		binder.removedService(reference);
+
+		assertTrue(batches.isEmpty());
+	}
+
+	@Test
+	public void closeDropsTheWaitingChanges() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+		BindServiceImpl<Integer> binder = new BindServiceImpl<>(containerState);
+		List<ServiceReference<Integer>> references = register(containerState, 2);
+		List<List<Integer>> batches = new ArrayList<>();
+
+		binder.batch(100, 50).addingAll(batches::add).bind();
+
+		binder.addingService(references.get(0));
+		binder.close();
+		binder.addingService(references.get(1));
+
+		Thread.sleep(200);
+
+		assertTrue(batches.isEmpty());
+	}
+
+	private List<ServiceReference<Integer>> register(ContainerState containerState, int count) {
+		List<ServiceReference<Integer>> references = new ArrayList<>();
+
+		for (int i = 0; i < count; i++) {
+			references.add(containerState.bundleContext().registerService(Integer.class, i, null).getReference());
+		}
+
+		return references;
+	}
+
+}
@@ -0,0 +1,60 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.aries.cdi.container.test.BaseCDIBundleTest;
+import org.apache.aries.cdi.container.test.TestUtil;
+import org.junit.Test;
+
+public class ExtendedComponentInstanceDTOTest extends BaseCDIBundleTest {
+
+	public @interface Config {
+		int port() default 80;
+	}
+
+	@Test
+	public void viewsAreKeptUntilThePropertiesChange() throws Exception {
+		ExtendedComponentInstanceDTO instance = new ExtendedComponentInstanceDTO(TestUtil.getContainerState(null), null);
+
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("port", 8080);
+		instance.properties = properties;
+
+		Config config = (Config)instance.componentPropertiesAs(Config.class);
+
+		assertEquals(8080, config.port());
+		assertSame(config, instance.componentPropertiesAs(Config.class));
+
+		// maps are mutable so each injection gets its own
+		assertNotSame(instance.componentPropertiesAs(Map.class), instance.componentPropertiesAs(Map.class));
+
+		properties = new HashMap<>();
+		properties.put("port", 9090);
+		instance.properties = properties;
+
+		Config updated = (Config)instance.componentPropertiesAs(Config.class);
+
+		assertNotSame(config, updated);
+		assertEquals(9090, updated.port());
+	}
+
+}
@@ -0,0 +1,138 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.aries.cdi.container.internal.container.ContainerState;
+import org.apache.aries.cdi.container.test.BaseCDIBundleTest;
+import org.apache.aries.cdi.container.test.TestUtil;
+import org.junit.Test;
+import org.osgi.service.cdi.runtime.dto.ComponentInstanceDTO;
+
+public class FactoryInstancesTest extends BaseCDIBundleTest {
+
+	@Test
+	public void instancesAreIndexedByPid() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+		FactoryInstances instances = new FactoryInstances();
+
+		ExtendedComponentInstanceDTO foo1 = instance(containerState, "foo~1");
+		ExtendedComponentInstanceDTO foo2 = instance(containerState, "foo~2");
+
+		assertTrue(instances.add(foo1));
+		assertTrue(instances.add(foo2));
+
+		try {
+			instances.add(instance(containerState, "foo~1"));
+
+			fail();
+		}
+		catch (IllegalArgumentException iae) {
+			// expected
+		}
+
+		List<ComponentInstanceDTO> list = instances.list();
+
+		assertEquals(2, instances.size());
+		assertEquals(2, list.size());
+		assertSame(foo1, instances.get("foo~1").get());
+		assertTrue(list.contains(foo2));
+		assertFalse(instances.get("foo~3").isPresent());
+
+		assertFalse(instances.remove(instance(containerState, "foo~2")));
+		assertTrue(list.remove(foo2));
+		assertFalse(instances.get("foo~2").isPresent());
+
+		List<ComponentInstanceDTO> all = list.stream().collect(Collectors.toList());
+
+		assertEquals(1, all.size());
+		assertSame(foo1, all.get(0));
+		assertSame(foo1, list.get(0));
+
+		list.removeIf(i -> true);
+
+		assertTrue(list.isEmpty());
+		assertFalse(instances.get("foo~1").isPresent());
+	}
+
+	@Test
+	public void instancesKeepTheirOrder() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+		FactoryInstances instances = new FactoryInstances();
+
+		for (int i = 0; i < 100; i++) {
+			instances.add(instance(containerState, "foo~" + i));
+		}
+
+		List<ComponentInstanceDTO> list = instances.list();
+
+		list.remove(list.get(50));
+
+		int i = 0;
+
+		for (ComponentInstanceDTO instance : list) {
+			ExtendedComponentInstanceDTO einstance = (ExtendedComponentInstanceDTO)instance;
+
+			assertEquals("foo~" + ((i < 50) ? i : i + 1), einstance.pid);
+			assertSame(einstance, list.get(0));
+
+			i++;
+
+			// iterators work on a snapshot
+			instances.remove(einstance);
+		}
+
+		assertEquals(99, i);
+		assertTrue(list.isEmpty());
+	}
+
+	@Test
+	public void manyInstances() throws Exception {
+		ContainerState containerState = TestUtil.getContainerState(null);
+		FactoryInstances instances = new FactoryInstances();
+
+		for (int i = 0; i < 20000; i++) {
+			instances.add(instance(containerState, "foo~" + i));
+		}
+
+		for (int i = 0; i < 20000; i++) {
+			assertTrue(instances.get("foo~" + i).isPresent());
+		}
+
+		assertEquals(20000, instances.size());
+
+		// like the configuration listener deleting the configurations one by one
+		for (int i = 0; i < 20000; i++) {
+			assertTrue(instances.list().remove(instances.get("foo~" + i).get()));
+		}
+
+		assertTrue(instances.list().isEmpty());
+	}
+
+	private ExtendedComponentInstanceDTO instance(ContainerState containerState, String pid) {
+		ExtendedComponentInstanceDTO instance = new ExtendedComponentInstanceDTO(containerState, null);
+		instance.pid = pid;
+		return instance;
+	}
+
+}
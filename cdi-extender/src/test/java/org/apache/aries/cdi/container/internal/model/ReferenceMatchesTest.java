@@ -0,0 +1,115 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.apache.aries.cdi.container.internal.util.SRs;
+import org.junit.Test;
+import org.osgi.framework.Constants;
+import org.osgi.framework.dto.ServiceReferenceDTO;
+
+public class ReferenceMatchesTest {
+
+	@Test
+	public void sortedLikeTheServiceReferences() {
+		Random random = new Random(7);
+		List<ServiceReferenceDTO> dtos = new ArrayList<>();
+
+		for (int i = 0; i < 100; i++) {
+			dtos.add(dto(i, random.nextInt(5) - 2));
+		}
+
+		Collections.shuffle(dtos, random);
+
+		ReferenceMatches matches = new ReferenceMatches();
+
+		matches.addAll(dtos);
+
+		dtos.sort(SRs.COMPARATOR);
+
+		assertEquals(dtos, new ArrayList<>(matches));
+		assertEquals(100, matches.size());
+		assertEquals(dtos.get(42), matches.get(42));
+	}
+
+	@Test
+	public void modifiedMatchIsReplaced() {
+		ReferenceMatches matches = new ReferenceMatches();
+
+		matches.add(dto(1, 0));
+		matches.add(dto(2, 0));
+		matches.add(dto(3, 0));
+
+		assertEquals(ids(3, 2, 1), ids(matches));
+
+		// the ranking of 3 changed
+		matches.add(dto(3, 10));
+
+		assertEquals(ids(2, 1, 3), ids(matches));
+		assertEquals(3, matches.size());
+	}
+
+	@Test
+	public void removed() {
+		ReferenceMatches matches = new ReferenceMatches();
+
+		ServiceReferenceDTO one = dto(1, 0);
+
+		matches.add(one);
+		matches.add(dto(2, 0));
+		matches.add(dto(3, 0));
+
+		assertTrue(matches.remove(2L));
+		assertFalse(matches.remove(2L));
+		assertTrue(matches.remove(one));
+		assertFalse(matches.contains(one));
+		assertEquals(ids(3), ids(matches));
+
+		matches.removeIf(d -> d.id == 3);
+
+		assertTrue(matches.isEmpty());
+	}
+
+	private ServiceReferenceDTO dto(long id, int ranking) {
+		ServiceReferenceDTO dto = new ServiceReferenceDTO();
+		dto.id = id;
+		dto.properties = new HashMap<>();
+		dto.properties.put(Constants.SERVICE_RANKING, ranking);
+		return dto;
+	}
+
+	private List<Long> ids(long... ids) {
+		List<Long> list = new ArrayList<>();
+		for (long id : ids) {
+			list.add(id);
+		}
+		return list;
+	}
+
+	private List<Long> ids(List<ServiceReferenceDTO> dtos) {
+		return dtos.stream().map(d -> d.id).collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import javax.enterprise.inject.spi.InjectionPoint;
+import javax.inject.Inject;
+
+import org.apache.aries.cdi.container.test.AbstractTestBase;
+import org.apache.aries.cdi.container.test.MockInjectionPoint;
+import org.apache.aries.cdi.container.test.beans.Foo;
+import org.apache.aries.cdi.spi.reference.Async;
+import org.junit.Test;
+import org.osgi.service.cdi.annotations.Reference;
+import org.osgi.service.cdi.reference.BindService;
+
+public class ReferenceModel_AsyncTest extends AbstractTestBase {
+
+	@Test
+	public void asyncBinder() throws Exception {
+		class C {
+			@Inject
+			@Async
+			public BindService<Foo> async;
+
+			@Inject
+			public BindService<Foo> sync;
+		}
+
+		InjectionPoint injectionPoint = new MockInjectionPoint(C.class.getField("async"));
+
+		ReferenceModel referenceModel = new ReferenceModel.Builder(injectionPoint.getAnnotated()).type(injectionPoint.getType()).build();
+
+		assertEquals(CollectionType.BINDER_SERVICE, referenceModel.getCollectionType());
+		assertTrue(referenceModel.toDTO().async);
+
+		injectionPoint = new MockInjectionPoint(C.class.getField("sync"));
+
+		referenceModel = new ReferenceModel.Builder(injectionPoint.getAnnotated()).type(injectionPoint.getType()).build();
+
+		assertFalse(referenceModel.toDTO().async);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void asyncService() throws Exception {
+		class C {
+			@Inject
+			@Async
+			@Reference
+			public Foo m;
+		}
+
+		InjectionPoint injectionPoint = new MockInjectionPoint(C.class.getField("m"));
+
+		new ReferenceModel.Builder(injectionPoint.getAnnotated()).type(injectionPoint.getType()).build();
+	}
+
+}
@@ -16,8 +16,11 @@ package org.apache.aries.cdi.container.internal.phase;
 
 import static org.apache.aries.cdi.container.internal.util.Reflection.*;
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
 
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.aries.cdi.container.internal.container.CheckedCallback;
@@ -147,4 +150,74 @@ public class ConfigurationListenerTest extends BaseCDIBundleTest {
 		assertEquals("bar", properties.get("foo"));
 	}
 
+	@Test
+	public void configuration_async() throws Exception {
+		when(bundle.getBundleContext().getProperty(ConfigurationListener.ASYNC)).thenReturn("true");
+
+		ServiceTracker<ConfigurationAdmin, ConfigurationAdmin> caTracker = TestUtil.mockCaSt(bundle);
+
+		MockConfiguration mockConfiguration = new MockConfiguration("osgi.cdi.foo", null);
+		mockConfiguration.update(Maps.dict("foo", "bar"));
+		TestUtil.configurations.add(mockConfiguration);
+
+		ContainerState containerState = new ContainerState(bundle, ccrBundle, ccrChangeCount, promiseFactory, caTracker, new Logs.Builder(bundle.getBundleContext()).build());
+
+		ConfigurationListener configurationListener = new ConfigurationListener.Builder(containerState
+		).component(
+			new ContainerComponent.Builder(containerState,
+				new ContainerActivator.Builder(containerState, null)
+			).template(
+				containerState.containerDTO().template.components.get(0)
+			).build()
+		).build();
+
+		Promise<Boolean> p0 = containerState.addCallback(
+			(CheckedCallback<Boolean, Boolean>) op -> {
+				return op.mode == Op.Mode.OPEN && op.type == Op.Type.CONTAINER_INSTANCE;
+			}
+		);
+
+		configurationListener.open();
+
+		p0.timeout(200).getValue();
+
+		// the configuration found on open reopens the instance
+		assertEquals("bar", waitFor(containerState, "bar").get("foo"));
+
+		final String pid = containerState.containerDTO().components.get(0).template.configurations.get(0).pid;
+
+		CountDownLatch blocked = new CountDownLatch(1);
+
+		// keep the container busy, a synchronous listener would now block
+		containerState.promiseFactory().submit(() -> blocked.await(10, TimeUnit.SECONDS));
+
+		for (int i = 0; i < 3; i++) {
+			mockConfiguration.update(Maps.dict("foo", "baz" + i));
+
+			configurationListener.configurationEvent(
+				new ConfigurationEvent(caTracker.getServiceReference(), ConfigurationEvent.CM_UPDATED, null, pid));
+		}
+
+		assertEquals(2, configurationListener.collapsedEvents());
+		assertEquals("bar", containerState.containerDTO().components.get(0).instances.get(0).properties.get("foo"));
+
+		blocked.countDown();
+
+		assertEquals("baz2", waitFor(containerState, "baz2").get("foo"));
+	}
+
+	private Map<String, Object> waitFor(ContainerState containerState, String foo) throws InterruptedException {
+		int attempts = 100;
+		Map<String, Object> properties;
+
+		// the properties are null while the instance is reopened
+		while ((((properties = containerState.containerDTO().components.get(0).instances.get(0).properties) == null) ||
+				!foo.equals(properties.get("foo"))) && (attempts-- > 0)) {
+
+			Thread.sleep(10);
+		}
+
+		return properties;
+	}
+
 }
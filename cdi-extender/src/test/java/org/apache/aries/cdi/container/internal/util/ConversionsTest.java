@@ -0,0 +1,129 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ConversionsTest {
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Config {
+		int port() default 80;
+		String[] hosts() default {"localhost"};
+	}
+
+	public interface Settings {
+		String name();
+		List<String> tags();
+	}
+
+	@Test
+	public void isView() {
+		assertTrue(Conversions.isView(Config.class));
+		assertTrue(Conversions.isView(Settings.class));
+		assertFalse(Conversions.isView(Map.class));
+		assertFalse(Conversions.isView(List.class));
+		assertFalse(Conversions.isView(Runnable.class));
+		assertFalse(Conversions.isView(String.class));
+	}
+
+	@Test
+	public void viewConvertsLikeTheConverter() {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("port", "8080");
+		properties.put("name", "foo");
+		properties.put("tags", new String[] {"a", "b"});
+
+		Config config = (Config)Conversions.view(properties, Config.class);
+
+		assertEquals(8080, config.port());
+		assertEquals(8080, config.port());
+		assertArrayEquals(new String[] {"localhost"}, config.hosts());
+
+		// arrays are copied
+		config.hosts()[0] = "example.com";
+		assertArrayEquals(new String[] {"localhost"}, config.hosts());
+
+		Settings settings = (Settings)Conversions.view(properties, Settings.class);
+
+		assertEquals("foo", settings.name());
+		assertSame(settings.name(), settings.name());
+
+		// other mutable values are converted again
+		settings.tags().add("bar");
+		assertEquals(Arrays.asList("a", "b"), settings.tags());
+		assertNotSame(settings.tags(), settings.tags());
+	}
+
+	@Test
+	public void viewsFollowTheAnnotationContract() {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("port", "8080");
+
+		Config config = (Config)Conversions.view(properties, Config.class);
+		Config annotation = Annotated.class.getAnnotation(Config.class);
+
+		assertEquals(Config.class, config.annotationType());
+		assertEquals(annotation, config);
+		assertEquals(config, annotation);
+		assertEquals(annotation.hashCode(), config.hashCode());
+		assertEquals(config, Conversions.view(properties, Config.class));
+
+		Map<String, Object> other = new HashMap<>(properties);
+		other.put("port", "8081");
+
+		assertNotEquals(config, Conversions.view(other, Config.class));
+		assertNotEquals(annotation, Conversions.view(other, Config.class));
+	}
+
+	@Test
+	public void viewsAreEqualWhenTheirValuesAre() {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("name", "foo");
+		properties.put("tags", new String[] {"a", "b"});
+
+		Settings settings = (Settings)Conversions.view(properties, Settings.class);
+
+		assertEquals(settings, settings);
+		assertEquals(settings, Conversions.view(properties, Settings.class));
+		assertEquals(settings.hashCode(), Conversions.view(properties, Settings.class).hashCode());
+
+		Map<String, Object> other = new HashMap<>(properties);
+		other.put("tags", new String[] {"a"});
+
+		assertNotEquals(settings, Conversions.view(other, Settings.class));
+		assertNotEquals(settings, Conversions.convert(properties).to(Settings.class));
+	}
+
+	@Config(port = 8080)
+	private static class Annotated {
+	}
+
+}
@@ -0,0 +1,81 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.apache.aries.cdi.container.test.MockServiceReference;
+import org.apache.aries.cdi.container.test.TestUtil;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.dto.BundleDTO;
+import org.osgi.framework.dto.ServiceReferenceDTO;
+
+public class SRsTest {
+
+	@Test
+	public void toDTO() throws Exception {
+		BundleDTO bundleDTO = new BundleDTO();
+		bundleDTO.id = 42;
+
+		Bundle bundle = TestUtil.mockBundle(bundleDTO, b -> {});
+
+		MockServiceReference<Object> reference = new MockServiceReference<>(bundle, new Object(), new String[] {"test.Foo"});
+		reference.setProperty("color", "red");
+
+		ServiceReferenceDTO dto = SRs.toDTO(reference);
+
+		assertEquals(42, dto.bundle);
+		assertEquals(SRs.id(reference), dto.id);
+		assertEquals("red", dto.properties.get("color"));
+		assertEquals(0, dto.usingBundles.length);
+	}
+
+	@Test
+	public void comparatorFollowsServiceReferenceOrder() throws Exception {
+		Bundle bundle = TestUtil.mockBundle(new BundleDTO(), b -> {});
+		Random random = new Random(7);
+		List<ServiceReference<Object>> references = new ArrayList<>();
+
+		for (int i = 0; i < 50; i++) {
+			MockServiceReference<Object> reference = new MockServiceReference<>(bundle, new Object(), new String[] {"test.Foo"});
+			reference.setProperty(Constants.SERVICE_RANKING, random.nextInt(5) - 2);
+			references.add(reference);
+		}
+
+		Collections.shuffle(references, random);
+
+		List<ServiceReferenceDTO> sorted = new ArrayList<>();
+
+		for (ServiceReference<Object> reference : references) {
+			ServiceReferenceDTO dto = SRs.toDTO(reference);
+			int index = Collections.binarySearch(sorted, dto, SRs.COMPARATOR);
+			sorted.add((index < 0) ? -(index + 1) : index, dto);
+		}
+
+		List<Long> expected = references.stream().sorted().map(SRs::id).collect(Collectors.toList());
+
+		assertEquals(expected, sorted.stream().map(d -> d.id).collect(Collectors.toList()));
+	}
+
+}
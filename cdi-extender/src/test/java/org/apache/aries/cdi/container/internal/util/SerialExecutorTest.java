@@ -0,0 +1,121 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SerialExecutorTest {
+
+	@Test
+	public void tasksOfOneLaneRunInOrder() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+
+		try {
+			SerialExecutor lane = new SerialExecutor(pool, 3);
+			List<Integer> seen = new CopyOnWriteArrayList<>();
+			AtomicInteger concurrent = new AtomicInteger();
+			AtomicInteger maxConcurrent = new AtomicInteger();
+			CountDownLatch done = new CountDownLatch(200);
+
+			for (int i = 0; i < 200; i++) {
+				int value = i;
+				lane.execute(() -> {
+					maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+					seen.add(value);
+					concurrent.decrementAndGet();
+					done.countDown();
+				});
+			}
+
+			assertTrue(done.await(10, TimeUnit.SECONDS));
+			assertEquals(1, maxConcurrent.get());
+
+			for (int i = 0; i < 200; i++) {
+				assertEquals(i, seen.get(i).intValue());
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void lanesRunInParallel() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+
+		try {
+			CountDownLatch both = new CountDownLatch(2);
+
+			new SerialExecutor(pool).execute(() -> await(both));
+			new SerialExecutor(pool).execute(() -> await(both));
+
+			// would deadlock (and time out) if the lanes were serialized
+			assertTrue(both.await(10, TimeUnit.SECONDS));
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void isCurrent() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+
+		try {
+			SerialExecutor lane = new SerialExecutor(pool);
+			SerialExecutor other = new SerialExecutor(pool);
+			List<Boolean> seen = new CopyOnWriteArrayList<>();
+			CountDownLatch done = new CountDownLatch(1);
+
+			lane.execute(() -> {
+				seen.add(lane.isCurrent());
+				seen.add(other.isCurrent());
+				done.countDown();
+			});
+
+			assertTrue(done.await(10, TimeUnit.SECONDS));
+			assertEquals(Arrays.asList(true, false), seen);
+			assertFalse(lane.isCurrent());
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private void await(CountDownLatch latch) {
+		latch.countDown();
+
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
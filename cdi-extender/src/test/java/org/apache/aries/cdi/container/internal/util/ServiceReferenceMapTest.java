@@ -0,0 +1,122 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.container.internal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.aries.cdi.container.test.MockServiceReference;
+import org.apache.aries.cdi.container.test.TestUtil;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.dto.BundleDTO;
+
+public class ServiceReferenceMapTest {
+
+	@Before
+	public void before() throws Exception {
+		reference = new MockServiceReference<>(
+			TestUtil.mockBundle(new BundleDTO(), b -> {}), new Object(), new String[] {"test.Foo"});
+		reference.setProperty("color", "red");
+	}
+
+	@Test
+	public void readsTheReference() throws Exception {
+		Map<String, Object> map = new ServiceReferenceMap(reference);
+
+		assertEquals(Maps.of(reference.getProperties()), map);
+		assertEquals(Maps.of(reference.getProperties()).hashCode(), map.hashCode());
+		assertEquals("red", map.get("color"));
+		assertTrue(map.containsKey("color"));
+		assertFalse(map.containsKey("size"));
+		assertNull(map.get(1));
+
+		// reading copies nothing
+		reference.setProperty("color", "blue");
+
+		assertEquals("blue", map.get("color"));
+	}
+
+	@Test
+	public void keysAreTakenWhenCreated() throws Exception {
+		Map<String, Object> map = new ServiceReferenceMap(reference);
+		int size = map.size();
+
+		reference.setProperty("size", 3);
+
+		assertFalse(map.containsKey("size"));
+		assertNull(map.get("size"));
+		assertEquals(size, map.size());
+		assertEquals(size, map.keySet().size());
+		assertEquals(size, map.entrySet().size());
+		assertFalse(map.keySet().contains("size"));
+	}
+
+	@Test
+	public void keysAreCaseSensitive() throws Exception {
+		Map<String, Object> map = new ServiceReferenceMap(reference);
+
+		assertNull(map.get("COLOR"));
+		assertFalse(map.containsKey("COLOR"));
+		assertEquals(map.containsKey("COLOR"), map.keySet().contains("COLOR"));
+
+		map.put("size", 3);
+
+		assertFalse(map.containsKey("COLOR"));
+	}
+
+	@Test
+	public void copiesOnWrite() throws Exception {
+		Map<String, Object> map = new ServiceReferenceMap(reference);
+
+		map.put("size", 3);
+
+		assertEquals(3, map.get("size"));
+		assertEquals(reference.getPropertyKeys().length + 1, map.size());
+
+		reference.setProperty("color", "blue");
+
+		assertEquals("red", map.get("color"));
+		assertNull(reference.getProperty("size"));
+	}
+
+	@Test
+	public void copiesOnIteratorWrite() throws Exception {
+		Map<String, Object> map = new ServiceReferenceMap(reference);
+		Map<String, Object> expected = new HashMap<>(Maps.of(reference.getProperties()));
+
+		for (Iterator<Map.Entry<String, Object>> iterator = map.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<String, Object> entry = iterator.next();
+
+			if (entry.getKey().equals("color")) {
+				iterator.remove();
+			}
+		}
+
+		expected.remove("color");
+
+		assertEquals(expected, map);
+		assertEquals("red", reference.getProperty("color"));
+	}
+
+	private MockServiceReference<Object> reference;
+
+}
@@ -17,6 +17,7 @@ package org.apache.aries.cdi.container.test;
 import static org.apache.aries.cdi.container.internal.util.Reflection.cast;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -24,6 +25,7 @@ import static org.mockito.Mockito.when;
 import java.net.URL;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -52,6 +54,7 @@ import org.osgi.framework.Filter;
 import org.osgi.framework.FrameworkUtil;
 import org.osgi.framework.ServiceEvent;
 import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
 import org.osgi.framework.ServiceRegistration;
 import org.osgi.framework.dto.BundleDTO;
 import org.osgi.framework.dto.ServiceReferenceDTO;
@@ -241,6 +244,19 @@ public class TestUtil {
 				return null;
 			}
 		).when(bundleContext).addServiceListener(any(), any());
+		when(bundleContext.getServiceReferences(nullable(String.class), anyString())).then(
+			(Answer<ServiceReference<?>[]>) getServiceReferences -> {
+				String clazz = getServiceReferences.getArgument(0);
+				Filter filter = FrameworkUtil.createFilter(getServiceReferences.getArgument(1));
+				ServiceReference<?>[] references = serviceRegistrations.stream().map(
+					reg -> reg.getReference()
+				).filter(
+					ref -> ((clazz == null) || Arrays.asList((String[])ref.getProperty(Constants.OBJECTCLASS)).contains(clazz)) && filter.match(ref)
+				).toArray(ServiceReference[]::new);
+
+				return (references.length == 0) ? null : references;
+			}
+		);
 
 		ServiceTracker<LoggerFactory, LoggerFactory> loggerTracker = new ServiceTracker<>(bundle.getBundleContext(), LoggerFactory.class, null);
 		loggerTracker.open();
@@ -0,0 +1,84 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.spi.reference;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.osgi.annotation.versioning.ProviderType;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.cdi.reference.BindServiceReference;
+
+/**
+ * A {@link BindServiceReference} which can also deliver service references
+ * in batches. The services found when {@link #bind()} is called are
+ * delivered in batches of at most the maximum batch size. Later changes are
+ * collected for at most the batch latency and delivered together, in the
+ * order they happened. Consecutive changes of the same kind form a batch.
+ * <p>
+ * The batch callbacks are called in addition to the callbacks of
+ * {@link BindServiceReference}.
+ *
+ * @param <S> the service type
+ */
+@ProviderType
+public interface BatchBindServiceReference<S> extends BindServiceReference<S> {
+
+	/**
+	 * @param binder a binder injected by Aries CDI
+	 * @return the binder as a {@link BatchBindServiceReference}
+	 * @throws IllegalArgumentException if the binder wasn't provided by Aries
+	 *         CDI
+	 */
+	@SuppressWarnings("unchecked")
+	static <S> BatchBindServiceReference<S> of(BindServiceReference<S> binder) {
+		if (binder instanceof BatchBindServiceReference) {
+			return (BatchBindServiceReference<S>)binder;
+		}
+
+		throw new IllegalArgumentException("Batches are not supported by " + binder);
+	}
+
+	/**
+	 * @param action called with the service references added
+	 * @return this binder
+	 */
+	BatchBindServiceReference<S> addingAll(Consumer<List<ServiceReference<S>>> action);
+
+	/**
+	 * @param action called with the service references whose properties changed
+	 * @return this binder
+	 */
+	BatchBindServiceReference<S> modifiedAll(Consumer<List<ServiceReference<S>>> action);
+
+	/**
+	 * @param action called with the service references removed
+	 * @return this binder
+	 */
+	BatchBindServiceReference<S> removedAll(Consumer<List<ServiceReference<S>>> action);
+
+	/**
+	 * Overrides the batch size and latency given by the framework properties
+	 * {@code aries.cdi.extender.binder.batch.size} and
+	 * {@code aries.cdi.extender.binder.batch.latency}.
+	 *
+	 * @param maxSize the maximum number of service references in a batch, at least 1
+	 * @param latency the time in milliseconds a change may wait for more
+	 *        changes, 0 to deliver each change right away
+	 * @return this binder
+	 */
+	BatchBindServiceReference<S> batch(int maxSize, long latency);
+
+}
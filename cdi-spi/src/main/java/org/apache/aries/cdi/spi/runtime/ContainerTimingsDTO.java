@@ -0,0 +1,54 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.spi.runtime;
+
+import java.util.List;
+
+import org.osgi.dto.DTO;
+
+/**
+ * The lifecycle timings of a CDI container.
+ */
+public class ContainerTimingsDTO extends DTO {
+
+	/**
+	 * The id of the CDI bundle.
+	 */
+	public long bundle;
+
+	/**
+	 * The number of rebinds of component instances which were absorbed by an
+	 * already pending rebind.
+	 */
+	public long coalescedRebinds;
+
+	/**
+	 * The number of container restarts avoided by coalescing extension
+	 * changes.
+	 */
+	public long avoidedRestarts;
+
+	/**
+	 * The most recent operations, oldest first.
+	 */
+	public List<OpTimingDTO> recent;
+
+	/**
+	 * The aggregated timings of all the operations since the container was
+	 * created, one entry per operation type which was run at least once.
+	 */
+	public List<OpTypeTimingsDTO> types;
+
+}
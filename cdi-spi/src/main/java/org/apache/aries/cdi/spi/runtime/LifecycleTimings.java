@@ -0,0 +1,37 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.spi.runtime;
+
+import java.util.Collection;
+
+import org.osgi.annotation.versioning.ProviderType;
+import org.osgi.framework.Bundle;
+
+/**
+ * A service registered by Aries CDI giving the time spent in the lifecycle
+ * operations of each CDI container: starting the container, activating
+ * components, reacting to configuration and service changes, etc.
+ */
+@ProviderType
+public interface LifecycleTimings {
+
+	/**
+	 * @param bundles the bundles whose CDI containers are of interest, all
+	 *        CDI containers when none is given
+	 * @return the timings of the CDI containers, never null
+	 */
+	Collection<ContainerTimingsDTO> getContainerTimingsDTOs(Bundle... bundles);
+
+}
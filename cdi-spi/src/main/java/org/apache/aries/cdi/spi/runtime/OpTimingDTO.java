@@ -0,0 +1,62 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.spi.runtime;
+
+import org.osgi.dto.DTO;
+
+/**
+ * A single lifecycle operation of a CDI container.
+ */
+public class OpTimingDTO extends DTO {
+
+	/**
+	 * Either {@code OPEN} or {@code CLOSE}.
+	 */
+	public String mode;
+
+	/**
+	 * The type of the operation, e.g. {@code CONTAINER_BOOTSTRAP} or
+	 * {@code SINGLE_ACTIVATOR}.
+	 */
+	public String type;
+
+	/**
+	 * The name of the component, instance or container operated on.
+	 */
+	public String name;
+
+	/**
+	 * The time the operation was submitted, in milliseconds since the epoch.
+	 */
+	public long submitted;
+
+	/**
+	 * The time the operation waited for the container to be free, in
+	 * nanoseconds. Always {@code 0} for {@code CLOSE} operations which run
+	 * right away.
+	 */
+	public long waitNanos;
+
+	/**
+	 * The time the operation ran, in nanoseconds.
+	 */
+	public long runNanos;
+
+	/**
+	 * Whether the operation threw an exception.
+	 */
+	public boolean failed;
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.spi.runtime;
+
+import org.osgi.dto.DTO;
+
+/**
+ * The aggregated timings of the operations of one type.
+ * <p>
+ * The histograms count the operations by duration in buckets of
+ * {@code < 1ms}, {@code < 10ms}, {@code < 100ms}, {@code < 1s},
+ * {@code < 10s} and {@code >= 10s}.
+ */
+public class OpTypeTimingsDTO extends DTO {
+
+	/**
+	 * The type of the operations, e.g. {@code CONTAINER_BOOTSTRAP}.
+	 */
+	public String type;
+
+	/**
+	 * The number of operations.
+	 */
+	public long count;
+
+	/**
+	 * The number of operations which threw an exception.
+	 */
+	public long failures;
+
+	/**
+	 * The total time the operations waited for the container, in nanoseconds.
+	 */
+	public long totalWaitNanos;
+
+	/**
+	 * The longest time an operation waited for the container, in nanoseconds.
+	 */
+	public long maxWaitNanos;
+
+	/**
+	 * The total time the operations ran, in nanoseconds.
+	 */
+	public long totalRunNanos;
+
+	/**
+	 * The longest time an operation ran, in nanoseconds.
+	 */
+	public long maxRunNanos;
+
+	/**
+	 * The histogram of the wait times.
+	 */
+	public long[] waitHistogram;
+
+	/**
+	 * The histogram of the run times.
+	 */
+	public long[] runHistogram;
+
+}
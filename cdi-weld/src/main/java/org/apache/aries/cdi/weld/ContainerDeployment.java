@@ -23,15 +23,22 @@ import org.jboss.weld.bootstrap.api.ServiceRegistry;
 import org.jboss.weld.bootstrap.spi.BeanDeploymentArchive;
 import org.jboss.weld.bootstrap.spi.CDI11Deployment;
 import org.jboss.weld.bootstrap.spi.Metadata;
+import org.jboss.weld.manager.api.ExecutorServices;
 
 public class ContainerDeployment implements CDI11Deployment {
 
-	public ContainerDeployment(Iterable<Metadata<Extension>> extensions, BeanDeploymentArchive beanDeploymentArchive) {
+	public ContainerDeployment(
+		Iterable<Metadata<Extension>> extensions, BeanDeploymentArchive beanDeploymentArchive,
+		ExecutorServices executorServices) {
+
 		_extensions = extensions;
 		_beanDeploymentArchive = beanDeploymentArchive;
 
 		_beanDeploymentArchives = new ArrayList<BeanDeploymentArchive>();
 		_beanDeploymentArchives.add(beanDeploymentArchive);
+
+		// otherwise Weld creates a pool of its own per container
+		_beanDeploymentArchive.getServices().add(ExecutorServices.class, executorServices);
 	}
 
 	@Override
@@ -0,0 +1,109 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.weld;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.weld.exceptions.WeldException;
+import org.jboss.weld.manager.api.ExecutorServices;
+
+/**
+ * The executor of a single container, used by Weld's concurrent deployer and
+ * validator. Its threads use the container's class loader, time out once the
+ * container is initialized and are stopped when the container shuts down.
+ */
+public class ContainerExecutorServices implements ExecutorServices {
+
+	/**
+	 * Weld's own configuration key for the size of its thread pool. It can be
+	 * given as a container property or as a framework property.
+	 */
+	public static final String THREAD_POOL_SIZE = "org.jboss.weld.executor.threadPoolSize";
+
+	public ContainerExecutorServices(String id, int threadPoolSize, ClassLoader classLoader) {
+		_threadPoolSize = Math.max(1, threadPoolSize);
+
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(
+			_threadPoolSize, _threadPoolSize, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+			r -> {
+				Thread thread = new Thread(r, "Aries CDI Weld - " + id + " - " + _threads.incrementAndGet());
+				thread.setContextClassLoader(classLoader);
+				thread.setDaemon(true);
+				return thread;
+			});
+
+		executor.allowCoreThreadTimeOut(true);
+
+		_executor = executor;
+	}
+
+	@Override
+	public void cleanup() {
+		_executor.shutdownNow();
+	}
+
+	@Override
+	public ExecutorService getTaskExecutor() {
+		return _executor;
+	}
+
+	public int getThreadPoolSize() {
+		return _threadPoolSize;
+	}
+
+	@Override
+	public <T> List<Future<T>> invokeAllAndCheckForExceptions(Collection<? extends Callable<T>> tasks) {
+		try {
+			List<Future<T>> futures = _executor.invokeAll(tasks);
+
+			for (Future<T> future : futures) {
+				future.get();
+			}
+
+			return futures;
+		}
+		catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+
+			throw new WeldException(ie);
+		}
+		catch (ExecutionException ee) {
+			if (ee.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)ee.getCause();
+			}
+
+			throw new WeldException(ee.getCause());
+		}
+	}
+
+	@Override
+	public <T> List<Future<T>> invokeAllAndCheckForExceptions(TaskFactory<T> factory) {
+		return invokeAllAndCheckForExceptions(factory.createTasks(_threadPoolSize));
+	}
+
+	private final ExecutorService _executor;
+	private final AtomicInteger _threads = new AtomicInteger();
+	private final int _threadPoolSize;
+
+}
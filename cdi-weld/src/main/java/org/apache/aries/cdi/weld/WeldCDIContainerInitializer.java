@@ -25,6 +25,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 import javax.enterprise.inject.spi.Extension;
@@ -113,7 +115,9 @@ public class WeldCDIContainerInitializer extends CDIContainerInitializer {
 				beanClasses.stream().map(Class::getName).collect(Collectors.toList()),
 				beansXml);
 
-			Deployment deployment = new ContainerDeployment(metaExtensions, beanDeploymentArchive);
+			Deployment deployment = new ContainerDeployment(
+				metaExtensions, beanDeploymentArchive,
+				new ContainerExecutorServices(id, threadPoolSize(), spiLoader));
 
 			bootstrap.startExtensions(metaExtensions);
 			bootstrap.startContainer(id, new ContainerEnvironment(), deployment);
@@ -129,10 +133,37 @@ public class WeldCDIContainerInitializer extends CDIContainerInitializer {
 		}
 	}
 
+	private int threadPoolSize() {
+		Object value = properties.get(ContainerExecutorServices.THREAD_POOL_SIZE);
+
+		if (value == null) {
+			value = weldBundleContext.getProperty(ContainerExecutorServices.THREAD_POOL_SIZE);
+		}
+
+		int defaultValue = Runtime.getRuntime().availableProcessors();
+
+		if (value == null) {
+			return defaultValue;
+		}
+
+		try {
+			return Integer.parseInt(String.valueOf(value).trim());
+		}
+		catch (NumberFormatException nfe) {
+			_log.log(
+				Level.WARNING, "Invalid value {0} for {1}, using {2}",
+				new Object[] {value, ContainerExecutorServices.THREAD_POOL_SIZE, defaultValue});
+
+			return defaultValue;
+		}
+	}
+
 	private String location(Map<String, Object> extensionProperties) {
 		return String.valueOf(extensionProperties.get(Constants.SERVICE_ID));
 	}
 
+	private static final Logger _log = Logger.getLogger(WeldCDIContainerInitializer.class.getName());
+
 	private volatile BeanDeploymentArchive beanDeploymentArchive;
 	private final List<URL> beanDescriptorURLs = new ArrayList<>();
 	private volatile WeldBootstrap bootstrap;
@@ -0,0 +1,152 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.aries.cdi.weld;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.weld.exceptions.WeldException;
+import org.junit.After;
+import org.junit.Test;
+
+public class ContainerExecutorServicesTest {
+
+	@After
+	public void after() {
+		if (executorServices != null) {
+			executorServices.cleanup();
+		}
+	}
+
+	@Test
+	public void tasksRunOnTheContainerThreads() throws Exception {
+		ClassLoader classLoader = new URLClassLoader(new URL[0]);
+
+		executorServices = new ContainerExecutorServices("foo", 2, classLoader);
+
+		List<Future<Thread>> futures = executorServices.invokeAllAndCheckForExceptions(
+			Arrays.<Callable<Thread>>asList(Thread::currentThread, Thread::currentThread));
+
+		for (Future<Thread> future : futures) {
+			Thread thread = future.get();
+
+			assertTrue(thread.getName(), thread.getName().startsWith("Aries CDI Weld - foo - "));
+			assertSame(classLoader, thread.getContextClassLoader());
+			assertTrue(thread.isDaemon());
+		}
+	}
+
+	@Test
+	public void threadPoolSizeIsAtLeastOne() throws Exception {
+		executorServices = new ContainerExecutorServices("foo", 0, getClass().getClassLoader());
+
+		assertEquals(1, executorServices.getThreadPoolSize());
+	}
+
+	@Test
+	public void taskFactoryCreatesATaskPerThread() throws Exception {
+		executorServices = new ContainerExecutorServices("foo", 3, getClass().getClassLoader());
+
+		List<Integer> sizes = new ArrayList<>();
+
+		List<Future<Integer>> futures = executorServices.invokeAllAndCheckForExceptions(
+			threadPoolSize -> {
+				sizes.add(threadPoolSize);
+
+				return Collections.nCopies(threadPoolSize, () -> 1);
+			});
+
+		assertEquals(Collections.singletonList(3), sizes);
+		assertEquals(3, futures.size());
+	}
+
+	@Test
+	public void runtimeExceptionsAreRethrown() throws Exception {
+		executorServices = new ContainerExecutorServices("foo", 2, getClass().getClassLoader());
+
+		IllegalStateException failure = new IllegalStateException("failure");
+
+		try {
+			executorServices.invokeAllAndCheckForExceptions(
+				Arrays.<Callable<Integer>>asList(() -> 1, () -> {throw failure;}));
+
+			fail();
+		}
+		catch (IllegalStateException ise) {
+			assertSame(failure, ise);
+		}
+	}
+
+	@Test
+	public void checkedExceptionsAreWrapped() throws Exception {
+		executorServices = new ContainerExecutorServices("foo", 2, getClass().getClassLoader());
+
+		IOException failure = new IOException("failure");
+
+		try {
+			executorServices.invokeAllAndCheckForExceptions(
+				Collections.<Callable<Integer>>singletonList(() -> {throw failure;}));
+
+			fail();
+		}
+		catch (WeldException we) {
+			assertSame(failure, we.getCause());
+		}
+	}
+
+	@Test
+	public void cleanupStopsTheThreads() throws Exception {
+		executorServices = new ContainerExecutorServices("foo", 1, getClass().getClassLoader());
+
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+
+		executorServices.getTaskExecutor().submit(() -> {
+			started.countDown();
+
+			try {
+				Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+			}
+			catch (InterruptedException ie) {
+				interrupted.countDown();
+			}
+		});
+
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+
+		executorServices.cleanup();
+
+		assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+		assertTrue(executorServices.getTaskExecutor().isShutdown());
+		assertTrue(executorServices.getTaskExecutor().awaitTermination(10, TimeUnit.SECONDS));
+	}
+
+	private ContainerExecutorServices executorServices;
+
+}